@@ -0,0 +1,93 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hot paths of {@link Assortment} at sizes from ten to a hundred thousand wines.
+ * <p>
+ * Each operation leaves the assortment as it found it: the probe wine is added and removed again, and the wines
+ * added in bulk are cleared afterwards, so every invocation sees the same size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssortmentBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private Assortment<Wine> assortment;
+    private List<Wine> members;
+    private List<Wine> halfOfMembers;
+    private List<Wine> loose;
+    private Wine probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        members = BenchmarkWines.generate(size, 1);
+        assortment = new Assortment<>(1, BenchmarkWines.YEAR);
+        assortment.addAll(members);
+        halfOfMembers = members.subList(0, size / 2);
+        loose = BenchmarkWines.generate(size, size + 1);
+        probe = BenchmarkWines.generate(1, 2 * size + 1).get(0);
+    }
+
+    @Benchmark
+    public boolean addThenRemove() {
+        assortment.add(probe);
+        return assortment.remove(probe);
+    }
+
+    @Benchmark
+    public boolean tryAddThenTryRemove() {
+        assortment.tryAdd(probe);
+        return assortment.tryRemove(probe).isSuccess();
+    }
+
+    @Benchmark
+    public int addAllThenClear() {
+        Assortment<Wine> bulk = new Assortment<>(2, BenchmarkWines.YEAR);
+        bulk.addAll(loose);
+        int added = bulk.size();
+        bulk.clear();
+        return added;
+    }
+
+    @Benchmark
+    public boolean containsAll() {
+        return assortment.containsAll(halfOfMembers);
+    }
+
+    @Benchmark
+    public boolean containsLast() {
+        return assortment.contains(members.get(size - 1));
+    }
+
+    @Benchmark
+    public String toStringAll() {
+        return assortment.toString();
+    }
+
+    @Benchmark
+    public String wineNamesCached() {
+        return assortment.getWineNames();
+    }
+
+    @Benchmark
+    public String wineNamesAfterChange() {
+        assortment.tryAdd(probe);
+        String names = assortment.getWineNames();
+        assortment.tryRemove(probe);
+        return names;
+    }
+
+    @Benchmark
+    public double totalPrice() {
+        return assortment.getTotalPrice();
+    }
+}
@@ -0,0 +1,43 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic wines shared by the data model benchmarks.
+ */
+final class BenchmarkWines {
+    /**
+     * The year of every generated wine, so that they all fit in one assortment.
+     */
+    static final Year YEAR = Year.of(2015);
+
+    private BenchmarkWines() {
+    }
+
+    /**
+     * Generates wines of {@link #YEAR} with distinct IDs and names, cycling through the bottle sizes and colours.
+     *
+     * @param count   the number of wines to generate
+     * @param firstId the ID of the first wine
+     * @return the generated wines
+     */
+    static @NotNull List<Wine> generate(int count, int firstId) {
+        BottleSize[] sizes = BottleSize.values();
+        Color[] colors = Color.values();
+        List<Wine> wines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            wines.add(Wine.builder().id(firstId + i)
+                    .name("Benchmark wine " + i)
+                    .year(YEAR)
+                    .volume(sizes[i % sizes.length])
+                    .color(colors[i % colors.length])
+                    .price(5 + (i % 500) * 0.25)
+                    .comment(i % 3 == 0 ? "Notes" : "").build());
+        }
+        return wines;
+    }
+}
@@ -0,0 +1,56 @@
+package eu.lilithmonodia.winestock.data;
+
+import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of a {@link BottleSize} from the volume read from the database.
+ * <p>
+ * The volumes cycle through every bottle size, so both ends of the enumeration are looked up.
+ * {@code unknownVolume} measures a miss, which {@link BottleSize#findByVolume(double)} reports without an exception.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BottleSizeBenchmark {
+    private double[] volumes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BottleSize[] sizes = BottleSize.values();
+        volumes = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            volumes[i] = sizes[i].getVolume();
+        }
+    }
+
+    @Benchmark
+    public BottleSize doubleToBottleSize() throws InvalidBottleVolumeException {
+        double volume = volumes[next];
+        next = (next + 1) % volumes.length;
+        return BottleSize.doubleToBottleSize(volume);
+    }
+
+    @Benchmark
+    public BottleSize largestVolume() throws InvalidBottleVolumeException {
+        return BottleSize.doubleToBottleSize(volumes[volumes.length - 1]);
+    }
+
+    @Benchmark
+    public BottleSize findByVolume() {
+        double volume = volumes[next];
+        next = (next + 1) % volumes.length;
+        return BottleSize.findByVolume(volume);
+    }
+
+    @Benchmark
+    public BottleSize unknownVolume() {
+        return BottleSize.findByVolume(39);
+    }
+}
@@ -0,0 +1,95 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sums of prices held in cents with {@link Money}, against the BigDecimal arithmetic the assortment totals
+ * used before, and against doubles, which are fast but drift.
+ * <p>
+ * {@code total} methods sum {@code count} prices; {@code addThenSubtract} methods add a price to a running total
+ * and take it away again, as an assortment does when a wine is added and removed. Run with the GC profiler
+ * ({@code -PjmhProfilers=gc}) to see that the sums in cents allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int count;
+
+    private long[] cents;
+    private double[] doubles;
+    private BigDecimal[] decimals;
+    private long runningCents;
+    private BigDecimal runningDecimal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cents = new long[count];
+        doubles = new double[count];
+        decimals = new BigDecimal[count];
+        for (int i = 0; i < count; i++) {
+            cents[i] = 500 + (i % 500) * 25L + i % 7;
+            doubles[i] = Money.toDouble(cents[i]);
+            decimals[i] = BigDecimal.valueOf(doubles[i]);
+        }
+        runningCents = 0;
+        runningDecimal = BigDecimal.ZERO;
+    }
+
+    @Benchmark
+    public long totalCents() {
+        long total = 0;
+        for (long price : cents) {
+            total += price;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal price : decimals) {
+            total = total.add(price);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimalFromDoubles() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (double price : doubles) {
+            total = total.add(BigDecimal.valueOf(price));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double totalDouble() {
+        double total = 0;
+        for (double price : doubles) {
+            total += price;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long addThenSubtractCents() {
+        runningCents += cents[0];
+        runningCents -= cents[0];
+        return runningCents;
+    }
+
+    @Benchmark
+    public BigDecimal addThenSubtractBigDecimal() {
+        runningDecimal = runningDecimal.add(BigDecimal.valueOf(doubles[0]));
+        runningDecimal = runningDecimal.subtract(BigDecimal.valueOf(doubles[0]));
+        return runningDecimal;
+    }
+}
@@ -0,0 +1,51 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the value methods of {@link Wine}, which back the hash-based collections and the sorting of the tables.
+ * <p>
+ * The equal pair holds two distinct instances with the same values, so that equality compares every field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WineBenchmark {
+    private Wine wine;
+    private Wine equalWine;
+    private Wine otherWine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Wine> wines = BenchmarkWines.generate(2, 1);
+        wine = wines.get(0);
+        equalWine = BenchmarkWines.generate(1, 1).get(0);
+        otherWine = wines.get(1);
+    }
+
+    @Benchmark
+    public boolean equalsSameValues() {
+        return wine.equals(equalWine);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentValues() {
+        return wine.equals(otherWine);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return wine.hashCode();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return wine.compareTo(otherWine);
+    }
+}
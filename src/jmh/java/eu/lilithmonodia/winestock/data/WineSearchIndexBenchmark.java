@@ -0,0 +1,67 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the type-ahead searches of {@link WineSearchIndex} against filtering every wine with
+ * {@link WineSearchIndex#matches(String, Wine)}, as a filtered list would, at sizes up to a hundred thousand wines.
+ * <p>
+ * The index search alternates between the text and the text followed by a space, which has the same words, so that
+ * the last search is never reused. {@code putWine} measures the incremental maintenance of the index when a wine is
+ * changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WineSearchIndexBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"benchmark", "wine 12", "rouge magnum"})
+    private String text;
+
+    private List<Wine> wines;
+    private WineSearchIndex index;
+    private Wine probe;
+    private String[] texts;
+    private int turn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wines = BenchmarkWines.generate(size, 1);
+        index = new WineSearchIndex();
+        wines.forEach(index::put);
+        probe = wines.get(size / 2);
+        texts = new String[]{text, text + " "};
+    }
+
+    @Benchmark
+    public BitSet indexSearch() {
+        turn ^= 1;
+        return index.search(texts[turn]);
+    }
+
+    @Benchmark
+    public int filterSearch() {
+        int matches = 0;
+        for (Wine wine : wines) {
+            if (WineSearchIndex.matches(text, wine)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int putWine() {
+        index.put(probe);
+        return index.size();
+    }
+}
@@ -0,0 +1,78 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregations of {@link WineStore} against the same aggregations over a list of Wine objects, at
+ * sizes up to a million wines spread over forty years.
+ * <p>
+ * {@code pageViews} measures the creation of a page of views, as the wine table requests them. Run with the GC
+ * profiler ({@code -PjmhProfilers=gc}) to compare the allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WineStoreBenchmark {
+    private static final int PAGE_SIZE = 200;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private List<Wine> wines;
+    private WineStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BottleSize[] sizes = BottleSize.values();
+        Color[] colors = Color.values();
+        wines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wines.add(new Wine(i + 1, "Benchmark wine " + i % 5000, Year.of(1980 + i % 40), sizes[i % sizes.length],
+                    colors[i % colors.length], 500 + (i % 500) * 25L, i % 3 == 0 ? "Notes" : null, false, 0));
+        }
+        store = WineStore.of(wines);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> priceByYearObjects() {
+        Map<Integer, Long> byYear = new TreeMap<>();
+        for (Wine wine : wines) {
+            byYear.merge(wine.getYear().getValue(), wine.getPriceCents(), Long::sum);
+        }
+        return byYear;
+    }
+
+    @Benchmark
+    public Map<Integer, Long> priceByYearColumns() {
+        return store.getPriceCentsByYear();
+    }
+
+    @Benchmark
+    public long totalPriceObjects() {
+        long total = 0;
+        for (Wine wine : wines) {
+            total += wine.getPriceCents();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long totalPriceColumns() {
+        return store.getTotalPriceCents();
+    }
+
+    @Benchmark
+    public List<Wine> pageViews() {
+        return store.getWinesAfter(size / 2, PAGE_SIZE);
+    }
+}
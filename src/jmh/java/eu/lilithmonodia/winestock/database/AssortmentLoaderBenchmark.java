@@ -0,0 +1,139 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.Assortment;
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single joined query of {@link PostgreSQLManager#getAllAssortments()} with the previous loader,
+ * which ran one wine query per assortment.
+ * <p>
+ * The {@code queries} counter reports the number of statements executed per operation, as counted by the
+ * {@link CountingDriver} through which both loaders reach the database.
+ * The benchmark seeds its own assortments before the trial and deletes them afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AssortmentLoaderBenchmark {
+    private static final String LEGACY_ASSORTMENT_SELECT_SQL = "SELECT ano, year FROM public.assortment";
+    private static final String LEGACY_WINE_SELECT_ASSORTMENT_SQL = "SELECT wno, name, year, volume, color, price, color, comment, ano FROM public.wine WHERE wine.ano IN (SELECT ano FROM public.assortment WHERE ano = ?)";
+
+    @Param({"100", "1000", "5000"})
+    private int assortmentCount;
+    @Param({"5"})
+    private int winesPerAssortment;
+
+    private PostgreSQLManager manager;
+    private Connection connection;
+    private Connection seedConnection;
+    private final List<Integer> seededAssortments = new ArrayList<>();
+
+    /**
+     * Counts the statements executed by the loaders.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long queries;
+    }
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        manager = BenchmarkDatabase.countedManager();
+        connection = BenchmarkDatabase.countedConnection();
+        seedConnection = BenchmarkDatabase.connection();
+        try (PreparedStatement assortmentInsert = seedConnection.prepareStatement("INSERT INTO public.assortment(year) VALUES(?) RETURNING ano");
+             PreparedStatement wineInsert = seedConnection.prepareStatement("INSERT INTO public.wine(name, year, volume, color, price, comment, ano) VALUES(?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < assortmentCount; i++) {
+                int year = 1990 + i % 30;
+                assortmentInsert.setInt(1, year);
+                try (ResultSet keys = assortmentInsert.executeQuery()) {
+                    keys.next();
+                    int assortmentId = keys.getInt(1);
+                    seededAssortments.add(assortmentId);
+                    for (int j = 0; j < winesPerAssortment; j++) {
+                        wineInsert.setString(1, "Benchmark wine " + i + "-" + j);
+                        wineInsert.setInt(2, year);
+                        wineInsert.setDouble(3, BottleSize.BOUTEILLE.getVolume());
+                        wineInsert.setString(4, Color.values()[j % Color.values().length].name());
+                        wineInsert.setDouble(5, 10.0 + j);
+                        wineInsert.setString(6, "");
+                        wineInsert.setInt(7, assortmentId);
+                        wineInsert.addBatch();
+                    }
+                }
+            }
+            wineInsert.executeBatch();
+        }
+        seedConnection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws SQLException {
+        try (PreparedStatement deleteWines = seedConnection.prepareStatement("DELETE FROM public.wine WHERE ano = ANY (?)");
+             PreparedStatement deleteAssortments = seedConnection.prepareStatement("DELETE FROM public.assortment WHERE ano = ANY (?)")) {
+            Array ids = seedConnection.createArrayOf("integer", seededAssortments.toArray());
+            deleteWines.setArray(1, ids);
+            deleteWines.executeUpdate();
+            deleteAssortments.setArray(1, ids);
+            deleteAssortments.executeUpdate();
+            seedConnection.commit();
+        } finally {
+            seededAssortments.clear();
+            seedConnection.close();
+            connection.close();
+            manager.close();
+        }
+    }
+
+    @Benchmark
+    public List<Assortment<Wine>> joinedSingleQuery(RoundTrips roundTrips) throws SQLException {
+        long before = CountingDriver.statements();
+        List<Assortment<Wine>> assortments = manager.getAllAssortments();
+        roundTrips.queries += CountingDriver.statements() - before;
+        return assortments;
+    }
+
+    @Benchmark
+    public List<Assortment<Wine>> legacyQueryPerAssortment(RoundTrips roundTrips) throws SQLException, InvalidBottleVolumeException {
+        long before = CountingDriver.statements();
+        List<Assortment<Wine>> assortments = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(LEGACY_ASSORTMENT_SELECT_SQL);
+             ResultSet resultSet = pstmt.executeQuery()) {
+            while (resultSet.next()) {
+                Assortment<Wine> assortment = new Assortment<>(resultSet.getInt("ano"), Year.of(resultSet.getInt("year")));
+                try (PreparedStatement pstmtWines = connection.prepareStatement(LEGACY_WINE_SELECT_ASSORTMENT_SQL)) {
+                    pstmtWines.setInt(1, resultSet.getInt("ano"));
+                    try (ResultSet resultSetWines = pstmtWines.executeQuery()) {
+                        while (resultSetWines.next()) {
+                            assortment.add(Wine.builder().id(resultSetWines.getInt("wno"))
+                                    .name(resultSetWines.getString("name"))
+                                    .year(Year.of(resultSetWines.getInt("year")))
+                                    .volume(BottleSize.doubleToBottleSize(resultSetWines.getDouble("volume")))
+                                    .color(Color.valueOf(resultSetWines.getString("color")))
+                                    .price(resultSetWines.getDouble("price"))
+                                    .comment(resultSetWines.getString("comment")).build());
+                        }
+                    }
+                }
+                assortments.add(assortment);
+            }
+        }
+        connection.rollback();
+        roundTrips.queries += CountingDriver.statements() - before;
+        return assortments;
+    }
+}
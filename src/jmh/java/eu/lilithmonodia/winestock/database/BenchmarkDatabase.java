@@ -0,0 +1,81 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Connection settings shared by the database benchmarks.
+ * <p>
+ * The settings come from the {@code winestock.jdbc.url}, {@code winestock.jdbc.user} and
+ * {@code winestock.jdbc.password} system properties, which the Gradle {@code jmh} task passes on from the
+ * {@code winestockJdbcUrl}, {@code winestockJdbcUser} and {@code winestockJdbcPassword} project properties.
+ */
+final class BenchmarkDatabase {
+    static final String URL = System.getProperty("winestock.jdbc.url", "jdbc:postgresql://localhost:5432/winestock");
+    static final String USER = System.getProperty("winestock.jdbc.user", "postgres");
+    static final String PASSWORD = System.getProperty("winestock.jdbc.password", "postgres");
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Creates a PostgreSQLManager for the benchmark database, whose wine table gets the row version column if needed.
+     *
+     * @return a new PostgreSQLManager
+     * @throws SQLException if the database can't be reached
+     */
+    static @NotNull PostgreSQLManager manager() throws SQLException {
+        return manager(URL);
+    }
+
+    /**
+     * Creates a PostgreSQLManager for the benchmark database whose statements are counted by {@link CountingDriver}.
+     *
+     * @return a new PostgreSQLManager
+     * @throws SQLException if the database can't be reached
+     */
+    static @NotNull PostgreSQLManager countedManager() throws SQLException {
+        return manager(CountingDriver.url(URL));
+    }
+
+    /**
+     * Opens a plain connection to the benchmark database whose statements are counted by {@link CountingDriver},
+     * with auto-commit disabled.
+     *
+     * @return a new Connection
+     * @throws SQLException if the database can't be reached
+     */
+    static @NotNull Connection countedConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(CountingDriver.url(URL), USER, PASSWORD);
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    /**
+     * Creates a PostgreSQLManager for a URL of the benchmark database.
+     *
+     * @param url the JDBC URL
+     * @return a new PostgreSQLManager
+     * @throws SQLException if the database can't be reached
+     */
+    private static @NotNull PostgreSQLManager manager(@NotNull String url) throws SQLException {
+        PostgreSQLManager manager = new PostgreSQLManager(url, USER, PASSWORD);
+        manager.installRowVersions();
+        return manager;
+    }
+
+    /**
+     * Opens a plain connection to the benchmark database, with auto-commit disabled.
+     *
+     * @return a new Connection
+     * @throws SQLException if the database can't be reached
+     */
+    static @NotNull Connection connection() throws SQLException {
+        Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+        connection.setAutoCommit(false);
+        return connection;
+    }
+}
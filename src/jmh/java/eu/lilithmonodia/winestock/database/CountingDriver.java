@@ -0,0 +1,151 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver counting the statements executed through its connections, so that benchmarks report the
+ * statements actually sent to the server rather than the ones they expect to send.
+ * <p>
+ * The driver accepts the URLs returned by {@link #url(String)}, which are the PostgreSQL URLs prefixed with
+ * {@code jdbc:counting:}, and opens the connections with the PostgreSQL driver. Every {@code execute} method of
+ * the statements they create, including {@code executeBatch}, counts as one statement. Connections opened by the
+ * {@link ConnectionPool} of a {@link PostgreSQLManager} are counted too when the manager is given such a URL.
+ */
+final class CountingDriver implements Driver {
+    private static final String PREFIX = "jdbc:counting:";
+    private static final LongAdder STATEMENTS = new LongAdder();
+    private static final CountingDriver INSTANCE = new CountingDriver();
+
+    static {
+        try {
+            DriverManager.registerDriver(INSTANCE);
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private CountingDriver() {
+    }
+
+    /**
+     * Returns the URL under which the connections to a database are counted.
+     *
+     * @param url the PostgreSQL URL, starting with {@code jdbc:}
+     * @return the counting URL
+     */
+    static @NotNull String url(@NotNull String url) {
+        return PREFIX + url.substring("jdbc:".length());
+    }
+
+    /**
+     * Returns the number of statements executed so far through counted connections.
+     *
+     * @return the number of statements
+     */
+    static long statements() {
+        return STATEMENTS.sum();
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Connection connection = DriverManager.getConnection("jdbc:" + url.substring(PREFIX.length()), info);
+        return countingProxy(Connection.class, connection);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * Wraps a connection or a statement, counting the statements executed through it.
+     *
+     * @param type   the interface to proxy
+     * @param target the wrapped connection or statement
+     * @param <T>    the type of the interface
+     * @return the proxy
+     */
+    private static <T> T countingProxy(@NotNull Class<T> type, @NotNull T target) {
+        return type.cast(Proxy.newProxyInstance(CountingDriver.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (method.getName().startsWith("execute")) {
+                        STATEMENTS.increment();
+                    }
+                    return wrap(method, result);
+                }));
+    }
+
+    /**
+     * Wraps the statements created by a connection; other results are returned as they are.
+     *
+     * @param method the method called
+     * @param result its result
+     * @return the result, wrapped if it is a statement
+     */
+    private static Object wrap(@NotNull Method method, Object result) {
+        if (result instanceof CallableStatement statement && method.getReturnType() == CallableStatement.class) {
+            return countingProxy(CallableStatement.class, statement);
+        }
+        if (result instanceof PreparedStatement statement && method.getReturnType() == PreparedStatement.class) {
+            return countingProxy(PreparedStatement.class, statement);
+        }
+        if (result instanceof Statement statement && method.getReturnType() == Statement.class) {
+            return countingProxy(Statement.class, statement);
+        }
+        return result;
+    }
+
+    /**
+     * Calls a method on the wrapped object, rethrowing what it throws.
+     *
+     * @param target the wrapped object
+     * @param method the method
+     * @param args   the arguments
+     * @return the result of the method
+     * @throws Throwable what the method throws
+     */
+    private static Object invoke(@NotNull Object target, @NotNull Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An in-memory {@link ResultSet} over fixed rows, so that the row mapping can be measured without a database.
+ * <p>
+ * Only the forward-only accessors used by the row mapping are implemented: {@code next}, {@code wasNull},
+ * {@code findColumn} and the {@code getInt}, {@code getLong}, {@code getDouble}, {@code getString} and
+ * {@code getObject} getters by label or by index. Other methods throw UnsupportedOperationException.
+ * The cursor can be rewound with {@link #rewind()}, so that one instance serves every invocation.
+ */
+final class FakeResultSet implements InvocationHandler {
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final Object[][] rows;
+    private final ResultSet proxy;
+    private int row = -1;
+    private boolean lastWasNull;
+
+    /**
+     * Constructs a new FakeResultSet.
+     *
+     * @param columns the column labels, in index order
+     * @param rows    the rows, each holding one value per column; nulls stand for SQL NULL
+     */
+    FakeResultSet(@NotNull String[] columns, @NotNull Object[][] rows) {
+        for (int i = 0; i < columns.length; i++) {
+            columnIndexes.put(columns[i].toLowerCase(Locale.ROOT), i + 1);
+        }
+        this.rows = rows;
+        this.proxy = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, this);
+    }
+
+    /**
+     * Returns the ResultSet view of the rows.
+     *
+     * @return the ResultSet
+     */
+    @NotNull ResultSet resultSet() {
+        return proxy;
+    }
+
+    /**
+     * Moves the cursor back before the first row.
+     *
+     * @return the ResultSet
+     */
+    @NotNull ResultSet rewind() {
+        row = -1;
+        return proxy;
+    }
+
+    /**
+     * Implements the supported ResultSet methods.
+     *
+     * @param ignored the proxy
+     * @param method  the called method
+     * @param args    the arguments of the call
+     * @return the result of the call
+     * @throws SQLException if a column label is unknown
+     */
+    @Override
+    public Object invoke(Object ignored, @NotNull Method method, Object[] args) throws SQLException {
+        switch (method.getName()) {
+            case "next":
+                return ++row < rows.length;
+            case "wasNull":
+                return lastWasNull;
+            case "findColumn":
+                return columnIndex(args[0]);
+            case "close":
+                return null;
+            case "isClosed":
+                return false;
+            case "getInt":
+                return value(args[0]) instanceof Number n ? n.intValue() : 0;
+            case "getLong":
+                return value(args[0]) instanceof Number n ? n.longValue() : 0L;
+            case "getDouble":
+                return value(args[0]) instanceof Number n ? n.doubleValue() : 0d;
+            case "getString":
+                Object text = value(args[0]);
+                return text == null ? null : text.toString();
+            case "getObject":
+                return value(args[0]);
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    /**
+     * Reads a column of the current row and remembers whether it was NULL.
+     *
+     * @param column the label or the index of the column
+     * @return the value of the column
+     * @throws SQLException if the label is unknown
+     */
+    private Object value(Object column) throws SQLException {
+        Object value = rows[row][columnIndex(column) - 1];
+        lastWasNull = value == null;
+        return value;
+    }
+
+    /**
+     * Resolves a column label or index to an index.
+     *
+     * @param column the label or the index of the column
+     * @return the 1-based index of the column
+     * @throws SQLException if the label is unknown
+     */
+    private int columnIndex(Object column) throws SQLException {
+        if (column instanceof Integer index) {
+            return index;
+        }
+        Integer index = columnIndexes.get(((String) column).toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new SQLException("Unknown column " + column);
+        }
+        return index;
+    }
+}
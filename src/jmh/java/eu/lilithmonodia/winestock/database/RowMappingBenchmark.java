@@ -0,0 +1,93 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mapping of database rows to wines and assortments by {@link PostgreSQLManager}, against an
+ * in-memory ResultSet so that only the client-side cost is measured.
+ * <p>
+ * The rows have the columns of the wine and assortment queries; for the assortment join, each assortment holds
+ * five wines. Scores are per ResultSet of {@code rowCount} rows.
+ * <p>
+ * {@code legacyMapWines} keeps the mapping used before {@link WineRowMapper}, by column label through the wine
+ * builder, for comparison. Run with the GC profiler ({@code -PjmhProfilers=gc}) to compare the bytes allocated per
+ * ResultSet, reported as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+    private static final String[] WINE_COLUMNS = {"wno", "name", "year", "volume", "color", "price", "comment", "version"};
+    private static final String[] ASSORTMENT_COLUMNS = {"ano", "assortment_year", "wno", "name", "year", "volume", "color", "price", "comment", "version"};
+    private static final int WINES_PER_ASSORTMENT = 5;
+
+    @Param({"10", "1000", "100000"})
+    private int rowCount;
+
+    private FakeResultSet wineRows;
+    private FakeResultSet assortmentRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BottleSize[] sizes = BottleSize.values();
+        Color[] colors = Color.values();
+        Object[][] wines = new Object[rowCount][];
+        Object[][] joined = new Object[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            // The wines of an assortment share its year.
+            int year = 1980 + i / WINES_PER_ASSORTMENT % 40;
+            Object[] wine = {i + 1, "Benchmark wine " + i, year, sizes[i % sizes.length].getVolume(),
+                    colors[i % colors.length].name(), 5 + (i % 500) * 0.25, i % 3 == 0 ? "Notes" : null, 0};
+            wines[i] = wine;
+            Object[] row = new Object[ASSORTMENT_COLUMNS.length];
+            row[0] = i / WINES_PER_ASSORTMENT + 1;
+            row[1] = year;
+            System.arraycopy(wine, 0, row, 2, wine.length);
+            joined[i] = row;
+        }
+        wineRows = new FakeResultSet(WINE_COLUMNS, wines);
+        assortmentRows = new FakeResultSet(ASSORTMENT_COLUMNS, joined);
+    }
+
+    @Benchmark
+    public void mapWines(Blackhole blackhole) throws SQLException {
+        ResultSet resultSet = wineRows.rewind();
+        WineRowMapper mapper = new WineRowMapper(resultSet);
+        while (resultSet.next()) {
+            blackhole.consume(mapper.map(resultSet));
+        }
+    }
+
+    @Benchmark
+    public void legacyMapWines(Blackhole blackhole) throws SQLException, InvalidBottleVolumeException {
+        ResultSet resultSet = wineRows.rewind();
+        while (resultSet.next()) {
+            blackhole.consume(Wine.builder().id(resultSet.getInt("wno"))
+                    .name(resultSet.getString("name"))
+                    .year(Year.of(resultSet.getInt("year")))
+                    .volume(BottleSize.doubleToBottleSize(resultSet.getDouble("volume")))
+                    .color(Color.valueOf(resultSet.getString("color")))
+                    .price(resultSet.getDouble("price"))
+                    .comment(resultSet.getString("comment"))
+                    .version(resultSet.getInt("version")).build());
+        }
+    }
+
+    @Benchmark
+    public Object groupAssortments() throws SQLException {
+        return PostgreSQLManager.groupAssortments(assortmentRows.rewind());
+    }
+}
@@ -0,0 +1,128 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the COPY-based bulk import and export of {@link PostgreSQLManager}
+ * against the batched INSERT path.
+ * <p>
+ * The {@code rows} counter is reported in rows per second. Imported rows are tagged by name and
+ * deleted after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WineCopyBenchmark {
+    private static final String NAME_PREFIX = "Copy benchmark ";
+
+    @Param({"10000", "100000"})
+    private int rowCount;
+
+    private PostgreSQLManager manager;
+
+    /**
+     * Counts the rows moved, reported as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        manager = BenchmarkDatabase.manager();
+        manager.setBatchSize(1000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImportedRows() throws SQLException {
+        try (Connection connection = BenchmarkDatabase.connection();
+             PreparedStatement pstmt = connection.prepareStatement("DELETE FROM public.wine WHERE name LIKE ?")) {
+            pstmt.setString(1, NAME_PREFIX + "%");
+            pstmt.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        manager.close();
+    }
+
+    @Benchmark
+    public long copyIn(Rows rows) throws SQLException {
+        long copied = manager.copyInWines(() -> generatedWines(rowCount));
+        rows.rows += copied;
+        return copied;
+    }
+
+    @Benchmark
+    public long batchedInsert(Rows rows) throws SQLException {
+        List<Wine> wines = new ArrayList<>(rowCount);
+        generatedWines(rowCount).forEachRemaining(wines::add);
+        long inserted = manager.insertWines(wines).size();
+        rows.rows += inserted;
+        return inserted;
+    }
+
+    @Benchmark
+    public long copyInThenOut(Rows rows, Blackhole blackhole) throws SQLException {
+        manager.copyInWines(() -> generatedWines(rowCount));
+        long exported = manager.copyOutWines(blackhole::consume);
+        rows.rows += exported;
+        return exported;
+    }
+
+    /**
+     * Lazily generates wines, so that the import doesn't need the whole list in memory.
+     *
+     * @param count the number of wines to generate
+     * @return an iterator over the generated wines
+     */
+    private static @NotNull Iterator<Wine> generatedWines(int count) {
+        BottleSize[] sizes = BottleSize.values();
+        Color[] colors = Color.values();
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Wine next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                int i = next++;
+                return Wine.builder().id(-1)
+                        .name(NAME_PREFIX + i)
+                        .year(Year.of(1980 + i % 40))
+                        .volume(sizes[i % sizes.length])
+                        .color(colors[i % colors.length])
+                        .price(5 + (i % 500) * 0.25)
+                        .comment(i % 3 == 0 ? "Notes\twith tab" : "").build();
+            }
+        };
+    }
+}
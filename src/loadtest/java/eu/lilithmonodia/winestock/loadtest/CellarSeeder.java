@@ -0,0 +1,154 @@
+package eu.lilithmonodia.winestock.loadtest;
+
+import eu.lilithmonodia.winestock.data.Assortment;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.database.PooledConnection;
+import eu.lilithmonodia.winestock.database.PostgreSQLManager;
+import eu.lilithmonodia.winestock.database.SchemaMigration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Fills the database with synthetic wines and assortments, through the same DAO methods as the application.
+ * <p>
+ * Wines are bulk-loaded with {@link PostgreSQLManager#copyInWines(Iterable)}; a share of the new wines is then
+ * grouped by vintage into assortments of up to {@value #ASSORTMENT_SIZE} wines with
+ * {@link PostgreSQLManager#insertAssortment(Assortment)}. Seeding only tops the table up, so that successive scales
+ * reuse the rows already loaded.
+ */
+final class CellarSeeder {
+    private static final int ASSORTMENT_SIZE = 6;
+
+    private final PostgreSQLManager manager;
+    private final SyntheticCellar cellar;
+    private final double assortedShare;
+
+    /**
+     * Constructs a new CellarSeeder.
+     *
+     * @param manager       the manager to seed through
+     * @param cellar        the generator of the wines
+     * @param assortedShare the share of the new wines to put in assortments, between 0 and 1
+     */
+    CellarSeeder(@NotNull PostgreSQLManager manager, @NotNull SyntheticCellar cellar, double assortedShare) {
+        this.manager = manager;
+        this.cellar = cellar;
+        this.assortedShare = assortedShare;
+    }
+
+    /**
+     * Creates the tables if the database is empty, then migrates them.
+     *
+     * @throws SQLException if the schema can't be created
+     */
+    void ensureSchema() throws SQLException {
+        try (PooledConnection conn = manager.connect(); Statement statement = conn.getConnection().createStatement()) {
+            try {
+                statement.execute(readSchema());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        SchemaMigration.migrate(manager);
+    }
+
+    /**
+     * Adds wines until the wine table holds at least the given number of rows.
+     *
+     * @param target the number of wines wanted
+     * @return the number of wines added
+     * @throws SQLException if the wines or assortments can't be inserted
+     */
+    long seed(int target) throws SQLException {
+        long[] countAndMax = countWines();
+        long missing = target - countAndMax[0];
+        if (missing <= 0) {
+            return 0;
+        }
+        long loaded = manager.copyInWines(() -> Stream.generate(cellar::nextWine).limit(missing).iterator());
+        assort(countAndMax[1]);
+        analyze();
+        return loaded;
+    }
+
+    /**
+     * Counts the wines and reads the highest wno.
+     *
+     * @return the number of wines and the highest wno, or 0 if the table is empty
+     * @throws SQLException if the query fails
+     */
+    long @NotNull [] countWines() throws SQLException {
+        try (PooledConnection conn = manager.connect();
+             Statement statement = conn.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*), coalesce(max(wno), 0) FROM public.wine")) {
+            resultSet.next();
+            long[] countAndMax = {resultSet.getLong(1), resultSet.getLong(2)};
+            conn.commit();
+            return countAndMax;
+        }
+    }
+
+    /**
+     * Puts a share of the wines loaded after a given wno into assortments of the same vintage.
+     *
+     * @param afterWno the highest wno before the load
+     * @throws SQLException if the wines can't be read or an assortment can't be inserted
+     */
+    private void assort(long afterWno) throws SQLException {
+        Map<Year, Assortment<Wine>> pending = new HashMap<>();
+        List<Assortment<Wine>> full = new ArrayList<>();
+        manager.copyOutWines(wine -> {
+            if (wine.getId() > afterWno && !wine.isInAssortment() && cellar.nextInt(1000) < assortedShare * 1000) {
+                Assortment<Wine> assortment = pending.computeIfAbsent(wine.getYear(), Assortment::new);
+                assortment.tryAdd(wine);
+                if (assortment.size() == ASSORTMENT_SIZE) {
+                    full.add(pending.remove(wine.getYear()));
+                }
+            }
+        });
+        full.addAll(pending.values());
+        for (Assortment<Wine> assortment : full) {
+            if (assortment.getYear() != null && manager.insertAssortment(assortment).isEmpty()) {
+                throw new SQLException("Could not insert an assortment of " + assortment.getYear());
+            }
+        }
+    }
+
+    /**
+     * Refreshes the planner statistics of the tables after a load.
+     *
+     * @throws SQLException if the statistics can't be gathered
+     */
+    private void analyze() throws SQLException {
+        try (PooledConnection conn = manager.connect(); Statement statement = conn.getConnection().createStatement()) {
+            statement.execute("ANALYZE public.wine, public.assortment");
+            conn.commit();
+        }
+    }
+
+    /**
+     * Reads the schema script from the resources.
+     *
+     * @return the SQL script
+     */
+    private static @NotNull String readSchema() {
+        try (InputStream input = Objects.requireNonNull(CellarSeeder.class.getResourceAsStream("schema.sql"),
+                "Missing resource schema.sql")) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
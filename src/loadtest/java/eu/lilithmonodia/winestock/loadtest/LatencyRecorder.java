@@ -0,0 +1,106 @@
+package eu.lilithmonodia.winestock.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies and outcomes of one kind of operation.
+ * <p>
+ * Each worker thread owns its recorders, so recording needs no synchronisation; the recorders of the threads are
+ * merged once the run is over. Every latency is kept, which makes the percentiles exact.
+ */
+final class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private long conflicts;
+    private long errors;
+
+    /**
+     * Records a completed operation.
+     *
+     * @param nanos the latency of the operation
+     */
+    void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    /**
+     * Records an operation that lost a compare-and-set race against another writer.
+     *
+     * @param nanos the latency of the operation
+     */
+    void recordConflict(long nanos) {
+        record(nanos);
+        conflicts++;
+    }
+
+    /**
+     * Records an operation that failed.
+     */
+    void recordError() {
+        errors++;
+    }
+
+    /**
+     * Adds the recordings of another recorder to this one.
+     *
+     * @param other the recorder to merge
+     */
+    void merge(@NotNull LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        conflicts += other.conflicts;
+        errors += other.errors;
+    }
+
+    /**
+     * Gets the number of completed operations, conflicts included.
+     *
+     * @return the number of operations
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of operations that lost a compare-and-set race.
+     *
+     * @return the number of conflicts
+     */
+    long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the number of failed operations.
+     *
+     * @return the number of errors
+     */
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Computes latency percentiles with the nearest-rank method.
+     *
+     * @param percentiles the percentiles to compute, between 0 and 100
+     * @return the latency at each percentile in nanoseconds, or zeros if nothing was recorded
+     */
+    long @NotNull [] percentiles(double @NotNull ... percentiles) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long[] values = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length && count > 0; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * count);
+            values[i] = sorted[Math.max(0, Math.min(count, rank) - 1)];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,151 @@
+package eu.lilithmonodia.winestock.loadtest;
+
+import eu.lilithmonodia.winestock.database.PoolConfiguration;
+import eu.lilithmonodia.winestock.database.PostgreSQLManager;
+import eu.lilithmonodia.winestock.loadtest.Workload.Operation;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Load test of the WineStock database layer against a local PostgreSQL.
+ * <p>
+ * For each requested scale, the wine table is topped up with synthetic data, then a mixed workload of reads,
+ * inserts, updates and assortment changes runs on several threads through {@link PostgreSQLManager}. The latency
+ * percentiles and throughput of each operation are printed once the run is over.
+ * <p>
+ * The connection settings come from the {@code winestock.jdbc.url}, {@code winestock.jdbc.user} and
+ * {@code winestock.jdbc.password} system properties, as for the benchmarks. The options are:
+ * <ul>
+ *     <li>{@code --wines 10000,100000,1000000}: the scales to run, in number of wines</li>
+ *     <li>{@code --threads 8}: the number of worker threads</li>
+ *     <li>{@code --pool 8}: the maximum size of the connection pool</li>
+ *     <li>{@code --warmup 10}: the warm-up time of each scale, in seconds</li>
+ *     <li>{@code --duration 30}: the recorded time of each scale, in seconds</li>
+ *     <li>{@code --mix page=30,read=30,assortments=10,insert=10,update=10,move=10}: the weight of each operation</li>
+ *     <li>{@code --assorted 0.25}: the share of the seeded wines put in assortments</li>
+ *     <li>{@code --seed 42}: the seed of the synthetic data and of the operation draws</li>
+ * </ul>
+ * The test never deletes rows: use a dedicated database.
+ */
+public final class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "wines", "10000,100000,1000000",
+            "threads", "8",
+            "pool", "8",
+            "warmup", "10",
+            "duration", "30",
+            "mix", "page=30,read=30,assortments=10,insert=10,update=10,move=10",
+            "assorted", "0.25",
+            "seed", "42");
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+
+    private LoadTest() {
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the options, as {@code --name value} pairs
+     * @throws SQLException         if the database can't be reached or seeded
+     * @throws InterruptedException if interrupted while the workload runs
+     */
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        int threads = Integer.parseInt(options.get("threads"));
+        PoolConfiguration defaults = PoolConfiguration.defaults();
+        PoolConfiguration poolConfiguration = new PoolConfiguration(defaults.minSize(),
+                Integer.parseInt(options.get("pool")), defaults.idleTimeout(), defaults.borrowTimeout(),
+                defaults.leakDetectionThreshold(), defaults.validationTimeout(), defaults.statementCacheSize());
+        SyntheticCellar cellar = new SyntheticCellar(Long.parseLong(options.get("seed")));
+
+        PostgreSQLManager manager = new PostgreSQLManager(
+                System.getProperty("winestock.jdbc.url", "jdbc:postgresql://localhost:5432/winestock"),
+                System.getProperty("winestock.jdbc.user", "postgres"),
+                System.getProperty("winestock.jdbc.password", "postgres"),
+                poolConfiguration);
+        try {
+            CellarSeeder seeder = new CellarSeeder(manager, cellar, Double.parseDouble(options.get("assorted")));
+            seeder.ensureSchema();
+            Workload workload = new Workload(manager, parseMix(options.get("mix")));
+            for (String scale : options.get("wines").split(",")) {
+                int wines = Integer.parseInt(scale.trim());
+                long seedStart = System.nanoTime();
+                long seeded = seeder.seed(wines);
+                System.out.printf("%nScale %,d wines: seeded %,d wines in %.1f s, %,d wines in the table%n",
+                        wines, seeded, (System.nanoTime() - seedStart) / 1e9, seeder.countWines()[0]);
+                Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+                EnumMap<Operation, LatencyRecorder> results = workload.run(threads,
+                        Duration.ofSeconds(Long.parseLong(options.get("warmup"))), duration, cellar);
+                report(results, duration);
+            }
+            System.out.printf("%nStatement cache: %,d hits, %,d misses%n",
+                    manager.getStatementCacheHits(), manager.getStatementCacheMisses());
+        } finally {
+            manager.close();
+        }
+    }
+
+    /**
+     * Prints the latency percentiles and throughput of each operation.
+     *
+     * @param results  the recorder of each operation
+     * @param duration the recorded time
+     */
+    private static void report(@NotNull EnumMap<Operation, LatencyRecorder> results, @NotNull Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%-12s %10s %10s %9s %9s %9s %9s %9s %9s %8s%n", "operation", "ops", "ops/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "conflicts", "errors");
+        long total = 0;
+        for (Map.Entry<Operation, LatencyRecorder> entry : results.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            long[] latencies = recorder.percentiles(PERCENTILES);
+            System.out.printf("%-12s %,10d %,10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %,9d %,8d%n",
+                    entry.getKey().name().toLowerCase(Locale.ROOT), recorder.getCount(), recorder.getCount() / seconds,
+                    latencies[0] / 1e6, latencies[1] / 1e6, latencies[2] / 1e6, latencies[3] / 1e6, latencies[4] / 1e6,
+                    recorder.getConflicts(), recorder.getErrors());
+            total += recorder.getCount();
+        }
+        System.out.printf("%-12s %,10d %,10.1f%n", "total", total, total / seconds);
+    }
+
+    /**
+     * Parses the command line options over the defaults.
+     *
+     * @param args the command line arguments
+     * @return the value of each option
+     */
+    private static @NotNull Map<String, String> parseOptions(String @NotNull [] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i].startsWith("--") ? args[i].substring(2) : "";
+            if (!DEFAULTS.containsKey(name) || i + 1 == args.length) {
+                throw new IllegalArgumentException("Invalid option: " + args[i] + ", expected one of "
+                        + new TreeSet<>(DEFAULTS.keySet()) + " followed by a value");
+            }
+            options.put(name, args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Parses an operation mix of the form {@code page=30,read=30,...}.
+     *
+     * @param mix the operation mix
+     * @return the weight of each operation
+     */
+    private static @NotNull EnumMap<Operation, Integer> parseMix(@NotNull String mix) {
+        EnumMap<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] nameWeight = entry.split("=");
+            if (nameWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid operation weight: " + entry);
+            }
+            weights.put(Operation.valueOf(nameWeight[0].trim().toUpperCase(Locale.ROOT)),
+                    Integer.parseInt(nameWeight[1].trim()));
+        }
+        return weights;
+    }
+}
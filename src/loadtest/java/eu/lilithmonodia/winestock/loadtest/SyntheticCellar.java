@@ -0,0 +1,148 @@
+package eu.lilithmonodia.winestock.loadtest;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Year;
+import java.util.SplittableRandom;
+
+/**
+ * Generates wines whose values follow the shape of a real cellar.
+ * <p>
+ * Vintages lean towards recent years, three bottles out of four are standard bottles, red wines dominate,
+ * prices follow a log-normal distribution around twenty euros and a third of the wines carry a comment.
+ * The generator is deterministic for a given seed.
+ */
+final class SyntheticCellar {
+    private static final String[] ESTATES = {"Château", "Domaine", "Clos", "Mas", "Cave", "Maison"};
+    private static final String[] PLACES = {"Margaux", "Pauillac", "Chablis", "Meursault", "Sancerre", "Gigondas",
+            "Cahors", "Bandol", "Vouvray", "Pommard", "Tavel", "Madiran", "Saumur", "Irancy", "Cornas", "Fleurie"};
+    private static final String[] COMMENTS = {"À boire", "À garder", "Cadeau", "Ouvrir deux heures avant",
+            "Parfait avec du fromage", "Étiquette abîmée", "Acheté à la propriété", "Grand millésime"};
+    private static final BottleSize[] SIZES = BottleSize.values();
+    private static final double[] SIZE_WEIGHTS = weights(SIZES.length, BottleSize.BOUTEILLE.ordinal(), 0.75,
+            BottleSize.MAGNUM.ordinal(), 0.1, BottleSize.FILLETTE.ordinal(), 0.08);
+    private static final Color[] COLORS = Color.values();
+    private static final double[] COLOR_WEIGHTS = {0.55, 0.25, 0.12, 0.08};
+    private static final int OLDEST_YEAR = 1950;
+
+    private final SplittableRandom random;
+    private final int currentYear = Year.now().getValue();
+
+    /**
+     * Constructs a new SyntheticCellar.
+     *
+     * @param seed the seed of the generator
+     */
+    SyntheticCellar(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Constructs a generator for another thread, independent of this one.
+     *
+     * @return a new SyntheticCellar
+     */
+    @NotNull SyntheticCellar split() {
+        return new SyntheticCellar(random.nextLong());
+    }
+
+    /**
+     * Generates a wine that doesn't belong to an assortment yet.
+     *
+     * @return the new wine, with an ID of -1
+     */
+    @NotNull Wine nextWine() {
+        String name = ESTATES[random.nextInt(ESTATES.length)] + " " + PLACES[random.nextInt(PLACES.length)]
+                + " " + (1 + random.nextInt(999));
+        return Wine.builder().id(-1)
+                .name(name)
+                .year(Year.of(nextYear()))
+                .volume(SIZES[pick(SIZE_WEIGHTS)])
+                .color(COLORS[pick(COLOR_WEIGHTS)])
+                .price(nextPrice())
+                .comment(random.nextInt(3) == 0 ? COMMENTS[random.nextInt(COMMENTS.length)] : null)
+                .inAssortment(false).build();
+    }
+
+    /**
+     * Draws a vintage: the older the year, the rarer the wine.
+     *
+     * @return a year between 1950 and the current year
+     */
+    int nextYear() {
+        double recent = Math.min(random.nextDouble(), random.nextDouble());
+        return currentYear - (int) (recent * (currentYear - OLDEST_YEAR));
+    }
+
+    /**
+     * Draws a price from a log-normal distribution with a median of twenty euros, rounded to the cent.
+     *
+     * @return a price between 3 and 5000 euros
+     */
+    double nextPrice() {
+        double price = Math.exp(Math.log(20) + 0.9 * nextGaussian());
+        return Math.round(Math.max(3, Math.min(5000, price)) * 100) / 100.0;
+    }
+
+    /**
+     * Draws an integer in a range.
+     *
+     * @param bound the exclusive upper bound
+     * @return an integer between 0 and {@code bound - 1}
+     */
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Draws a standard normal value with the Box-Muller transform.
+     *
+     * @return a normally distributed value with a mean of 0 and a standard deviation of 1
+     */
+    private double nextGaussian() {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /**
+     * Draws an index according to weights summing to 1.
+     *
+     * @param weights the weight of each index
+     * @return the drawn index
+     */
+    private int pick(double @NotNull [] weights) {
+        double draw = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Builds weights where a few indexes take fixed shares and the others share the remainder evenly.
+     *
+     * @param length        the number of indexes
+     * @param indexesShares pairs of an index and its share
+     * @return the weights, summing to 1
+     */
+    private static double @NotNull [] weights(int length, double @NotNull ... indexesShares) {
+        double[] weights = new double[length];
+        double remainder = 1;
+        for (int i = 0; i < indexesShares.length; i += 2) {
+            weights[(int) indexesShares[i]] = indexesShares[i + 1];
+            remainder -= indexesShares[i + 1];
+        }
+        int others = length - indexesShares.length / 2;
+        for (int i = 0; i < length; i++) {
+            if (weights[i] == 0) {
+                weights[i] = remainder / others;
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,272 @@
+package eu.lilithmonodia.winestock.loadtest;
+
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.database.PooledConnection;
+import eu.lilithmonodia.winestock.database.PostgreSQLManager;
+import eu.lilithmonodia.winestock.database.UpdateOutcome;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives a mix of concurrent operations against the database through the DAO methods of {@link PostgreSQLManager}.
+ * <p>
+ * Each worker thread draws operations according to the weights of the {@link Operation mix} and records their
+ * latencies. Nothing is recorded during the warm-up, which lets the pool, the statement caches and the database
+ * buffers settle first.
+ */
+final class Workload {
+    private static final int PAGE_SIZE = 50;
+    private static final int ASSORTMENT_PAGE_SIZE = 20;
+
+    /**
+     * The operations of the workload.
+     */
+    enum Operation {
+        /**
+         * Reads a page of wines after a random wno, as the paged wine table does.
+         */
+        PAGE,
+        /**
+         * Reads a single wine by wno.
+         */
+        READ,
+        /**
+         * Reads a page of assortments with their wines after a random ano.
+         */
+        ASSORTMENTS,
+        /**
+         * Inserts a new wine.
+         */
+        INSERT,
+        /**
+         * Reads a wine and changes its price with a compare-and-set update.
+         */
+        UPDATE,
+        /**
+         * Reads a wine and moves it into an assortment of its vintage, or out of its assortment.
+         */
+        MOVE
+    }
+
+    private final PostgreSQLManager manager;
+    private final EnumMap<Operation, Integer> mix;
+    private final int totalWeight;
+    private final AtomicInteger maxWno = new AtomicInteger();
+    private int maxAno;
+    private Map<Integer, int[]> assortmentsByYear = Map.of();
+
+    /**
+     * Constructs a new Workload.
+     *
+     * @param manager the manager to run the operations through
+     * @param mix     the weight of each operation; missing operations aren't run
+     */
+    Workload(@NotNull PostgreSQLManager manager, @NotNull EnumMap<Operation, Integer> mix) {
+        this.manager = manager;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The operation mix must have a positive weight");
+        }
+    }
+
+    /**
+     * Runs the workload.
+     *
+     * @param threads  the number of worker threads
+     * @param warmUp   the time to run before recording
+     * @param duration the time to record
+     * @param cellar   the generator of the inserted wines and prices, split between the threads
+     * @return the merged recorder of each operation
+     * @throws SQLException         if the key ranges can't be read
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    @NotNull EnumMap<Operation, LatencyRecorder> run(int threads, @NotNull Duration warmUp, @NotNull Duration duration,
+                                                     @NotNull SyntheticCellar cellar) throws SQLException, InterruptedException {
+        loadKeys();
+        long start = System.nanoTime();
+        long recordFrom = start + warmUp.toNanos();
+        long end = recordFrom + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<EnumMap<Operation, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            SyntheticCellar threadCellar = cellar.split();
+            futures.add(executor.submit(() -> work(threadCellar, recordFrom, end)));
+        }
+        executor.shutdown();
+        EnumMap<Operation, LatencyRecorder> merged = new EnumMap<>(Operation.class);
+        for (Operation operation : mix.keySet()) {
+            merged.put(operation, new LatencyRecorder());
+        }
+        try {
+            for (Future<EnumMap<Operation, LatencyRecorder>> future : futures) {
+                future.get().forEach((operation, recorder) -> merged.get(operation).merge(recorder));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return merged;
+    }
+
+    /**
+     * Runs operations on the calling thread until the end of the run.
+     *
+     * @param cellar     the generator of this thread
+     * @param recordFrom the time from which latencies are recorded
+     * @param end        the end of the run
+     * @return the recorder of each operation
+     */
+    private @NotNull EnumMap<Operation, LatencyRecorder> work(@NotNull SyntheticCellar cellar, long recordFrom, long end) {
+        EnumMap<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : mix.keySet()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+        long now = System.nanoTime();
+        while (now < end) {
+            Operation operation = draw(cellar);
+            boolean conflict;
+            boolean failed;
+            try {
+                conflict = execute(operation, cellar);
+                failed = false;
+            } catch (SQLException | RuntimeException e) {
+                conflict = false;
+                failed = true;
+            }
+            long finished = System.nanoTime();
+            if (now >= recordFrom) {
+                LatencyRecorder recorder = recorders.get(operation);
+                if (failed) {
+                    recorder.recordError();
+                } else if (conflict) {
+                    recorder.recordConflict(finished - now);
+                } else {
+                    recorder.record(finished - now);
+                }
+            }
+            now = finished;
+        }
+        return recorders;
+    }
+
+    /**
+     * Draws an operation according to the weights of the mix.
+     *
+     * @param cellar the generator of this thread
+     * @return the drawn operation
+     */
+    private @NotNull Operation draw(@NotNull SyntheticCellar cellar) {
+        int draw = cellar.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * Executes an operation.
+     *
+     * @param operation the operation to execute
+     * @param cellar    the generator of this thread
+     * @return true if a compare-and-set update lost against another writer
+     * @throws SQLException if the operation fails
+     */
+    private boolean execute(@NotNull Operation operation, @NotNull SyntheticCellar cellar) throws SQLException {
+        switch (operation) {
+            case PAGE -> manager.getWinesAfter(cellar.nextInt(maxWno.get()), PAGE_SIZE);
+            case READ -> manager.getWine(1 + cellar.nextInt(maxWno.get()));
+            case ASSORTMENTS -> manager.getAssortmentsAfter(cellar.nextInt(maxAno + 1), ASSORTMENT_PAGE_SIZE);
+            case INSERT -> {
+                Optional<Long> wno = manager.insertWine(cellar.nextWine());
+                if (wno.isEmpty()) {
+                    throw new SQLException("Wine insert failed");
+                }
+                maxWno.accumulateAndGet(wno.get().intValue(), Math::max);
+            }
+            case UPDATE -> {
+                Optional<Wine> wine = manager.getWine(1 + cellar.nextInt(maxWno.get()));
+                if (wine.isPresent()) {
+                    wine.get().setPrice(cellar.nextPrice());
+                    return check(manager.updateWine(wine.get()));
+                }
+            }
+            case MOVE -> {
+                Optional<Wine> wine = manager.getWine(1 + cellar.nextInt(maxWno.get()));
+                if (wine.isPresent()) {
+                    return move(wine.get(), cellar);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves a wine out of its assortment, or into a random assortment of its vintage if it isn't in one.
+     *
+     * @param wine   the wine to move
+     * @param cellar the generator of this thread
+     * @return true if the compare-and-set update lost against another writer
+     * @throws SQLException if the update fails
+     */
+    private boolean move(@NotNull Wine wine, @NotNull SyntheticCellar cellar) throws SQLException {
+        if (wine.isInAssortment()) {
+            return check(manager.deleteWineInAssortment(wine));
+        }
+        int[] assortments = assortmentsByYear.get(wine.getYear().getValue());
+        if (assortments == null) {
+            return false;
+        }
+        return check(manager.insertWineInAssortment(wine, (long) assortments[cellar.nextInt(assortments.length)]));
+    }
+
+    /**
+     * Interprets the outcome of a compare-and-set update.
+     *
+     * @param outcome the outcome
+     * @return true on a conflict
+     * @throws SQLException if the update failed
+     */
+    private static boolean check(@NotNull UpdateOutcome outcome) throws SQLException {
+        if (outcome == UpdateOutcome.FAILED) {
+            throw new SQLException(outcome.getMessage());
+        }
+        return outcome == UpdateOutcome.CONFLICT;
+    }
+
+    /**
+     * Reads the range of the wine IDs and the assortments of each vintage.
+     *
+     * @throws SQLException if the queries fail
+     */
+    private void loadKeys() throws SQLException {
+        Map<Integer, List<Integer>> byYear = new HashMap<>();
+        try (PooledConnection conn = manager.connect(); Statement statement = conn.getConnection().createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("SELECT coalesce(max(wno), 0) FROM public.wine")) {
+                resultSet.next();
+                maxWno.set(Math.max(1, resultSet.getInt(1)));
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT ano, year FROM public.assortment")) {
+                while (resultSet.next()) {
+                    maxAno = Math.max(maxAno, resultSet.getInt(1));
+                    byYear.computeIfAbsent(resultSet.getInt(2), year -> new ArrayList<>()).add(resultSet.getInt(1));
+                }
+            }
+            conn.commit();
+        }
+        Map<Integer, int[]> keys = new HashMap<>();
+        byYear.forEach((year, anos) -> keys.put(year, anos.stream().mapToInt(Integer::intValue).toArray()));
+        assortmentsByYear = keys;
+    }
+}
@@ -0,0 +1,22 @@
+-- Creates the WineStock tables in an empty database, so that the load test can run against a freshly started
+-- PostgreSQL. Existing tables are left untouched.
+
+CREATE TABLE IF NOT EXISTS public.assortment
+(
+    ano  SERIAL PRIMARY KEY,
+    year INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS public.wine
+(
+    wno     SERIAL PRIMARY KEY,
+    name    TEXT             NOT NULL,
+    year    INTEGER          NOT NULL,
+    volume  DOUBLE PRECISION NOT NULL,
+    color   TEXT             NOT NULL,
+    price   NUMERIC(10, 2)   NOT NULL,
+    comment TEXT,
+    ano     INTEGER REFERENCES public.assortment (ano) ON DELETE SET NULL
+);
+
+CREATE INDEX IF NOT EXISTS wine_ano_idx ON public.wine (ano);
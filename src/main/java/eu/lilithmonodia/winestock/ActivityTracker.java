@@ -0,0 +1,119 @@
+package eu.lilithmonodia.winestock;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keeps track of the background tasks started from the UI, to show their progress and let the user cancel them.
+ * <p>
+ * Tasks that write to the database are tracked as not cancellable: cancelling one would interrupt the worker thread
+ * without stopping the statement, which may still be committed, and the result would then be lost to the UI.
+ * <p>
+ * Tasks started while others are still running form a batch: the progress is the share of the batch that has
+ * finished, and it starts over once every task of the batch is done.
+ * All methods must be called on the JavaFX Application Thread.
+ */
+final class ActivityTracker {
+    private final Set<Task<?>> running = new LinkedHashSet<>();
+    private final Set<Task<?>> cancellable = new HashSet<>();
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(0);
+    private int started;
+    private int finished;
+
+    /**
+     * Starts tracking a task that can be cancelled. The task is no longer tracked once it has succeeded, failed or
+     * been cancelled.
+     *
+     * @param task the task to track
+     */
+    void track(@NotNull Task<?> task) {
+        track(task, true);
+    }
+
+    /**
+     * Starts tracking a task. The task is no longer tracked once it has succeeded, failed or been cancelled.
+     *
+     * @param task        the task to track
+     * @param cancellable whether {@link #cancelAll()} cancels the task, or only shows its progress
+     */
+    void track(@NotNull Task<?> task, boolean cancellable) {
+        if (!running.add(task)) {
+            return;
+        }
+        if (cancellable) {
+            this.cancellable.add(task);
+        }
+        started++;
+        task.stateProperty().addListener((observable, oldState, newState) -> {
+            if (isFinished(newState) && running.remove(task)) {
+                this.cancellable.remove(task);
+                finished++;
+                update();
+            }
+        });
+        update();
+    }
+
+    /**
+     * Cancels every tracked task that can be cancelled.
+     */
+    void cancelAll() {
+        for (Task<?> task : new ArrayList<>(cancellable)) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Returns whether tasks are running.
+     *
+     * @return the property holding true while at least one task is running
+     */
+    @NotNull ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the progress of the current batch of tasks.
+     *
+     * @return the property holding the share of the current batch that has finished, between 0 and 1
+     */
+    @NotNull ReadOnlyDoubleProperty progressProperty() {
+        return progress.getReadOnlyProperty();
+    }
+
+    /**
+     * Updates the busy flag and the progress, and starts a new batch once the current one is done.
+     */
+    private void update() {
+        if (running.isEmpty()) {
+            started = 0;
+            finished = 0;
+            busy.set(false);
+            progress.set(0);
+        } else {
+            busy.set(true);
+            progress.set((double) finished / started);
+        }
+    }
+
+    /**
+     * Checks whether a task state is final.
+     *
+     * @param state the state of a task
+     * @return true if the task has succeeded, failed or been cancelled
+     */
+    private static boolean isFinished(Worker.State state) {
+        return state == Worker.State.SUCCEEDED || state == Worker.State.FAILED || state == Worker.State.CANCELLED;
+    }
+}
@@ -0,0 +1,341 @@
+package eu.lilithmonodia.winestock;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Loads the rows of a TableView page by page as the user scrolls.
+ * <p>
+ * Pages are fetched with keyset pagination: each page starts after the key of the last loaded row.
+ * The next page is requested as soon as the last visible row comes within the prefetch window of the
+ * end of the loaded rows, so the first rows appear after a single page query whatever the table size.
+ * Page queries run on the {@link TaskScheduler} of the controller; a reload supersedes the page still in flight.
+ * Each page query is reported to an {@link ActivityTracker}, which shows its progress and lets the user cancel it.
+ * <p>
+ * The loaded rows are kept in key order, which the patches below rely on. The table shows them through a
+ * {@link SortedList} following the sort order chosen by the user in the table headers, so that sorting the table
+ * never reorders the loaded rows themselves.
+ * <p>
+ * Other tables can show filtered views of the same rows, so that they share a single fetch and the same row
+ * instances; scrolling any of the tables loads more pages. Each table is sorted on its own.
+ * <p>
+ * After a change made by the application itself, or notified by the database, the loaded rows can be patched in
+ * place with {@link #insert(Object)}, {@link #update(Object)}, {@link #remove(Object)} and {@link #removeKey(int)}
+ * instead of being reloaded.
+ *
+ * @param <T> The type of the rows in the TableView.
+ */
+final class PagedTableLoader<T> {
+    /**
+     * The key passed to the page source to fetch the first page.
+     */
+    static final int BEFORE_FIRST_KEY = Integer.MIN_VALUE;
+
+    /**
+     * A source of keyset-paginated rows.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    interface PageSource<T> {
+        /**
+         * Fetches the rows following the given key, in key order.
+         *
+         * @param lastKey the key of the last loaded row, or {@link #BEFORE_FIRST_KEY}
+         * @param limit   the maximum number of rows to return
+         * @return the rows of the page
+         * @throws SQLException if the rows can't be fetched
+         */
+        List<T> fetchAfter(int lastKey, int limit) throws SQLException;
+    }
+
+    private final List<TableView<T>> tables = new ArrayList<>();
+    private final TaskScheduler scheduler;
+    private final ActivityTracker activity;
+    private final PageSource<T> source;
+    private final ToIntFunction<T> keyOf;
+    private final int pageSize;
+    private final int prefetch;
+    private final Consumer<Throwable> errorHandler;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+    private int lastKey = BEFORE_FIRST_KEY;
+    private int generation;
+    private boolean loading;
+    private boolean exhausted = true;
+
+    /**
+     * Constructs a new PagedTableLoader and binds it to the given table.
+     *
+     * @param table        the table to fill
+     * @param scheduler    the scheduler running the page queries
+     * @param activity     the tracker the page queries are reported to
+     * @param source       the source of the pages
+     * @param keyOf        the function returning the pagination key of a row
+     * @param pageSize     the number of rows fetched per page
+     * @param prefetch     how many rows before the end of the loaded rows the next page is requested
+     * @param errorHandler the handler called on the JavaFX thread when a page can't be fetched
+     */
+    PagedTableLoader(@NotNull TableView<T> table, @NotNull TaskScheduler scheduler,
+                     @NotNull ActivityTracker activity, @NotNull PageSource<T> source, @NotNull ToIntFunction<T> keyOf,
+                     int pageSize, int prefetch, @NotNull Consumer<Throwable> errorHandler) {
+        this.scheduler = scheduler;
+        this.activity = activity;
+        this.source = source;
+        this.keyOf = keyOf;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+        this.errorHandler = errorHandler;
+        bind(table, sorted(table, items));
+    }
+
+    /**
+     * Shows a filtered view of the loaded rows in another table, sorted as the user sorts that table.
+     *
+     * @param view   the table showing the view
+     * @param filter the predicate selecting the rows shown in the view
+     */
+    void addView(@NotNull TableView<T> view, @NotNull Predicate<? super T> filter) {
+        bind(view, sorted(view, new FilteredList<>(items, filter)));
+    }
+
+    /**
+     * Returns the rows loaded so far.
+     *
+     * @return the loaded rows, in key order
+     */
+    @NotNull ObservableList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Drops the loaded rows and loads the first page again. Pages still in flight are ignored.
+     */
+    void reload() {
+        generation++;
+        items.clear();
+        lastKey = BEFORE_FIRST_KEY;
+        loading = false;
+        exhausted = false;
+        loadNextPage();
+    }
+
+    /**
+     * Loads the next page if one is needed to fill the prefetch window.
+     */
+    void loadMoreIfNeeded() {
+        for (TableView<T> table : tables) {
+            if (lastVisibleIndex(table) >= table.getItems().size() - prefetch) {
+                loadNextPage();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Inserts a row at the position of its key, if its key falls within the range of the rows loaded so far.
+     * Rows past the last loaded key are left to the page query that will reach them.
+     *
+     * @param row the row to insert
+     */
+    void insert(@NotNull T row) {
+        int key = keyOf.applyAsInt(row);
+        if (key > lastKey && !exhausted) {
+            return;
+        }
+        int index = search(key);
+        if (index >= 0) {
+            items.set(index, row);
+            return;
+        }
+        items.add(-index - 1, row);
+        lastKey = Math.max(lastKey, key);
+    }
+
+    /**
+     * Redraws a row whose values have changed, or replaces the loaded row with the same key.
+     *
+     * @param row the changed row
+     */
+    void update(@NotNull T row) {
+        int index = search(keyOf.applyAsInt(row));
+        if (index >= 0) {
+            items.set(index, row);
+            // The row may be the very instance already shown, which the cells wouldn't redraw on their own.
+            tables.forEach(TableView::refresh);
+        }
+    }
+
+    /**
+     * Removes the loaded row with the same key as the given row.
+     *
+     * @param row the removed row
+     */
+    void remove(@NotNull T row) {
+        removeKey(keyOf.applyAsInt(row));
+    }
+
+    /**
+     * Removes the loaded row with the given key, if any.
+     *
+     * @param key the key of the removed row
+     */
+    void removeKey(int key) {
+        int index = search(key);
+        if (index >= 0) {
+            items.remove(index);
+        }
+    }
+
+    /**
+     * Searches the loaded rows, which are kept in key order, for a key.
+     *
+     * @param key the key to look for
+     * @return the index of the row with the key if it is loaded, otherwise {@code -(insertion point) - 1}
+     */
+    private int search(int key) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleKey = keyOf.applyAsInt(items.get(middle));
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Wraps rows in a list sorted as the user sorts a table.
+     *
+     * @param table the table whose sort order the list follows
+     * @param rows  the rows to sort, in key order
+     * @return the sorted list, in key order while the table isn't sorted
+     */
+    private @NotNull SortedList<T> sorted(@NotNull TableView<T> table, @NotNull ObservableList<T> rows) {
+        SortedList<T> sortedRows = new SortedList<>(rows);
+        sortedRows.comparatorProperty().bind(table.comparatorProperty());
+        return sortedRows;
+    }
+
+    /**
+     * Fills a table with the given rows and loads more pages as the user scrolls through it.
+     *
+     * @param table the table to fill
+     * @param rows  the rows to show, backed by the loaded rows
+     */
+    private void bind(@NotNull TableView<T> table, @NotNull ObservableList<T> rows) {
+        tables.add(table);
+        table.setItems(rows);
+        table.skinProperty().addListener((observable, oldSkin, newSkin) -> Platform.runLater(() -> watchScrollBar(table)));
+        watchScrollBar(table);
+    }
+
+    /**
+     * Fetches the next page in the background and appends it to the table.
+     */
+    private void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        int after = lastKey;
+        Task<List<T>> pageTask = new Task<>() {
+            @Override
+            protected List<T> call() throws SQLException {
+                return source.fetchAfter(after, pageSize);
+            }
+        };
+        pageTask.setOnSucceeded(event -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            List<T> page = pageTask.getValue();
+            if (!page.isEmpty()) {
+                lastKey = keyOf.applyAsInt(page.get(page.size() - 1));
+                items.addAll(page);
+            }
+            if (page.size() < pageSize) {
+                exhausted = true;
+            } else {
+                // Let the table lay out the new rows before checking whether the window is filled.
+                Platform.runLater(this::loadMoreIfNeeded);
+            }
+        });
+        pageTask.setOnFailed(event -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            errorHandler.accept(pageTask.getException());
+        });
+        pageTask.setOnCancelled(event -> {
+            if (requestGeneration == generation) {
+                // Cancelled by the user: the page will be requested again on the next scroll or refresh.
+                loading = false;
+            }
+        });
+        activity.track(pageTask);
+        try {
+            scheduler.submitLatest(this, pageTask);
+        } catch (RejectedExecutionException e) {
+            pageTask.cancel();
+            loading = false;
+            errorHandler.accept(e);
+        }
+    }
+
+    /**
+     * Returns the index of the last row visible in a table.
+     *
+     * @param table the table
+     * @return the index of the last visible row, or 0 if the table hasn't been laid out yet
+     */
+    private int lastVisibleIndex(@NotNull TableView<T> table) {
+        if (table.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+            IndexedCell<?> lastCell = flow.getLastVisibleCell();
+            if (lastCell != null) {
+                return lastCell.getIndex();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Listens to the vertical scroll bar of a table to load pages as the user scrolls.
+     *
+     * @param table the table
+     */
+    private void watchScrollBar(@NotNull TableView<T> table) {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> loadMoreIfNeeded());
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package eu.lilithmonodia.winestock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the background tasks of the controller on a bounded pool of worker threads.
+ * <p>
+ * Tasks wait in a bounded queue, so bursts of clicks can't create an unbounded number of threads.
+ * Tasks submitted under a key are coalesced: submitting a task cancels the previous task with the same key,
+ * whether it is still queued or already running, so only the latest one delivers its result.
+ * The scheduler keeps track of its queue depth and of the latency of the tasks it runs, from submission to
+ * completion.
+ */
+final class TaskScheduler implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(TaskScheduler.class);
+    private final ThreadPoolExecutor executor;
+    private final Map<Object, Future<?>> latestByKey = new ConcurrentHashMap<>();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong lastLatencyNanos = new AtomicLong();
+
+    /**
+     * Constructs a new TaskScheduler.
+     *
+     * @param workers       the number of worker threads
+     * @param queueCapacity the number of tasks that may wait for a worker
+     */
+    TaskScheduler(int workers, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "winestock-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a task for execution.
+     *
+     * @param task the task to run, typically a JavaFX {@code Task}
+     * @param <F>  the type of the task
+     * @return the task, to allow it to be cancelled
+     * @throws RejectedExecutionException if the queue is full or the scheduler is closed
+     */
+    <F extends RunnableFuture<?>> @NotNull F submit(@NotNull F task) {
+        executor.execute(new TimedTask(task));
+        return task;
+    }
+
+    /**
+     * Queues a task for execution, cancelling the previous task submitted under the same key.
+     *
+     * @param key  the key under which tasks are coalesced
+     * @param task the task to run, typically a JavaFX {@code Task}
+     * @param <F>  the type of the task
+     * @return the task, to allow it to be cancelled
+     * @throws RejectedExecutionException if the queue is full or the scheduler is closed
+     */
+    <F extends RunnableFuture<?>> @NotNull F submitLatest(@NotNull Object key, @NotNull F task) {
+        Future<?> previous = latestByKey.put(key, task);
+        if (previous != null && previous.cancel(true)) {
+            LOGGER.debug("Cancelled superseded task for {}", key);
+        }
+        // Drop cancelled tasks from the queue right away so they don't count towards its capacity.
+        executor.purge();
+        submit(task);
+        return task;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a worker.
+     *
+     * @return the queue depth
+     */
+    int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of tasks currently running.
+     *
+     * @return the number of busy workers
+     */
+    int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of tasks that have finished, whether they succeeded, failed or were cancelled.
+     *
+     * @return the number of completed tasks
+     */
+    long getCompletedCount() {
+        return completedTasks.sum();
+    }
+
+    /**
+     * Returns the average time between the submission and the completion of a task.
+     *
+     * @return the average task latency in milliseconds, or 0 if no task has completed yet
+     */
+    double getAverageLatencyMillis() {
+        long completed = completedTasks.sum();
+        return completed == 0 ? 0 : totalLatencyNanos.sum() / (completed * 1_000_000.0);
+    }
+
+    /**
+     * Returns the longest time between the submission and the completion of a task.
+     *
+     * @return the maximum task latency in milliseconds
+     */
+    double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Returns the time between the submission and the completion of the last task to complete.
+     *
+     * @return the latest task latency in milliseconds
+     */
+    double getLastLatencyMillis() {
+        return lastLatencyNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Stops the workers. Queued tasks are dropped and running tasks are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Records the latency of a completed task.
+     *
+     * @param latencyNanos the time between the submission and the completion of the task
+     */
+    private void recordLatency(long latencyNanos) {
+        totalLatencyNanos.add(latencyNanos);
+        lastLatencyNanos.set(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        completedTasks.increment();
+        LOGGER.debug("Task completed in {} ms, {} queued", latencyNanos / 1_000_000, getQueueDepth());
+    }
+
+    /**
+     * Runs a task and records its latency.
+     * <p>
+     * It exposes the cancellation state of the task, so that the executor can purge cancelled tasks from its queue.
+     */
+    private final class TimedTask implements Runnable, Future<Object> {
+        private final RunnableFuture<?> task;
+        private final long submittedAt = System.nanoTime();
+
+        /**
+         * Constructs a new TimedTask.
+         *
+         * @param task the task to run
+         */
+        TimedTask(@NotNull RunnableFuture<?> task) {
+            this.task = task;
+        }
+
+        /**
+         * Runs the task, unless it has been cancelled, and records its latency.
+         */
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                latestByKey.values().remove(task);
+                recordLatency(System.nanoTime() - submittedAt);
+            }
+        }
+
+        /**
+         * Cancels the task.
+         *
+         * @param mayInterruptIfRunning whether the thread running the task should be interrupted
+         * @return true if the task was cancelled
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return task.cancel(mayInterruptIfRunning);
+        }
+
+        /**
+         * Checks whether the task was cancelled.
+         *
+         * @return true if the task was cancelled
+         */
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        /**
+         * Checks whether the task is done.
+         *
+         * @return true if the task completed, failed or was cancelled
+         */
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        /**
+         * Waits for the result of the task.
+         *
+         * @return the result of the task
+         * @throws InterruptedException if the thread is interrupted while waiting
+         * @throws ExecutionException   if the task failed
+         */
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return task.get();
+        }
+
+        /**
+         * Waits for the result of the task, at most for the given time.
+         *
+         * @param timeout the maximum time to wait
+         * @param unit    the unit of the timeout
+         * @return the result of the task
+         * @throws InterruptedException if the thread is interrupted while waiting
+         * @throws ExecutionException   if the task failed
+         * @throws TimeoutException     if the task didn't complete in time
+         */
+        @Override
+        public Object get(long timeout, @NotNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return task.get(timeout, unit);
+        }
+    }
+}
@@ -8,10 +8,16 @@ import atlantafx.base.theme.Styles;
 import eu.lilithmonodia.winestock.data.Assortment;
 import eu.lilithmonodia.winestock.data.BottleSize;
 import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Money;
 import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.database.ChangeEvent;
 import eu.lilithmonodia.winestock.database.PostgreSQLManager;
+import eu.lilithmonodia.winestock.database.UpdateOutcome;
+import eu.lilithmonodia.winestock.database.WineCatalog;
+import eu.lilithmonodia.winestock.database.WineQuery;
 import eu.lilithmonodia.winestock.exceptions.Errors;
 import eu.lilithmonodia.winestock.exceptions.InvalidYearException;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -28,13 +34,13 @@ import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Year;
 import java.time.chrono.IsoChronology;
 import java.time.format.DateTimeParseException;
@@ -42,6 +48,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * WineStockController class controls the Wine Stock application's UI.
@@ -50,14 +61,31 @@ import java.util.Optional;
  */
 public class WineStockController {
     private static final Logger LOGGER = LogManager.getLogger(WineStockController.class);
+    private static final int PAGE_SIZE = 200;
+    private static final int PREFETCH_ROWS = 50;
+    private static final int WORKER_THREADS = 4;
+    private static final int TASK_QUEUE_CAPACITY = 64;
+    private static final String LOGIN_TASK = "login";
+    private static final Duration CATALOG_MAX_AGE = Duration.ofMinutes(5);
+    private static final javafx.util.Duration SEARCH_DELAY = javafx.util.Duration.millis(300);
+    private static final WineQuery UNASSORTED_WINES = WineQuery.builder().inAssortment(false).build();
     // Manager for PostgreSQL Database
 
     @Setter
     @FXML
     private TabPane rootPane;
     private PostgreSQLManager postgreSQLManager;
+    private WineCatalog catalog;
+    private final TaskScheduler taskScheduler = new TaskScheduler(WORKER_THREADS, TASK_QUEUE_CAPACITY);
+    private final ActivityTracker activity = new ActivityTracker();
     private Wine currentlySelectedWine;
     private Assortment<Wine> currentlySelectedAssortment;
+    private PagedTableLoader<Wine> wineTableLoader;
+    private PagedTableLoader<Assortment<Wine>> assortmentsTableLoader;
+    // The search shown by the wine tables, read by their page queries on the worker threads.
+    private volatile WineQuery wineQuery = UNASSORTED_WINES;
+    private volatile String wineSearchText = "";
+    private final PauseTransition wineSearchDelay = new PauseTransition(SEARCH_DELAY);
 
     // FXML Tab variables for wines and assortments.
     @FXML
@@ -74,11 +102,13 @@ public class WineStockController {
     private TableView<Assortment<Wine>> assortmentsTable;
     @FXML
     private TableView<Wine> wineTable;
+    @FXML
+    private TextField wineSearchField;
 
     @FXML
     private TableColumn<Assortment<Wine>, Integer> assortmentID;
     @FXML
-    private TableColumn<Assortment<Wine>, Double> assortmentTotalPrice;
+    private TableColumn<Assortment<Wine>, Long> assortmentTotalPrice;
     @FXML
     private TableColumn<Assortment<Wine>, Year> assortmentYear;
     @FXML
@@ -95,7 +125,7 @@ public class WineStockController {
     @FXML
     private TableColumn<Wine, Color> wineTableColor;
     @FXML
-    private TableColumn<Wine, Double> wineTablePrice;
+    private TableColumn<Wine, Long> wineTablePrice;
     @FXML
     private TableColumn<Wine, String> wineTableComment;
 
@@ -145,7 +175,7 @@ public class WineStockController {
     @FXML
     private TableColumn<Wine, Color> assortmentWinesTableColor;
     @FXML
-    private TableColumn<Wine, Double> assortmentWinesTablePrice;
+    private TableColumn<Wine, Long> assortmentWinesTablePrice;
     @FXML
     private TableColumn<Wine, String> assortmentWinesTableComment;
     @FXML
@@ -159,23 +189,247 @@ public class WineStockController {
     @FXML
     private TableColumn<Wine, Color> notAssortmentWinesTableColor;
     @FXML
-    private TableColumn<Wine, Double> notAssortmentWinesTablePrice;
+    private TableColumn<Wine, Long> notAssortmentWinesTablePrice;
     @FXML
     private TableColumn<Wine, String> notAssortmentWinesTableComment;
     @FXML
     private Button loginButton;
 
+    // FXML variables for the progress and cancellation of background tasks.
+    @FXML
+    private ProgressBar wineProgressBar;
+    @FXML
+    private Button wineCancelButton;
+    @FXML
+    private ProgressBar assortmentProgressBar;
+    @FXML
+    private Button assortmentCancelButton;
+
     /**
-     * Initialises the controller, setting the icon image and disabling the import button.
+     * Initialises the controller, setting the icon image, disabling the import button,
+     * binding the paged loaders to the wine and assortment tables
+     * and binding the progress bars and cancel buttons to the background tasks.
      */
     @FXML
     public void initialize() {
         icon.setImage(new Image(Objects.requireNonNull(getClass().getResourceAsStream("icon.png"))));
         importButton.setDisable(true);
         initializeComboBoxes();
+        initializeTableLoaders();
+        initializeWineSearch();
+        bindActivityIndicators(wineProgressBar, wineCancelButton);
+        bindActivityIndicators(assortmentProgressBar, assortmentCancelButton);
         assortmentYearTextField.setText(String.valueOf(Year.now().getValue()));
     }
 
+    /**
+     * Shows a progress bar and a cancel button only while background tasks are running.
+     *
+     * @param progressBar  the progress bar showing the progress of the running tasks
+     * @param cancelButton the button cancelling the running tasks
+     */
+    private void bindActivityIndicators(@NotNull ProgressBar progressBar, @NotNull Button cancelButton) {
+        progressBar.progressProperty().bind(activity.progressProperty());
+        progressBar.visibleProperty().bind(activity.busyProperty());
+        progressBar.managedProperty().bind(activity.busyProperty());
+        cancelButton.visibleProperty().bind(activity.busyProperty());
+        cancelButton.managedProperty().bind(activity.busyProperty());
+    }
+
+    /**
+     * Cancels every running background task.
+     */
+    @FXML
+    public void cancelBackgroundTasks() {
+        LOGGER.info("Background tasks cancelled by the user.");
+        activity.cancelAll();
+    }
+
+    /**
+     * Runs a database read on a worker thread and handles its result on the JavaFX Application Thread.
+     * <p>
+     * The read is shown in the progress bars and can be cancelled. Its result is published to the UI in a
+     * single hop back to the JavaFX Application Thread. If it fails, an error dialogue is shown.
+     *
+     * @param operation the database read, run on a worker thread
+     * @param onSuccess the handler of the result, run on the JavaFX Application Thread
+     * @param title     the title of the error dialogue shown if the operation fails
+     * @param message   the message of the error dialogue shown if the operation fails
+     * @param <T>       the type of the result of the operation
+     */
+    private <T> void runInBackground(@NotNull Callable<T> operation, @NotNull Consumer<T> onSuccess,
+                                     @NotNull Errors title, @NotNull Errors message) {
+        runInBackground(operation, onSuccess, title, message, true);
+    }
+
+    /**
+     * Runs a database write on a worker thread and handles its result on the JavaFX Application Thread.
+     * <p>
+     * The write is shown in the progress bars but can't be cancelled: cancelling wouldn't stop the statement, which
+     * could still be committed while its result, and the update of the tables, would be dropped.
+     *
+     * @param operation the database write, run on a worker thread
+     * @param onSuccess the handler of the result, run on the JavaFX Application Thread
+     * @param title     the title of the error dialogue shown if the operation fails
+     * @param message   the message of the error dialogue shown if the operation fails
+     * @param <T>       the type of the result of the operation
+     */
+    private <T> void runWriteInBackground(@NotNull Callable<T> operation, @NotNull Consumer<T> onSuccess,
+                                          @NotNull Errors title, @NotNull Errors message) {
+        runInBackground(operation, onSuccess, title, message, false);
+    }
+
+    /**
+     * Runs a database operation on a worker thread and handles its result on the JavaFX Application Thread.
+     *
+     * @param operation   the database operation, run on a worker thread
+     * @param onSuccess   the handler of the result, run on the JavaFX Application Thread
+     * @param title       the title of the error dialogue shown if the operation fails
+     * @param message     the message of the error dialogue shown if the operation fails
+     * @param cancellable whether the user can cancel the operation
+     * @param <T>         the type of the result of the operation
+     */
+    private <T> void runInBackground(@NotNull Callable<T> operation, @NotNull Consumer<T> onSuccess,
+                                     @NotNull Errors title, @NotNull Errors message, boolean cancellable) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return operation.call();
+            }
+        };
+        task.setOnSucceeded(event -> onSuccess.accept(task.getValue()));
+        task.setOnFailed(event -> handleError(title, message, toException(task.getException())));
+        activity.track(task, cancellable);
+        try {
+            taskScheduler.submit(task);
+        } catch (RejectedExecutionException e) {
+            task.cancel();
+            handleError(title, message, e);
+        }
+    }
+
+    /**
+     * Wraps a throwable in an exception if it isn't one already.
+     *
+     * @param throwable the throwable
+     * @return the throwable as an Exception
+     */
+    private static @NotNull Exception toException(Throwable throwable) {
+        return throwable instanceof Exception exception ? exception : new Exception(throwable);
+    }
+
+    /**
+     * Binds keyset-paginated loaders to the wine and assortment tables, so that their rows are
+     * fetched page by page as the user scrolls.
+     * <p>
+     * The table of wines available for assortments is a view over the rows of the wine table, so that
+     * each refresh fetches the wines once and both tables share the same Wine instances.
+     */
+    private void initializeTableLoaders() {
+        wineTableLoader = new PagedTableLoader<>(wineTable, taskScheduler, activity,
+                this::fetchWinesAfter,
+                Wine::getId, PAGE_SIZE, PREFETCH_ROWS, this::handleRefreshError);
+        wineTableLoader.addView(notAssortmentWinesTable, wine -> !wine.isInAssortment());
+        assortmentsTableLoader = new PagedTableLoader<>(assortmentsTable, taskScheduler, activity,
+                (lastAno, limit) -> catalog.getAssortmentsAfter(lastAno, limit),
+                Assortment::getId, PAGE_SIZE, PREFETCH_ROWS, this::handleRefreshError);
+    }
+
+    /**
+     * Runs the search typed in the search box at each keystroke while the catalog can answer it from memory,
+     * otherwise once the user has stopped typing for a moment, or at once when Enter is pressed.
+     */
+    private void initializeWineSearch() {
+        wineSearchDelay.setOnFinished(event -> searchWines());
+        wineSearchField.textProperty().addListener((observable, oldText, newText) -> {
+            if (catalog != null && catalog.isFresh()) {
+                wineSearchDelay.stop();
+                searchWines();
+            } else {
+                wineSearchDelay.playFromStart();
+            }
+        });
+        wineSearchField.setOnAction(event -> {
+            wineSearchDelay.stop();
+            searchWines();
+        });
+    }
+
+    /**
+     * Shows the wines matching the text of the search box in the wine tables, or every wine not in an assortment
+     * if the search box is empty.
+     * <p>
+     * The wines are filtered page by page, by the search index of the catalog while it is fresh, or by the database
+     * otherwise, so the search stays fast whatever the size of the table.
+     */
+    @FXML
+    public void searchWines() {
+        String text = wineSearchField.getText() == null ? "" : wineSearchField.getText().trim();
+        if (text.equals(wineSearchText)) {
+            return;
+        }
+        wineSearchText = text;
+        wineQuery = text.isEmpty() ? UNASSORTED_WINES
+                : WineQuery.fromSearchText(text).toBuilder().inAssortment(false).build();
+        if (catalog != null) {
+            wineTableLoader.reload();
+        }
+    }
+
+    /**
+     * Fetches a page of the wine tables, through the catalog when no search is active or when its search index can
+     * answer the search, or through a database search.
+     *
+     * @param lastWno the ID of the last loaded wine
+     * @param limit   the maximum number of wines to return
+     * @return the wines of the page, in ID order
+     * @throws SQLException if the wines can't be fetched
+     */
+    private List<Wine> fetchWinesAfter(int lastWno, int limit) throws SQLException {
+        WineQuery query = wineQuery;
+        if (query == UNASSORTED_WINES) {
+            return catalog.getWinesAfter(lastWno, limit);
+        }
+        Optional<List<Wine>> indexed = catalog.searchWinesAfter(wineSearchText, lastWno, limit);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        return catalog.findWines(query.toBuilder().afterId(lastWno).limit(limit).build());
+    }
+
+    /**
+     * Shows a wine in the wine tables if it matches the current search, or removes it from them otherwise.
+     *
+     * @param wine the wine to show
+     */
+    private void showWine(@NotNull Wine wine) {
+        if (matchesWineSearch(wine)) {
+            wineTableLoader.insert(wine);
+        } else {
+            wineTableLoader.removeKey(wine.getId());
+        }
+    }
+
+    /**
+     * Checks whether a wine belongs to the wine tables under the current search. The query of the search follows
+     * the rules of the search index, so the answer doesn't depend on whether the catalog is fresh.
+     *
+     * @param wine the wine to check
+     * @return true if the wine isn't in an assortment and matches the search
+     */
+    private boolean matchesWineSearch(@NotNull Wine wine) {
+        return wineQuery.test(wine);
+    }
+
+    /**
+     * Reports an error raised while fetching a page of a table.
+     *
+     * @param throwable the error raised by the page query
+     */
+    private void handleRefreshError(Throwable throwable) {
+        handleError(Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE, toException(throwable));
+    }
+
     private void initializeComboBoxes() {
         wineVolumeComboBox.setItems(FXCollections.observableArrayList(BottleSize.values()));
         wineVolumeComboBox.setValue(BottleSize.BOUTEILLE);
@@ -201,6 +455,7 @@ public class WineStockController {
         try {
             setCellValueFactories();
             refresh();
+            startChangeTracking();
             LOGGER.info("Database successfully imported.");
             importButton.getStyleClass().add(Styles.SUCCESS);
         } catch (Exception e) {
@@ -246,7 +501,24 @@ public class WineStockController {
         assortmentID.setCellValueFactory(new PropertyValueFactory<>("id"));
         assortmentWines.setCellValueFactory(new PropertyValueFactory<>("wineNames"));
         assortmentYear.setCellValueFactory(new PropertyValueFactory<>("year"));
-        assortmentTotalPrice.setCellValueFactory(new PropertyValueFactory<>("totalPrice"));
+        assortmentTotalPrice.setCellValueFactory(new PropertyValueFactory<>("totalPriceCents"));
+        setPriceCellFactory(assortmentTotalPrice);
+    }
+
+    /**
+     * Shows the amounts in cents of a price column with two decimals, while the column still sorts them as longs.
+     *
+     * @param column the price column
+     * @param <T>    the type of objects contained in the TableView
+     */
+    private static <T> void setPriceCellFactory(@NotNull TableColumn<T, Long> column) {
+        column.setCellFactory(tableColumn -> new TableCell<>() {
+            @Override
+            protected void updateItem(Long cents, boolean empty) {
+                super.updateItem(cents, empty);
+                setText(empty || cents == null ? null : Money.format(cents));
+            }
+        });
     }
 
     /**
@@ -257,7 +529,7 @@ public class WineStockController {
      * @param tableYear    The TableColumn representing the year column.
      * @param tableVolume  The TableColumn representing the volume column.
      * @param tableColor   The TableColumn representing the colour column.
-     * @param tablePrice   The TableColumn representing the price column.
+     * @param tablePrice   The TableColumn representing the price column, in cents.
      * @param tableComment The TableColumn representing the comment column.
      * @param <T>          The type of objects contained in the TableView.
      */
@@ -266,55 +538,37 @@ public class WineStockController {
                                            @NotNull TableColumn<T, ?> tableYear,
                                            @NotNull TableColumn<T, ?> tableVolume,
                                            @NotNull TableColumn<T, ?> tableColor,
-                                           @NotNull TableColumn<T, ?> tablePrice,
+                                           @NotNull TableColumn<T, Long> tablePrice,
                                            @NotNull TableColumn<T, ?> tableComment) {
         tableID.setCellValueFactory(new PropertyValueFactory<>("id"));
         tableName.setCellValueFactory(new PropertyValueFactory<>("name"));
         tableYear.setCellValueFactory(new PropertyValueFactory<>("year"));
         tableVolume.setCellValueFactory(new PropertyValueFactory<>("volume"));
         tableColor.setCellValueFactory(new PropertyValueFactory<>("color"));
-        tablePrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        tablePrice.setCellValueFactory(new PropertyValueFactory<>("priceCents"));
+        setPriceCellFactory(tablePrice);
         tableComment.setCellValueFactory(new PropertyValueFactory<>("comment"));
     }
 
     /**
      * Attempts to log in the user by establishing a PostgreSQL database connection.
      * On successful login, the importButton is enabled; otherwise, it gets disabled.
+     * <p>
+     * The fields are validated on the JavaFX Application Thread, and the connection pool is opened on a worker thread.
      */
     @FXML
     public void login() {
-        Task<Void> loginTask = new Task<>() {
-            /**
-             * Executes the method call.
-             * <p>
-             * This method is an overridden implementation of the call() method in the
-             * javafx.concurrent.Task class. It performs the following actions:
-             *    1. Clears previous styles of the text fields in the UI.
-             *    2. Retrieve the values from the hostField, usernameField, and passwordField.
-             *    3. Validates the fields by checking if there are any errors while logging in.
-             *    4. Attempts to establish a connection using the provided host, username, and password.
-             *
-             * @return The method doesn't return anything.
-             */
-            @Override
-            protected @Nullable Void call() {
-                List<TextField> fields = Arrays.asList(hostField, usernameField, passwordField);
-
-                Platform.runLater(() -> clearPreviousStyles(fields)); // UI update
-
-                String host = hostField.getText();
-                String username = usernameField.getText();
-                String password = passwordField.getText();
+        List<TextField> fields = Arrays.asList(hostField, usernameField, passwordField);
+        clearPreviousStyles(fields);
 
-                if (validateFields(fields, Errors.ERROR_LOGGING_IN, host, username, password))
-                    return null;
+        String host = hostField.getText();
+        String username = usernameField.getText();
+        String password = passwordField.getText();
 
-                attemptToEstablishConnection(fields, host, username, password);
-                return null;
-            }
-        };
+        if (validateFields(fields, Errors.ERROR_LOGGING_IN, host, username, password))
+            return;
 
-        new Thread(loginTask).start();
+        attemptToEstablishConnection(fields, host, username, password);
     }
 
     /**
@@ -341,9 +595,9 @@ public class WineStockController {
      * <p>
      * Retrieves the port using the getPort() method and constructs the URL for the PostgreSQL database.
      * <p>
-     * Sets the cursor to the waiting state while establishing the connection.
+     * Sets the cursor to the waiting state and opens the connection pool on a worker thread.
      * <p>
-     * If the connection is successful, call the connectToDatabaseAndReflectSuccess() method.
+     * If the connection is successful, call the reflectSuccessfulLogin() method.
      * If an SQLException occurs during the connection attempt,
      * call the handleErrorAndShow() method with the specified error message and the exception.
      * <p>
@@ -358,43 +612,130 @@ public class WineStockController {
         String url = "jdbc:postgresql://" + host + ":" + getPort() + "/winestock?sslmode=disable";
         setCursorToWait();
 
-        try {
-            connectToDatabaseAndReflectSuccess(fields, url, username, password);
-        } catch (SQLException e) {
-            handleErrorAndShow(fields, Errors.ERROR_LOGGING_IN, e);
-            importButton.setDisable(true);
-            importButton.getStyleClass().removeAll(Styles.DANGER, Styles.SUCCESS);
-            postgreSQLManager = null;
-        } finally {
+        Task<PostgreSQLManager> loginTask = new Task<>() {
+            // The manager opened by the task, until it is closed by the task or by its cancellation.
+            private final AtomicReference<PostgreSQLManager> opened = new AtomicReference<>();
+
+            /**
+             * Opens the connection pool, which establishes the first database connection,
+             * and checks that the database has been migrated.
+             *
+             * @return The new PostgreSQLManager, or null if the database must be migrated first or the login was
+             * cancelled.
+             * @throws SQLException If an error occurs while connecting to the database.
+             */
+            @Override
+            protected PostgreSQLManager call() throws SQLException {
+                PostgreSQLManager manager = new PostgreSQLManager(url, username, password);
+                opened.set(manager);
+                try {
+                    if (!manager.hasRowVersions() || isCancelled()) {
+                        closeOpened();
+                        return null;
+                    }
+                } catch (SQLException e) {
+                    closeOpened();
+                    throw e;
+                }
+                return manager;
+            }
+
+            /**
+             * Closes the manager opened by the task, whose result is dropped once it is cancelled.
+             */
+            @Override
+            protected void cancelled() {
+                setCursorToDefault();
+                try {
+                    closeOpened();
+                } catch (SQLException e) {
+                    LOGGER.warn("Failed to close the connection of a cancelled login: {}", e.getMessage());
+                }
+            }
+
+            /**
+             * Closes the manager opened by the task, if neither the task nor its cancellation has closed it yet.
+             *
+             * @throws SQLException If an error occurs while closing the manager.
+             */
+            private void closeOpened() throws SQLException {
+                PostgreSQLManager manager = opened.getAndSet(null);
+                if (manager != null) {
+                    manager.close();
+                }
+            }
+        };
+        loginTask.setOnSucceeded(event -> {
             setCursorToDefault();
+            if (loginTask.getValue() == null) {
+                handleError(Errors.ERROR_LOGGING_IN, Errors.DATABASE_NOT_MIGRATED, null);
+                reflectFailedLogin();
+                return;
+            }
+            reflectSuccessfulLogin(fields, loginTask.getValue());
+        });
+        loginTask.setOnFailed(event -> {
+            setCursorToDefault();
+            handleErrorAndShow(fields, Errors.ERROR_LOGGING_IN,
+                    loginTask.getException() instanceof SQLException e ? e : new SQLException(loginTask.getException()));
+            reflectFailedLogin();
+        });
+        activity.track(loginTask);
+        try {
+            taskScheduler.submitLatest(LOGIN_TASK, loginTask);
+        } catch (RejectedExecutionException e) {
+            loginTask.cancel();
+            handleError(Errors.ERROR_LOGGING_IN, Errors.ERROR_LOGGING_IN, e);
         }
     }
 
     /**
-     * Connects to the database using the specified URL, username, and password and reflects the success of the login.
+     * Reflects the failure of the login by disabling the import and dropping the previous PostgreSQLManager.
+     */
+    private void reflectFailedLogin() {
+        importButton.setDisable(true);
+        importButton.getStyleClass().removeAll(Styles.DANGER, Styles.SUCCESS);
+        replacePostgreSQLManager(null);
+    }
+
+    /**
+     * Reflects the success of the login with the given PostgreSQLManager.
      * <p>
-     * Creates a new instance of the PostgreSQLManager class with the specified URL, username, and password.
-     * Call the connect() method of the PostgreSQLManager instance to establish the database connection.
+     * Replaces the current PostgreSQLManager, if any, with the given one.
      * Enables the importButton.
      * Log the successful login message to the LOGGER.
      * Adds the SUCCESS style class to the loginButton.
      * Calls the setSuccessfulStyles() method to apply successful styles to the specified fields.
      *
-     * @param fields   The list of text fields to set successful styles.
-     * @param url      The URL of the database.
-     * @param username The username for the database connection.
-     * @param password The password for the database connection.
-     * @throws SQLException If an error occurs while connecting to the database.
-     */
-    private void connectToDatabaseAndReflectSuccess(List<TextField> fields, String url, String username, String password) throws SQLException {
-        postgreSQLManager = new PostgreSQLManager(url, username, password);
-        postgreSQLManager.connect();
+     * @param fields  The list of text fields to set successful styles.
+     * @param manager The PostgreSQLManager connected to the database.
+     */
+    private void reflectSuccessfulLogin(List<TextField> fields, PostgreSQLManager manager) {
+        replacePostgreSQLManager(manager);
         importButton.setDisable(false);
         LOGGER.info("Successful login. Connection established.");
         loginButton.getStyleClass().add(Styles.SUCCESS);
         setSuccessfulStyles(fields);
     }
 
+    /**
+     * Replaces the current PostgreSQLManager, closing the previous one, and puts a new, empty catalog in front of it.
+     *
+     * @param manager The new PostgreSQLManager, or null.
+     */
+    private void replacePostgreSQLManager(PostgreSQLManager manager) {
+        PostgreSQLManager previous = this.postgreSQLManager;
+        this.postgreSQLManager = manager;
+        this.catalog = manager == null ? null : new WineCatalog(manager, CATALOG_MAX_AGE);
+        if (previous != null && previous != manager) {
+            try {
+                previous.close();
+            } catch (SQLException e) {
+                handleError(Errors.ERROR_CLOSING, Errors.FAILED_TO_CLOSE_POSTGRESQL_CONNECTION, e);
+            }
+        }
+    }
+
     /**
      * Handles an error
      * and shows it by applying the danger styles to the specified fields
@@ -501,62 +842,136 @@ public class WineStockController {
     }
 
     /**
-     * Refreshes the TableView by replacing the items with data from the PostgreSQL database.
-     * If an exception occurs, a suitable error handling approach may be applied.
+     * Refreshes the TableViews by reloading their first page from the PostgreSQL database.
+     * <p>
+     * Changes made through the application patch the tables in place; a full refresh only runs on demand,
+     * or when a change found the database in an unexpected state.
+     * <p>
+     * Further pages are fetched in the background as the user scrolls through each table.
+     * Refreshes are coalesced: a refresh cancels the page queries of the previous one that are still pending.
+     * If no database connection is established, an error is shown instead.
      */
     @FXML
     public void refresh() {
-        // Creating a new Task for database refresh operation.
-        Task<Void> refreshTask = new Task<>() {
-            /**
-             * This method is an overridden implementation of the call() method from the Task class.
-             * It is used to refresh data in the UI.
-             *
-             * @return null
-             */
-            @Override
-            protected @Nullable Void call() {
+        if (postgreSQLManager == null) {
+            handleError(Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE, null);
+            return;
+        }
+        wineTableLoader.reload();
+        assortmentsTableLoader.reload();
+    }
+
+    /**
+     * Starts applying the changes made by other clients to the catalog and the tables as they are notified by the
+     * database, then populates the catalog so that later refreshes are served from memory.
+     * <p>
+     * The notification triggers are installed on a worker thread first, unless the migration installed them already;
+     * if that fails, for instance for lack of privileges, the listener still starts, and receives no change until the
+     * database is migrated.
+     * Each change is applied to the catalog on the listener thread, then to the tables on the JavaFX Application
+     * Thread. If changes may have been missed, the catalog is populated again and the tables are refreshed.
+     */
+    private void startChangeTracking() {
+        WineCatalog tracked = catalog;
+        if (tracked == null) {
+            return;
+        }
+        PostgreSQLManager manager = tracked.getManager();
+        try {
+            taskScheduler.submit(new FutureTask<Void>(() -> {
                 try {
-                    setCursorToWait();
-                    if (postgreSQLManager == null) {
-                        Platform.runLater(() -> handleError(Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE, null));
-                        return null;
+                    manager.installChangeNotifications();
+                } catch (SQLException e) {
+                    LOGGER.warn("Change notifications not installed: {}", e.getMessage());
+                }
+                manager.listenForChanges(event -> {
+                    try {
+                        tracked.apply(event);
+                    } catch (SQLException e) {
+                        LOGGER.warn("Error applying {}: {}", event, e.getMessage());
+                        tracked.invalidate();
                     }
-
+                    Platform.runLater(() -> applyChange(tracked, event));
+                }, () -> {
+                    tracked.invalidate();
+                    populateCatalog(tracked);
                     Platform.runLater(() -> {
-                        try {
-                            wineTable.setItems(FXCollections.observableArrayList(postgreSQLManager.getAllWine()));
-                            assortmentsTable.setItems(FXCollections.observableArrayList(postgreSQLManager.getAllAssortments()));
-                            notAssortmentWinesTable.setItems(FXCollections.observableArrayList(postgreSQLManager.getAllWine()));
-                        } catch (SQLException e) {
-                            Platform.runLater(() -> handleError(Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE, e));
+                        if (tracked == catalog) {
+                            refresh();
                         }
                     });
+                });
+                populateCatalog(tracked);
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Change tracking not started: {}", e.getMessage());
+        }
+    }
 
-                    // Since refresh() is a UI related operation, it must be run on a JavaFX thread.
-                    Platform.runLater(() -> {
-                        wineTable.refresh();
-                        assortmentsTable.refresh();
-                        notAssortmentWinesTable.refresh();
-                    });
+    /**
+     * Populates a catalog, logging failures: until it is populated, the catalog reads through to the database.
+     *
+     * @param tracked the catalog to populate
+     */
+    private static void populateCatalog(@NotNull WineCatalog tracked) {
+        try {
+            tracked.populate();
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.warn("Catalog not populated: {}", e.getMessage());
+        }
+    }
 
-                } catch (Exception e) {
-                    Platform.runLater(() -> handleError(Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE, e));
+    /**
+     * Applies a change notified by the database, and already applied to the catalog, to the tables.
+     * <p>
+     * Each changed row is taken from the catalog: it is inserted or replaced if it still belongs in its table,
+     * and removed otherwise. A change to a wine also updates the assortments it left and joined.
+     *
+     * @param tracked the catalog the change was applied to
+     * @param event   the change
+     */
+    private void applyChange(WineCatalog tracked, @NotNull ChangeEvent event) {
+        if (tracked != catalog) {
+            return;
+        }
+        LOGGER.debug("Applying {}", event);
+        switch (event.table()) {
+            case WINE -> {
+                tracked.peekWine(event.id()).ifPresentOrElse(this::showWine, () -> wineTableLoader.removeKey(event.id()));
+                if (event.assortmentId() != null) {
+                    applyAssortmentChange(tracked, event.assortmentId());
+                }
+                if (event.previousAssortmentId() != null && !event.previousAssortmentId().equals(event.assortmentId())) {
+                    applyAssortmentChange(tracked, event.previousAssortmentId());
                 }
-                setCursorToDefault();
-                return null;
             }
-        };
+            case ASSORTMENT -> applyAssortmentChange(tracked, event.id());
+        }
+    }
 
-        // Starting the task on a new thread.
-        new Thread(refreshTask).start();
+    /**
+     * Patches the assortment table with the cached state of an assortment.
+     *
+     * @param tracked the catalog holding the assortment
+     * @param ano     the ID of the changed assortment
+     */
+    private void applyAssortmentChange(@NotNull WineCatalog tracked, int ano) {
+        tracked.peekAssortment(ano).ifPresentOrElse(assortmentsTableLoader::insert, () -> assortmentsTableLoader.removeKey(ano));
     }
 
     /**
-     * Closes the application by closing the connection to the PostgreSQL database.
+     * Closes the application by stopping the background tasks and closing the connection to the PostgreSQL database.
      * If an exception occurs while closing the connection, a suitable error handling approach may be applied.
      */
     public void closeApplication() {
+        LOGGER.info("Background tasks: {} completed, {} queued, average latency {} ms, max latency {} ms",
+                taskScheduler.getCompletedCount(), taskScheduler.getQueueDepth(),
+                taskScheduler.getAverageLatencyMillis(), taskScheduler.getMaxLatencyMillis());
+        taskScheduler.close();
+        if (catalog != null) {
+            LOGGER.info("Catalog: {} reads served from memory, {} from the database", catalog.getHits(), catalog.getMisses());
+        }
         if (postgreSQLManager != null) {
             try {
                 this.postgreSQLManager.close();
@@ -588,9 +1003,9 @@ public class WineStockController {
      * Adds a new wine to the database.
      * <p>
      * It first constructs a Wine object using the provided inputs (name, year, volume, colour, price, and comment),
-     * then calls the insertWine method of the PostgreSQLManager class to insert the wine into the database.
+     * then calls the insertWine method of the WineCatalog on a worker thread to insert the wine into the database.
      * If the insertion is successful, it updates the currentlySelectedWine variable to the newly added wine,
-     * refreshes the wine table, and loads the selected wine.
+     * inserts it into the wine table, and loads it as the selected wine.
      * If the insertion fails,
      * it logs an error message and displays an error dialogue with the corresponding error message.
      * If an exception occurs during the process, it logs an error message with the exception stack trace and displays
@@ -598,19 +1013,26 @@ public class WineStockController {
      */
     @FXML
     public void addWine() {
+        Wine wine;
         try {
-            Wine wine = createWineFromFields();
-            if (postgreSQLManager.insertWine(wine).isEmpty()) {
+            wine = createWineFromFields();
+        } catch (IllegalArgumentException e) {
+            handleError(Errors.ERROR_ADDING_WINE, Errors.FAILED_TO_ADD_WINE_TO_THE_DATABASE, e);
+            return;
+        }
+        WineCatalog catalog = this.catalog;
+        runWriteInBackground(() -> catalog.insertWine(wine), id -> {
+            if (id.isEmpty()) {
                 handleError(Errors.ERROR_ADDING_WINE, Errors.FAILED_TO_ADD_WINE_TO_THE_DATABASE, null);
                 return;
             }
             this.currentlySelectedWine = wine;
-        } catch (SQLException | IllegalArgumentException e) {
-            handleError(Errors.ERROR_ADDING_WINE, Errors.FAILED_TO_ADD_WINE_TO_THE_DATABASE, e);
-            return;
-        }
-        refresh();
-        loadSelectedWine();
+            showWine(wine);
+            wineTable.getSelectionModel().select(wine);
+            if (wineTable.getSelectionModel().getSelectedItem() == wine) {
+                loadSelectedWine();
+            }
+        }, Errors.ERROR_ADDING_WINE, Errors.FAILED_TO_ADD_WINE_TO_THE_DATABASE);
     }
 
     /**
@@ -627,7 +1049,7 @@ public class WineStockController {
                 .year(Year.of(year))
                 .volume(wineVolumeComboBox.getValue())
                 .color(wineColorComboBox.getValue())
-                .price(Double.parseDouble(winePriceField.getText()))
+                .priceCents(Money.parse(winePriceField.getText()))
                 .comment(wineCommentField.getText())
                 .inAssortment(false).build();
     }
@@ -635,41 +1057,43 @@ public class WineStockController {
     /**
      * Deletes the currently selected wine from the database.
      * <p>
-     * It calls the deleteWine method of the PostgreSQLManager class,
+     * It calls the deleteWine method of the WineCatalog,
      * passing the currentlySelectedWine as the parameter,
-     * to delete the wine from the database.
-     * After deletion, it refreshes the wine table and sets the currentlySelectedWine
-     * to null.
+     * on a worker thread to delete the wine from the database.
+     * After deletion, it removes the wine from the wine table and sets the currentlySelectedWine
+     * to null, whether the wine was deleted now or was already gone from the database.
      * If an exception occurs during the deletion process, it logs an error message with the exception stack trace
      * and displays an error dialogue showing the error message and the exception stack trace.
      */
     @FXML
     public void deleteWine() {
-        try {
-            if (this.currentlySelectedWine == null) {
-                handleError(Errors.ERROR_DELETING_WINE, Errors.FAILED_TO_DELETE_WINE_FROM_THE_DATABASE, null);
-                return;
-            }
-            postgreSQLManager.deleteWine(this.currentlySelectedWine);
-        } catch (SQLException e) {
-            handleError(Errors.ERROR_DELETING_WINE, Errors.FAILED_TO_DELETE_WINE_FROM_THE_DATABASE, e);
+        if (this.currentlySelectedWine == null) {
+            handleError(Errors.ERROR_DELETING_WINE, Errors.FAILED_TO_DELETE_WINE_FROM_THE_DATABASE, null);
             return;
         }
-
-        refresh();
-        currentlySelectedWine = null;
-        resetWineFields();
+        WineCatalog catalog = this.catalog;
+        Wine wine = this.currentlySelectedWine;
+        runWriteInBackground(() -> catalog.deleteWine(wine), deleted -> {
+            if (!Boolean.TRUE.equals(deleted)) {
+                LOGGER.warn("Wine {} was already deleted", wine.getId());
+            }
+            wineTableLoader.remove(wine);
+            currentlySelectedWine = null;
+            resetWineFields();
+        }, Errors.ERROR_DELETING_WINE, Errors.FAILED_TO_DELETE_WINE_FROM_THE_DATABASE);
     }
 
     /**
      * Modifies the currently selected wine in the database.
      * <p>
-     * If there is a wine currently selected, it updates the wine's name, year, volume, colour, price, and comment
-     * based on the values entered in the corresponding UI fields.
-     * It then calls the updateWine method of the PostgreSQLManager class,
-     * passing the currentlySelectedWine as the parameter,
-     * to update the wine in the database.
-     * After the update, it refreshes the wine table to reflect the changes.
+     * If there is a wine currently selected, it copies the wine with the name, year, volume, colour, price, and
+     * comment entered in the corresponding UI fields, leaving the wine shared with the catalog untouched.
+     * It then calls the updateWine method of the WineCatalog,
+     * passing the copy as the parameter,
+     * on a worker thread to update the wine in the database.
+     * Once the update applied, the copy replaces the wine in the catalog and in the wine table. If the wine was
+     * changed or deleted by another user since it was loaded, the update is rejected, and only that wine is reloaded
+     * from the database.
      * If an exception occurs during the modification process, it logs an error message with the exception stack trace
      * and displays an error dialogue showing the error message and the exception stack trace.
      * <p>
@@ -683,15 +1107,77 @@ public class WineStockController {
             return;
         }
 
+        Wine wine;
         try {
-            updateSelectedWine();
-            postgreSQLManager.updateWine(this.currentlySelectedWine);
-        } catch (SQLException | InvalidYearException e) {
+            wine = editSelectedWine();
+        } catch (InvalidYearException e) {
             handleError(Errors.ERROR_MODIFYING_WINE, Errors.FAILED_TO_MODIFY_WINE_IN_THE_DATABASE, e);
             return;
         }
 
-        refresh();
+        WineCatalog catalog = this.catalog;
+        runWriteInBackground(() -> catalog.updateWine(wine), outcome -> {
+            if (outcome.isSuccess()) {
+                if (currentlySelectedWine != null && currentlySelectedWine.getId() == wine.getId()) {
+                    currentlySelectedWine = wine;
+                }
+                if (matchesWineSearch(wine)) {
+                    wineTableLoader.update(wine);
+                } else {
+                    wineTableLoader.removeKey(wine.getId());
+                }
+                return;
+            }
+            handleError(Errors.ERROR_MODIFYING_WINE, outcome == UpdateOutcome.FAILED
+                    ? Errors.FAILED_TO_MODIFY_WINE_IN_THE_DATABASE : Errors.WINE_CHANGED_BY_ANOTHER_USER, null);
+            reloadWine(catalog, wine.getId());
+        }, Errors.ERROR_MODIFYING_WINE, Errors.FAILED_TO_MODIFY_WINE_IN_THE_DATABASE);
+    }
+
+    /**
+     * Reads a wine again from the database and patches the wine tables with it, typically after a conflict.
+     * <p>
+     * If the wine is the one being edited, the edit fields are loaded with its current values.
+     *
+     * @param catalog the catalog to read the wine through
+     * @param wno     the ID of the wine
+     */
+    private void reloadWine(@NotNull WineCatalog catalog, int wno) {
+        runInBackground(() -> catalog.refreshWine(wno), current -> {
+            boolean editing = currentlySelectedWine != null && currentlySelectedWine.getId() == wno;
+            Optional<Wine> shown = current.filter(this::matchesWineSearch);
+            shown.ifPresentOrElse(wineTableLoader::insert, () -> wineTableLoader.removeKey(wno));
+            if (!editing) {
+                return;
+            }
+            if (shown.isPresent()) {
+                wineTable.getSelectionModel().select(shown.get());
+                loadSelectedWine();
+            } else {
+                currentlySelectedWine = null;
+                resetWineFields();
+            }
+        }, Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE);
+    }
+
+    /**
+     * Reads an assortment again from the database and patches the assortment table with it.
+     *
+     * @param catalog the catalog to read the assortment through
+     * @param ano     the ID of the assortment
+     */
+    private void reloadAssortment(@NotNull WineCatalog catalog, int ano) {
+        runInBackground(() -> catalog.refreshAssortment(ano), current -> {
+            current.ifPresentOrElse(assortmentsTableLoader::insert, () -> assortmentsTableLoader.removeKey(ano));
+            if (currentlySelectedAssortment != null && currentlySelectedAssortment.getId() == ano) {
+                currentlySelectedAssortment = current.orElse(null);
+                if (current.isPresent()) {
+                    assortmentWinesTable.setItems(FXCollections.observableArrayList(current.get()));
+                } else {
+                    resetAssortmentFields();
+                }
+            }
+        }, Errors.ERROR_REFRESHING_DATA, Errors.FAILED_TO_REFRESH_DATA_FROM_THE_DATABASE);
     }
 
     private void handleError(@NotNull Errors title, @NotNull Errors message, Exception e) {
@@ -700,17 +1186,23 @@ public class WineStockController {
     }
 
     /**
-     * Updates the currently selected wine with the values entered the UI fields.
+     * Copies the currently selected wine with the values entered in the UI fields.
+     * <p>
+     * The selected wine is shared with the catalog and read by other threads, so it is only replaced by the copy
+     * once the update applied.
      *
+     * @return the edited copy, with the ID and version of the selected wine
      * @throws InvalidYearException If the entered year is invalid.
      */
-    private void updateSelectedWine() throws InvalidYearException {
-        this.currentlySelectedWine.setName(wineNameField.getText());
-        this.currentlySelectedWine.setYear(Year.of(Integer.parseInt(wineYearField.getText())));
-        this.currentlySelectedWine.setVolume(wineVolumeComboBox.getValue().getVolume());
-        this.currentlySelectedWine.setColor(Color.valueOf(wineColorComboBox.getValue().name()));
-        this.currentlySelectedWine.setPrice(Double.parseDouble(winePriceField.getText()));
-        this.currentlySelectedWine.setComment(wineCommentField.getText());
+    private @NotNull Wine editSelectedWine() throws InvalidYearException {
+        Wine wine = this.currentlySelectedWine.toBuilder().build();
+        wine.setName(wineNameField.getText());
+        wine.setYear(Year.of(Integer.parseInt(wineYearField.getText())));
+        wine.setVolume(wineVolumeComboBox.getValue().getVolume());
+        wine.setColor(Color.valueOf(wineColorComboBox.getValue().name()));
+        wine.setPriceCents(Money.parse(winePriceField.getText()));
+        wine.setComment(wineCommentField.getText());
+        return wine;
     }
 
     /**
@@ -731,7 +1223,7 @@ public class WineStockController {
             wineYearField.setText(String.valueOf(selectedWine.getYear().getValue()));
             wineVolumeComboBox.setValue(selectedWine.getVolume());
             wineColorComboBox.setValue(Color.valueOf(selectedWine.getColor().name()));
-            winePriceField.setText(String.valueOf(selectedWine.getPrice()));
+            winePriceField.setText(Money.format(selectedWine.getPriceCents()));
             wineCommentField.setText(selectedWine.getComment());
             this.wineTabPane.getSelectionModel().select(wineModifyTab);
         } else {
@@ -745,52 +1237,53 @@ public class WineStockController {
      * Retrieves the year from the assortmentYearTextField and validates it.
      * If the year is empty or not in the format "yyyy", it logs an error message and displays an error dialogue.
      * <p>
-     * Inserts the assortment into the database using the postgreSQLManager.
+     * Inserts the assortment into the database using the WineCatalog on a worker thread.
      * If the insertion is unsuccessful, it logs an error message and displays an error dialogue.
      * <p>
-     * Retrieves the newly added assortment from the assortmentsTable and sets it as the currently selected assortment.
-     * <p>
-     * Refreshes the UI to reflect the changes made in the database.
+     * Sets the newly added assortment as the currently selected assortment and inserts it into the assortmentsTable.
      * <p>
-     * Calls the loadSelectedAssortment() method to load the selected assortment into the UI fields.
+     * Selects it and calls the loadSelectedAssortment() method to load it into the UI fields.
      * <p>
      * If an exception occurs during the process, it logs an error message and displays an error dialogue.
      */
     @FXML
     public void addAssortment() {
+        String yearText = assortmentYearTextField.getText();
+        if (yearText.isEmpty()) {
+            handleError(Errors.YEAR_FIELD_IS_EMPTY, Errors.ERROR_ADDING_ASSORTMENT, null);
+            return;
+        }
+
+        Assortment<Wine> assortment;
         try {
-            String yearText = assortmentYearTextField.getText();
-            if (yearText.isEmpty()) {
-                handleError(Errors.YEAR_FIELD_IS_EMPTY, Errors.ERROR_ADDING_ASSORTMENT, null);
-                return;
-            }
+            assortment = new Assortment<>(Year.parse(yearText));
+        } catch (DateTimeParseException e) {
+            handleError(Errors.INVALID_YEAR_FORMAT, Errors.ERROR_ADDING_ASSORTMENT, e);
+            return;
+        }
 
-            Assortment<Wine> assortment = new Assortment<>(Year.parse(yearText));
-            Optional<Long> id = postgreSQLManager.insertAssortment(assortment);
+        WineCatalog catalog = this.catalog;
+        runWriteInBackground(() -> catalog.insertAssortment(assortment), id -> {
             if (id.isEmpty()) {
                 handleError(Errors.ERROR_ADDING_ASSORTMENT, Errors.FAILED_TO_ADD_ASSORTMENT_TO_THE_DATABASE, null);
                 return;
             }
-
             this.currentlySelectedAssortment = assortment;
-
-        } catch (DateTimeParseException e) {
-            handleError(Errors.INVALID_YEAR_FORMAT, Errors.ERROR_ADDING_ASSORTMENT, e);
-        } catch (Exception e) {
-            handleError(Errors.ERROR_ADDING_ASSORTMENT, Errors.FAILED_TO_ADD_ASSORTMENT_TO_THE_DATABASE, e);
-        }
-
-        refresh();
-        loadSelectedAssortment();
+            assortmentsTableLoader.insert(assortment);
+            assortmentsTable.getSelectionModel().select(assortment);
+            if (assortmentsTable.getSelectionModel().getSelectedItem() == assortment) {
+                loadSelectedAssortment();
+            }
+        }, Errors.ERROR_ADDING_ASSORTMENT, Errors.FAILED_TO_ADD_ASSORTMENT_TO_THE_DATABASE);
     }
 
     /**
      * Deletes the currently selected assortment from the database and updates the UI.
      * <p>
      * Calls the deleteAssortment()
-     * method of postgreSQLManager to delete the currently selected assortment from the database.
+     * method of the WineCatalog on a worker thread to delete the currently selected assortment from the database.
      * <p>
-     * Refreshes the UI to reflect the changes made in the database.
+     * Removes the assortment from the assortmentsTable if it was empty, and refreshes the tables otherwise.
      * <p>
      * Sets the currentlySelectedAssortment to null.
      * <p>
@@ -798,30 +1291,33 @@ public class WineStockController {
      */
     @FXML
     public void deleteAssortment() {
-        try {
-            postgreSQLManager.deleteAssortment(this.currentlySelectedAssortment);
-
-        } catch (Exception e) {
-            handleError(Errors.ERROR_DELETING_ASSORTMENT, Errors.FAILED_TO_DELETE_ASSORTMENT, e);
-            return;
-        }
-
-        refresh();
-        currentlySelectedAssortment = null;
-        resetAssortmentFields();
+        WineCatalog catalog = this.catalog;
+        Assortment<Wine> assortment = this.currentlySelectedAssortment;
+        runWriteInBackground(() -> catalog.deleteAssortment(assortment), id -> {
+            if (id.isPresent() && assortment.isEmpty()) {
+                assortmentsTableLoader.remove(assortment);
+            } else {
+                // What becomes of the wines of a deleted assortment is up to the database: reload to show it.
+                refresh();
+            }
+            currentlySelectedAssortment = null;
+            resetAssortmentFields();
+        }, Errors.ERROR_DELETING_ASSORTMENT, Errors.FAILED_TO_DELETE_ASSORTMENT);
     }
 
     /**
      * Adds the selected wine to the currently selected assortment in the database and updates the UI.
      * <p>
      * Calls the insertWineInAssortment()
-     * method of postgreSQLManager to add the selected wine to the currently selected assortment in the database.
+     * method of the WineCatalog on a worker thread to add the selected wine to the currently selected assortment in the database.
      * <p>
      * Retrieves the currently selected item from the notAssortmentWinesTable.
      * <p>
      * Retrieves the id of the currently selected assortment and uses it to insert the wine.
      * <p>
-     * Refreshes the UI to reflect the changes made in the database.
+     * A copy of the wine is moved, and the catalog replaces the assortment with one holding it: the wine is then
+     * removed from the table of available wines, and the new assortment is shown.
+     * If the wine was changed by another user since it was loaded, it is reloaded instead.
      * <p>
      * If an exception occurs during the process, it logs an error message and displays an error dialogue.
      */
@@ -838,52 +1334,84 @@ public class WineStockController {
             return;
         }
 
-        try {
-            postgreSQLManager.insertWineInAssortment(selectedWine, (long) this.currentlySelectedAssortment.getId());
-        } catch (SQLException e) {
-            handleError(Errors.ERROR_ADDING_WINE_TO_ASSORTMENT, Errors.FAILED_TO_ADD_WINE_TO_ASSORTMENT, e);
-            return;
-        }
-
-        currentlySelectedAssortment.add(selectedWine);
-        assortmentWinesTable.setItems(FXCollections.observableArrayList(this.currentlySelectedAssortment));
-        refresh();
+        WineCatalog catalog = this.catalog;
+        Assortment<Wine> assortment = this.currentlySelectedAssortment;
+        Wine wine = selectedWine.toBuilder().build();
+        runWriteInBackground(() -> catalog.insertWineInAssortment(wine, assortment), outcome -> {
+            if (!outcome.isSuccess()) {
+                handleError(Errors.ERROR_ADDING_WINE_TO_ASSORTMENT, outcome == UpdateOutcome.FAILED
+                        ? Errors.FAILED_TO_ADD_WINE_TO_ASSORTMENT : Errors.WINE_CHANGED_BY_ANOTHER_USER, null);
+                reloadWine(catalog, wine.getId());
+                return;
+            }
+            wineTableLoader.removeKey(wine.getId());
+            showMovedAssortment(catalog, assortment.getId());
+        }, Errors.ERROR_ADDING_WINE_TO_ASSORTMENT, Errors.FAILED_TO_ADD_WINE_TO_ASSORTMENT);
     }
 
     /**
      * Deletes the selected wine from the currently selected assortment in the database and updates the UI.
      * <p>
-     * Calls the deleteWineInAssortment() method of postgreSQLManager to delete the selected wine
+     * Calls the deleteWineInAssortment() method of the WineCatalog on a worker thread to delete the selected wine
      * from the currently selected assortment in the database.
      * <p>
      * Retrieves the currently selected item from the assortmentWinesTable.
      * <p>
      * Retrieves the id of the currently selected assortment and uses it to delete the wine.
      * <p>
-     * Refreshes the UI to reflect the changes made in the database.
+     * A copy of the wine is moved, and the catalog replaces the assortment with one without it: the wine is then
+     * shown back in the wine tables, and the new assortment is shown.
+     * If the wine was changed by another user since it was loaded, it and the assortment are reloaded instead.
      * <p>
      * If an exception occurs during the process, it logs an error message and displays an error dialogue.
      */
     @FXML
     public void deleteWineFromAssortment() {
-        try {
-            if (this.currentlySelectedAssortment == null) {
-                handleError(Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, Errors.FAILED_TO_DELETE_WINE_FROM_ASSORTMENT, null);
-                return;
-            } else if (assortmentWinesTable.getSelectionModel().getSelectedItem() == null) {
-                handleError(Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, Errors.NO_WINE_SELECTED, null);
+        if (this.currentlySelectedAssortment == null) {
+            handleError(Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, Errors.FAILED_TO_DELETE_WINE_FROM_ASSORTMENT, null);
+            return;
+        }
+        Wine selectedWine = assortmentWinesTable.getSelectionModel().getSelectedItem();
+        if (selectedWine == null) {
+            handleError(Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, Errors.NO_WINE_SELECTED, null);
+            return;
+        }
+
+        WineCatalog catalog = this.catalog;
+        Assortment<Wine> assortment = this.currentlySelectedAssortment;
+        Wine wine = selectedWine.toBuilder().build();
+        runWriteInBackground(() -> catalog.deleteWineInAssortment(wine, assortment), outcome -> {
+            if (!outcome.isSuccess()) {
+                handleError(Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, outcome == UpdateOutcome.FAILED
+                        ? Errors.FAILED_TO_DELETE_WINE_FROM_ASSORTMENT : Errors.WINE_CHANGED_BY_ANOTHER_USER, null);
+                reloadWine(catalog, wine.getId());
+                reloadAssortment(catalog, assortment.getId());
                 return;
             }
-            postgreSQLManager.deleteWineInAssortment(assortmentWinesTable.getSelectionModel().getSelectedItem());
+            showWine(wine);
+            showMovedAssortment(catalog, assortment.getId());
+        }, Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, Errors.FAILED_TO_DELETE_WINE_FROM_ASSORTMENT);
+    }
 
-        } catch (SQLException e) {
-            handleError(Errors.ERROR_DELETING_WINE_FROM_ASSORTMENT, Errors.FAILED_TO_DELETE_WINE_FROM_ASSORTMENT, e);
+    /**
+     * Shows the assortment a wine was just moved in or out of, as the catalog replaced it, in the assortment table
+     * and, if it is the selected one, in the table of its wines. It is read again if the catalog has meanwhile
+     * been invalidated.
+     *
+     * @param catalog the catalog that moved the wine
+     * @param ano     the ID of the assortment
+     */
+    private void showMovedAssortment(@NotNull WineCatalog catalog, int ano) {
+        Optional<Assortment<Wine>> moved = catalog.peekAssortment(ano);
+        if (moved.isEmpty()) {
+            reloadAssortment(catalog, ano);
             return;
         }
-
-        currentlySelectedAssortment.remove(assortmentWinesTable.getSelectionModel().getSelectedItem());
-        assortmentWinesTable.setItems(FXCollections.observableArrayList(this.currentlySelectedAssortment));
-        refresh();
+        assortmentsTableLoader.insert(moved.get());
+        if (currentlySelectedAssortment != null && currentlySelectedAssortment.getId() == ano) {
+            currentlySelectedAssortment = moved.get();
+            assortmentWinesTable.setItems(FXCollections.observableArrayList(moved.get()));
+        }
     }
 
     /**
@@ -2,6 +2,7 @@ package eu.lilithmonodia.winestock.data;
 
 import eu.lilithmonodia.winestock.exceptions.WineAlreadyInAssortmentException;
 import eu.lilithmonodia.winestock.exceptions.WineNotInAssortmentException;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -18,16 +19,43 @@ import java.util.function.Consumer;
  * <p>
  * It allows for various operations including addition, removal, and retrieval of wines.
  * The class maintains the properties such as ID, total price, and wine names in the Assortment.
+ * The total price is kept up to date on every change in cents (see {@link Money}), so that it stays exact
+ * without allocating, while the wine names
+ * are only built when asked for and then cached until the next change.
+ * <p>
+ * Membership is tracked by an index from wine ID to position kept in step with the list, so that
+ * {@code contains}, duplicate checks and removals find a wine without scanning the list. As the {@link List}
+ * contract requires, a Wine is in the Assortment if it equals one of its wines, such as a fresh copy read back
+ * from the database; an Assortment never holds two wines with the same ID. Wines not saved yet have no ID, and are
+ * indexed by instance until they are removed. Removed wines leave an empty slot
+ * behind, and the slots are compacted once, the next time the list is read by position or iterated, so that
+ * removing many wines doesn't shift the list each time.
+ * <p>
+ * The {@code try} methods report rejected additions and removals as an {@link AssortmentOutcome} rather than
+ * an exception, which keeps bulk operations cheap. The {@code OrThrow} methods throw the exceptions instead.
  */
 @Getter
 @EqualsAndHashCode(callSuper = false)
 public class Assortment<W extends Wine> extends AbstractList<W> implements List<W> {
     private static final Logger LOGGER = LogManager.getLogger(Assortment.class);
-    private static final String WINE_IS_NOT_IN_THE_ASSORTMENT = "Wine is not in the assortment";
+    // The wines, with a null in each slot left by a removal until the list is compacted.
     private final List<W> wineList;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private final Map<Integer, Integer> slotsById = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private final Map<Wine, Integer> slotsOfUnsaved = new IdentityHashMap<>();
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int emptySlots;
     private @Setter int id;
     private Year year;
-    private double totalPrice;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private long totalPriceCents;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
     private String wineNames;
 
     /**
@@ -52,7 +80,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
         this.id = id;
         wineList = new ArrayList<>();
         year = null;
-        totalPrice = 0;
+        totalPriceCents = 0;
         wineNames = "";
     }
 
@@ -69,7 +97,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
         this.id = id;
         wineList = new ArrayList<>();
         this.year = year;
-        totalPrice = 0;
+        totalPriceCents = 0;
         wineNames = "";
     }
 
@@ -88,6 +116,56 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
 
     // Public class-specific methods
 
+    /**
+     * Returns the list of the wines of the Assortment, in order.
+     *
+     * @return the list of the wines
+     */
+    public List<W> getWineList() {
+        compact();
+        return wineList;
+    }
+
+    /**
+     * Returns the total price of the wines in the Assortment.
+     *
+     * @return the sum of the prices of the wines
+     */
+    public double getTotalPrice() {
+        return Money.toDouble(totalPriceCents);
+    }
+
+    /**
+     * Returns the total price of the wines in the Assortment, in cents.
+     *
+     * @return the exact sum of the prices of the wines, in cents
+     */
+    public long getTotalPriceCents() {
+        return totalPriceCents;
+    }
+
+    /**
+     * Returns the names of the wines in the Assortment, separated by commas.
+     * <p>
+     * The string is built on the first call after a change and cached until the next one.
+     *
+     * @return the comma-separated names of the wines
+     */
+    public String getWineNames() {
+        if (wineNames == null) {
+            compact();
+            StringBuilder wineNamesBuilder = new StringBuilder();
+            for (W wine : wineList) {
+                if (!wineNamesBuilder.isEmpty()) {
+                    wineNamesBuilder.append(", ");
+                }
+                wineNamesBuilder.append(wine.getName());
+            }
+            wineNames = wineNamesBuilder.toString();
+        }
+        return wineNames;
+    }
+
     /**
      * Removes a Wine object from the Assortment.
      *
@@ -95,15 +173,105 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      * @return true if the Wine object is successfully removed from the Assortment, false otherwise.
      */
     public boolean remove(W wine) {
-        try {
-            if (!wineList.contains(wine))
-                throw new WineNotInAssortmentException(WINE_IS_NOT_IN_THE_ASSORTMENT);
-            else {
-                return wineListRemoveActions(wine);
-            }
-        } catch (WineNotInAssortmentException e) {
-            LOGGER.error(new StringBuilder().append(e.getMessage()).append("{}"), e);
-            return false;
+        return logged(tryRemove(wine));
+    }
+
+    /**
+     * Tries to add a Wine object to the Assortment, without throwing or logging when it is rejected.
+     *
+     * @param wine The Wine object to be added to the Assortment.
+     * @return {@link AssortmentOutcome#ADDED} if the Wine object was added, {@link AssortmentOutcome#DUPLICATE}
+     * if it is already in an assortment, or {@link AssortmentOutcome#YEAR_MISMATCH} if its year doesn't match
+     * the year of the Assortment.
+     */
+    public AssortmentOutcome tryAdd(@NotNull W wine) {
+        if (wine.isInAssortment() || indexedSlot(wine) != null) {
+            return AssortmentOutcome.DUPLICATE;
+        }
+        if (year != null && !wine.getYear().equals(year)) {
+            return AssortmentOutcome.YEAR_MISMATCH;
+        }
+        this.year = wine.getYear();
+        wine.setInAssortment(true);
+        if (emptySlots > wineList.size() / 2) {
+            compact();
+        }
+        wineList.add(wine);
+        this.wineAdded(wine, wineList.size() - 1);
+        return AssortmentOutcome.ADDED;
+    }
+
+    /**
+     * Tries to remove an Object from the Assortment, without throwing or logging when it is absent.
+     * <p>
+     * The wine of the Assortment equal to the Object is removed, and both are flagged as no longer in an assortment.
+     *
+     * @param o The Object to be removed from the Assortment.
+     * @return {@link AssortmentOutcome#REMOVED} if the Object was removed, {@link AssortmentOutcome#ABSENT}
+     * if it isn't in the Assortment.
+     */
+    public AssortmentOutcome tryRemove(Object o) {
+        int slot = slotOf(o);
+        if (slot < 0) {
+            return AssortmentOutcome.ABSENT;
+        }
+        ((Wine) o).setInAssortment(false);
+        removeSlot(slot);
+        return AssortmentOutcome.REMOVED;
+    }
+
+    /**
+     * Tries to add every Wine object of a collection to the Assortment, in iteration order.
+     *
+     * @param c Collection whose elements are to be added to the Assortment
+     * @return the outcome for each element, in iteration order
+     */
+    public List<AssortmentOutcome> tryAddAll(@NotNull Collection<? extends W> c) {
+        List<AssortmentOutcome> outcomes = new ArrayList<>(c.size());
+        for (W wine : c) {
+            outcomes.add(tryAdd(wine));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Tries to remove every element of a collection from the Assortment, in iteration order.
+     *
+     * @param c Collection whose elements are to be removed from the Assortment
+     * @return the outcome for each element, in iteration order
+     */
+    public List<AssortmentOutcome> tryRemoveAll(@NotNull Collection<?> c) {
+        List<AssortmentOutcome> outcomes = new ArrayList<>(c.size());
+        for (Object o : c) {
+            outcomes.add(tryRemove(o));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Adds a Wine object to the Assortment, throwing if it is rejected.
+     *
+     * @param wine The Wine object to be added to the Assortment.
+     * @throws WineAlreadyInAssortmentException if the Wine object is already in an assortment or its year
+     *                                          doesn't match the year of the Assortment
+     */
+    public void addOrThrow(@NotNull W wine) throws WineAlreadyInAssortmentException {
+        AssortmentOutcome outcome = tryAdd(wine);
+        if (!outcome.isSuccess()) {
+            throw new WineAlreadyInAssortmentException(outcome.getMessage());
+        }
+    }
+
+    /**
+     * Removes an Object from the Assortment, throwing if it isn't in it.
+     *
+     * @param o The Object to be removed from the Assortment.
+     * @throws WineNotInAssortmentException if the Object isn't in the Assortment
+     */
+    public void removeOrThrow(Object o) throws WineNotInAssortmentException {
+        AssortmentOutcome outcome = tryRemove(o);
+        if (!outcome.isSuccess()) {
+            throw new WineNotInAssortmentException(outcome.getMessage());
         }
     }
 
@@ -111,48 +279,134 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      * Sorts the Wine list according to the ID of the Wines.
      */
     public void sort() {
+        compact();
         Collections.sort(wineList);
-        this.resetWineNames();
+        reindexFrom(0);
+        this.wineNames = null;
     }
 
     // Private class-specific methods
 
     /**
-     * Resets the `wineNames` attribute according to the current `wineList`.
+     * Indexes a Wine added to the `wineList` and updates the `totalPriceCents` and `wineNames` attributes.
+     *
+     * @param wine The Wine object that was added.
+     * @param slot The slot of the `wineList` holding it.
      */
-    private void resetWineNames() {
-        StringBuilder wineNamesBuilder = new StringBuilder();
-        for (W wine : wineList) {
-            if (!wineNamesBuilder.isEmpty()) {
-                wineNamesBuilder.append(", ");
-            }
-            wineNamesBuilder.append(wine.getName());
+    private void wineAdded(@NotNull W wine, int slot) {
+        index(wine, slot);
+        this.totalPriceCents += wine.getPriceCents();
+        this.wineNames = null;
+    }
+
+    /**
+     * Drops a Wine removed from the `wineList` from the index and updates the `totalPriceCents` and `wineNames`
+     * attributes.
+     *
+     * @param wine The Wine object that was removed.
+     */
+    private void wineRemoved(@NotNull Wine wine) {
+        if (this.slotsOfUnsaved.remove(wine) == null) {
+            this.slotsById.remove(wine.getId());
+        }
+        this.totalPriceCents -= wine.getPriceCents();
+        this.wineNames = null;
+    }
+
+    /**
+     * Logs the message of a rejected outcome.
+     *
+     * @param outcome The outcome of an addition or a removal.
+     * @return true if the outcome is a success, false otherwise.
+     */
+    private static boolean logged(@NotNull AssortmentOutcome outcome) {
+        if (!outcome.isSuccess()) {
+            LOGGER.error(outcome.getMessage());
+        }
+        return outcome.isSuccess();
+    }
+
+    /**
+     * Records the slot of a wine of the Assortment, by ID or, for a wine not saved yet, by instance.
+     * <p>
+     * A wine indexed by instance stays so once saved, until it is removed.
+     *
+     * @param wine The wine.
+     * @param slot Its slot in the `wineList`.
+     */
+    private void index(@NotNull W wine, int slot) {
+        if (wine.getId() < 0 || slotsOfUnsaved.containsKey(wine)) {
+            slotsOfUnsaved.put(wine, slot);
+        } else {
+            slotsById.put(wine.getId(), slot);
+        }
+    }
+
+    /**
+     * Returns the slot of the wine of the Assortment with the same ID as a Wine, or of that very Wine if it has no
+     * ID.
+     *
+     * @param wine The Wine to look for.
+     * @return the slot in the `wineList`, or null if no wine of the Assortment matches
+     */
+    private Integer indexedSlot(@NotNull Wine wine) {
+        Integer slot = slotsOfUnsaved.isEmpty() ? null : slotsOfUnsaved.get(wine);
+        if (slot == null && wine.getId() >= 0) {
+            slot = slotsById.get(wine.getId());
+        }
+        return slot;
+    }
+
+    /**
+     * Finds the slot of the wine of the Assortment equal to an Object, through the index.
+     *
+     * @param o The Object to look for.
+     * @return the slot of the equal wine in the `wineList`, or -1 if the Assortment holds no such wine.
+     */
+    private int slotOf(Object o) {
+        if (!(o instanceof Wine wine)) {
+            return -1;
         }
-        this.wineNames = wineNamesBuilder.toString();
+        Integer slot = indexedSlot(wine);
+        return slot != null && wineList.get(slot).equals(wine) ? slot : -1;
+    }
+
+    /**
+     * Removes the wine of a slot, flagging it as no longer in an assortment and leaving the slot empty.
+     *
+     * @param slot The slot of the wine in the `wineList`.
+     * @return the removed wine
+     */
+    private W removeSlot(int slot) {
+        W removed = wineList.set(slot, null);
+        removed.setInAssortment(false);
+        emptySlots++;
+        this.wineRemoved(removed);
+        return removed;
     }
 
     /**
-     * Resets the `totalPrice` attribute according to the current `wineList`.
+     * Drops the empty slots left by removals from the `wineList`, so that slots are positions again.
      */
-    private void resetTotalPrice() {
-        this.totalPrice = 0;
-        for (W wine : wineList) {
-            this.totalPrice += wine.getPrice();
+    private void compact() {
+        if (emptySlots == 0) {
+            return;
         }
+        int firstEmpty = wineList.indexOf(null);
+        wineList.removeIf(Objects::isNull);
+        emptySlots = 0;
+        reindexFrom(firstEmpty);
     }
 
     /**
-     * Execute wine-removing actions
+     * Records the slots of the wines from a position to the end of the `wineList`, after they moved.
      *
-     * @param wine The Wine object to be updated before removed.
-     * @return true if the Wine object is removed, false otherwise.
+     * @param from The first position to record.
      */
-    private boolean wineListRemoveActions(@NotNull W wine) {
-        wine.setInAssortment(false);
-        boolean wasRemoved = wineList.remove(wine);
-        this.resetTotalPrice();
-        this.resetWineNames();
-        return wasRemoved;
+    private void reindexFrom(int from) {
+        for (int i = from; i < wineList.size(); i++) {
+            index(wineList.get(i), i);
+        }
     }
 
     // Methods overridden from interface List
@@ -165,6 +419,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public W get(int index) {
+        compact();
         return this.wineList.get(index);
     }
 
@@ -175,10 +430,19 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      * @param index   index of the element to replace
      * @param element element to be stored at the specified position
      * @return the element previously at the specified position
+     * @throws IllegalArgumentException if another position of the Assortment holds a wine with the same ID
      */
     @Override
     public W set(int index, W element) {
-        return this.wineList.set(index, element);
+        compact();
+        Integer slot = indexedSlot(element);
+        if (slot != null && slot != Objects.checkIndex(index, wineList.size())) {
+            throw new IllegalArgumentException(AssortmentOutcome.DUPLICATE.getMessage());
+        }
+        W previous = this.wineList.set(index, element);
+        this.wineRemoved(previous);
+        this.wineAdded(element, index);
+        return previous;
     }
 
     /**
@@ -191,15 +455,14 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public void add(int index, W element) {
-        try {
-            if (this.wineList.contains(element)) {
-                throw new WineAlreadyInAssortmentException("Wine is already in the assortment");
-            }
-            this.wineList.add(index, element);
-        } catch (WineAlreadyInAssortmentException e) {
-            LOGGER.error(new StringBuilder().append(e.getMessage()).append("{}"), e);
+        if (indexedSlot(element) != null) {
+            LOGGER.error(AssortmentOutcome.DUPLICATE.getMessage());
+            return;
         }
-
+        compact();
+        this.wineList.add(index, element);
+        this.wineAdded(element, index);
+        reindexFrom(index + 1);
     }
 
     /**
@@ -212,18 +475,20 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public W remove(int index) {
-        return this.wineList.remove(index);
+        compact();
+        return removeSlot(Objects.checkIndex(index, wineList.size()));
     }
 
     /**
      * Returns a list iterator over the elements in the Wine list.
+     * Changes made through the iterator go through this Assortment, keeping its index and totals in step.
      *
      * @return List iterator over the elements
      */
     @NotNull
     @Override
     public ListIterator<W> listIterator() {
-        return this.wineList.listIterator();
+        return super.listIterator();
     }
 
     /**
@@ -235,7 +500,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     @NotNull
     @Override
     public ListIterator<W> listIterator(int index) {
-        return this.wineList.listIterator(index);
+        return super.listIterator(index);
     }
 
     /**
@@ -248,7 +513,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     @NotNull
     @Override
     public List<W> subList(int fromIndex, int toIndex) {
-        return this.wineList.subList(fromIndex, toIndex);
+        return super.subList(fromIndex, toIndex);
     }
 
     // Methods overridden from interface Collection
@@ -260,7 +525,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public int size() {
-        return wineList.size();
+        return wineList.size() - emptySlots;
     }
 
     /**
@@ -270,7 +535,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public boolean isEmpty() {
-        return wineList.isEmpty();
+        return size() == 0;
     }
 
     /**
@@ -281,7 +546,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public boolean contains(Object o) {
-        return wineList.contains(o);
+        return slotOf(o) >= 0;
     }
 
     /**
@@ -292,6 +557,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     @NotNull
     @Override
     public Object @NotNull [] toArray() {
+        compact();
         return wineList.toArray();
     }
 
@@ -304,6 +570,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     @NotNull
     @Override
     public <T> T @NotNull [] toArray(@NotNull T @NotNull [] a) {
+        compact();
         return wineList.toArray(a);
     }
 
@@ -315,21 +582,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public boolean add(W wine) {
-        try {
-            if ((year != null && !wine.getYear().equals(year)) || wine.isInAssortment()) {
-                throw new WineAlreadyInAssortmentException("Wine is already in the assortment or the year of the wine is not matching with the assortment's year");
-            }
-            this.year = wine.getYear();
-            wine.setInAssortment(true);
-            // Update totalPrice and wineNames
-            wineList.add(wine);
-            this.resetTotalPrice();
-            this.resetWineNames();
-            return true;
-        } catch (WineAlreadyInAssortmentException e) {
-            LOGGER.error(new StringBuilder().append(e.getMessage()).append("{}"), e);
-            return false;
-        }
+        return logged(tryAdd(wine));
     }
 
     /**
@@ -340,27 +593,10 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public boolean remove(Object o) {
-        try {
-            if (!(o instanceof Wine)) {
-                return false;
-            }
-
-            boolean isRemoved = wineList.removeIf(w -> w.equals(o));
-
-            if (!isRemoved) {
-                throw new WineNotInAssortmentException(WINE_IS_NOT_IN_THE_ASSORTMENT);
-            }
-
-            // The unchecked warning here can't be removed because of type erasure in Java generics.
-            // It is safe as we've already verified that an instance of Wine.
-            @SuppressWarnings("unchecked")
-            W wine = (W) o;
-
-            return wineListRemoveActions(wine);
-        } catch (WineNotInAssortmentException e) {
-            LOGGER.error(new StringBuilder().append(e.getMessage()).append("{}"), e);
+        if (!(o instanceof Wine)) {
             return false;
         }
+        return logged(tryRemove(o));
     }
 
     /**
@@ -371,7 +607,12 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public boolean containsAll(@NotNull Collection<?> c) {
-        return new HashSet<>(wineList).containsAll(c);
+        for (Object o : c) {
+            if (!contains(o)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -401,8 +642,8 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     public boolean addAll(int index, @NotNull Collection<? extends W> c) {
         boolean result = true;
         for (W wine : c) {
-            if (wineList.contains(wine)) {
-                LOGGER.error("Wine is already in the assortment or the year of the wine is not matching with the assortment's year");
+            if (indexedSlot(wine) != null) {
+                LOGGER.error(AssortmentOutcome.DUPLICATE.getMessage());
                 result = false;
                 continue;
             }
@@ -421,7 +662,11 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     public boolean removeAll(@NotNull Collection<?> c) {
         boolean result = true;
         for (Object obj : c) {
-            result &= remove(obj);
+            // The emptied slots are dropped from the list in a single pass, when it is next read.
+            if (!tryRemove(obj).isSuccess()) {
+                LOGGER.error(AssortmentOutcome.ABSENT.getMessage());
+                result = false;
+            }
         }
         return result;
     }
@@ -435,21 +680,13 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
     @Override
     public boolean retainAll(@NotNull Collection<?> c) {
         boolean isChanged = false;
-        Iterator<W> iterator = wineList.iterator();
-
-        while (iterator.hasNext()) {
-            Wine wine = iterator.next();
-            if (!c.contains(wine)) {
-                wine.setInAssortment(false);
-                iterator.remove();
+        for (int slot = 0; slot < wineList.size(); slot++) {
+            W wine = wineList.get(slot);
+            if (wine != null && !c.contains(wine)) {
+                removeSlot(slot);
                 isChanged = true;
             }
         }
-
-        // assign the updated wine names and total price
-        this.resetTotalPrice();
-        this.resetWineNames();
-
         return isChanged;
     }
 
@@ -458,12 +695,15 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public void clear() {
+        compact();
         for (Wine wine : wineList) {
             wine.setInAssortment(false);
         }
         wineList.clear();
-        this.resetTotalPrice();
-        this.resetWineNames();
+        slotsById.clear();
+        slotsOfUnsaved.clear();
+        this.totalPriceCents = 0;
+        this.wineNames = "";
     }
 
     // Methods overridden from interface Iterable
@@ -475,6 +715,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public void forEach(Consumer<? super W> action) {
+        compact();
         wineList.forEach(action);
     }
 
@@ -485,6 +726,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
      */
     @Override
     public @NotNull Spliterator<W> spliterator() {
+        compact();
         return wineList.spliterator();
     }
 
@@ -505,7 +747,7 @@ public class Assortment<W extends Wine> extends AbstractList<W> implements List<
             sb.append("\t\t").append(wine).append("\n");
         }
 
-        sb.append("\t}\n\ttotalPrice=").append(totalPrice).append("\n}");
+        sb.append("\t}\n\ttotalPrice=").append(getTotalPrice()).append("\n}");
 
         return sb.toString();
     }
@@ -0,0 +1,54 @@
+package eu.lilithmonodia.winestock.data;
+
+import lombok.Getter;
+
+/**
+ * This `AssortmentOutcome` enum represents the result of adding a wine to, or removing a wine from, an
+ * {@link Assortment}.
+ * <p>
+ * It lets callers handle the usual rejections without exceptions. Each instance carries the message
+ * used when the outcome is logged or turned into an exception.
+ */
+@Getter
+public enum AssortmentOutcome {
+    /**
+     * The wine was added to the assortment.
+     */
+    ADDED("Wine added to the assortment"),
+    /**
+     * The wine was removed from the assortment.
+     */
+    REMOVED("Wine removed from the assortment"),
+    /**
+     * The wine was not added because it is already in an assortment.
+     */
+    DUPLICATE("Wine is already in the assortment"),
+    /**
+     * The wine was not added because its year doesn't match the year of the assortment.
+     */
+    YEAR_MISMATCH("The year of the wine is not matching with the assortment's year"),
+    /**
+     * The wine was not removed because it isn't in the assortment.
+     */
+    ABSENT("Wine is not in the assortment");
+
+    private final String message;
+
+    /**
+     * Constructor for the AssortmentOutcome enum.
+     *
+     * @param message the message describing the outcome
+     */
+    AssortmentOutcome(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Checks whether the assortment was changed.
+     *
+     * @return true for {@link #ADDED} and {@link #REMOVED}, false for the rejections
+     */
+    public boolean isSuccess() {
+        return this == ADDED || this == REMOVED;
+    }
+}
@@ -3,8 +3,7 @@ package eu.lilithmonodia.winestock.data;
 import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.List;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This `BottleSize` enum represents the possible bottle sizes of the wine.
@@ -13,7 +12,9 @@ import java.util.List;
  * The volume for each bottle size is provided in centiliters.
  * <p>
  * This enum provides a static method `doubleToBottleSize`, which takes a double representing
- * a volume and returns the corresponding `BottleSize` instance.
+ * a volume and returns the corresponding `BottleSize` instance, and a non-throwing `findByVolume` variant.
+ * Both look the volume up in a table indexed by half-centilitres, built once, and accept the small rounding errors
+ * of volumes read back from floating-point columns.
  */
 @Getter
 public enum BottleSize {
@@ -82,6 +83,13 @@ public enum BottleSize {
      */
     MIDAS(3000);
 
+    /**
+     * The largest difference, in centiliters, between a volume and the volume of the bottle size it matches.
+     */
+    public static final double VOLUME_TOLERANCE = 0.01;
+    private static final int STEPS_PER_CENTILITER = 2;
+    private static final BottleSize[] BY_VOLUME_STEP = volumeSteps();
+
     private final double volume;
 
     /**
@@ -94,19 +102,52 @@ public enum BottleSize {
     }
 
     /**
-     * Finds and returns the `BottleSize` associated with the provided volume. If no such
-     * `BottleSize` exists, this method returns null.
+     * Finds and returns the `BottleSize` associated with the provided volume.
      *
      * @param volume the volume to fetch the corresponding `BottleSize` for.
-     * @return the `BottleSize` matching the volume, or null if none match.
+     * @return the `BottleSize` matching the volume.
      * @throws InvalidBottleVolumeException if the provided volume is invalid.
      */
     public static @NotNull BottleSize doubleToBottleSize(double volume) throws InvalidBottleVolumeException {
-        List<BottleSize> bottleSizes = List.of(BottleSize.values());
-        for (BottleSize bottleSize : bottleSizes) {
-            if (bottleSize.getVolume() == volume) return bottleSize;
+        BottleSize bottleSize = findByVolume(volume);
+        if (bottleSize == null) {
+            throw new InvalidBottleVolumeException("Invalid bottle volume");
         }
-        throw new InvalidBottleVolumeException("Invalid bottle volume");
+        return bottleSize;
     }
 
+    /**
+     * Finds the `BottleSize` associated with the provided volume, within {@link #VOLUME_TOLERANCE}.
+     * <p>
+     * Unlike {@link #doubleToBottleSize(double)}, a miss is reported by returning null, so that the lookup
+     * neither allocates nor throws.
+     *
+     * @param volume the volume to fetch the corresponding `BottleSize` for.
+     * @return the `BottleSize` matching the volume, or null if none match.
+     */
+    public static @Nullable BottleSize findByVolume(double volume) {
+        double steps = volume * STEPS_PER_CENTILITER;
+        if (!(steps >= 0 && steps < BY_VOLUME_STEP.length)) {
+            return null;
+        }
+        BottleSize bottleSize = BY_VOLUME_STEP[(int) Math.round(steps)];
+        if (bottleSize == null || Math.abs(bottleSize.volume - volume) > VOLUME_TOLERANCE) {
+            return null;
+        }
+        return bottleSize;
+    }
+
+    /**
+     * Builds the lookup table of the bottle sizes, indexed by their volume in half-centilitres.
+     *
+     * @return the lookup table, with null entries for the volumes without a bottle size
+     */
+    private static BottleSize @NotNull [] volumeSteps() {
+        BottleSize[] bottleSizes = values();
+        BottleSize[] byStep = new BottleSize[(int) Math.round(bottleSizes[bottleSizes.length - 1].volume * STEPS_PER_CENTILITER) + 1];
+        for (BottleSize bottleSize : bottleSizes) {
+            byStep[(int) Math.round(bottleSize.volume * STEPS_PER_CENTILITER)] = bottleSize;
+        }
+        return byStep;
+    }
 }
@@ -1,5 +1,10 @@
 package eu.lilithmonodia.winestock.data;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This `Colour` enum represents the possible colours of the wine.
  * <p>
@@ -11,6 +16,8 @@ package eu.lilithmonodia.winestock.data;
  *     <li>`ROSE` : Represents rosé wine</li>
  *     <li>`CHAMPAGNE` : Represents champagne</li>
  * </ul>
+ * <p>
+ * The `findByName` method looks a colour up from its name without throwing, unlike `valueOf`.
  */
 public enum Color {
     /**
@@ -28,5 +35,23 @@ public enum Color {
     /**
      * Champagne represents champagne.
      */
-    CHAMPAGNE
-}
\ No newline at end of file
+    CHAMPAGNE;
+
+    private static final Map<String, Color> BY_NAME = new HashMap<>();
+
+    static {
+        for (Color color : values()) {
+            BY_NAME.put(color.name(), color);
+        }
+    }
+
+    /**
+     * Finds the colour with the given name.
+     *
+     * @param name the name of the colour, as returned by {@link #name()}
+     * @return the colour, or null if no colour has that name
+     */
+    public static @Nullable Color findByName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+}
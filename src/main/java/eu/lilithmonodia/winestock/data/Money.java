@@ -0,0 +1,106 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The Money class converts amounts of money held as a number of cents in a {@code long}, the exact fixed-point
+ * representation used for the prices of wines and the totals of assortments.
+ * <p>
+ * Cents are added and subtracted as plain longs, so totals are exact and kept up to date without allocating. The
+ * database stores prices as {@code NUMERIC(10, 2)}, which {@link #toBigDecimal(long)} and
+ * {@link #fromBigDecimal(BigDecimal)} convert to and from without loss. Amounts given with more than two decimals
+ * are rounded half up, as the database rounds them.
+ */
+public final class Money {
+    /**
+     * The number of decimals of an amount.
+     */
+    public static final int SCALE = 2;
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to cents, rounding it half up to the cent.
+     * <p>
+     * Every amount with at most two decimals and fewer than thirteen digits before the point is converted exactly,
+     * which covers the prices the database can hold. An amount with more decimals is rounded on its shortest decimal
+     * representation, as {@link #fromBigDecimal(BigDecimal)} rounds it, rather than on its binary value: 1.005 is
+     * 101 cents, even though the nearest double is slightly below 1.005.
+     *
+     * @param amount the amount
+     * @return the amount in cents
+     * @throws IllegalArgumentException if the amount is not a finite number
+     * @throws ArithmeticException      if the amount doesn't fit in a long once in cents
+     */
+    public static long fromDouble(double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+        long cents = Math.round(amount * CENTS_PER_UNIT);
+        if (cents / CENTS_PER_UNIT == amount) {
+            return cents;
+        }
+        return fromBigDecimal(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Converts cents to an amount, for display or for code still working with doubles.
+     *
+     * @param cents the amount in cents
+     * @return the nearest double to the amount
+     */
+    public static double toDouble(long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+
+    /**
+     * Converts an amount to cents, rounding it half up to the cent.
+     *
+     * @param amount the amount
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount doesn't fit in a long once in cents
+     */
+    public static long fromBigDecimal(@NotNull BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts cents to an exact amount, as stored by the database.
+     *
+     * @param cents the amount in cents
+     * @return the amount, with two decimals
+     */
+    public static @NotNull BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Parses an amount typed by the user, with a point or a comma as decimal separator.
+     *
+     * @param text the text of the amount
+     * @return the amount in cents
+     * @throws NumberFormatException if the text isn't a number or doesn't fit in a long once in cents
+     */
+    public static long parse(@NotNull String text) {
+        try {
+            return fromBigDecimal(new BigDecimal(text.trim().replace(',', '.')));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * Formats an amount with two decimals and a point as decimal separator, as {@link #parse(String)} reads it back.
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static @NotNull String format(long cents) {
+        return toBigDecimal(cents).toPlainString();
+    }
+}
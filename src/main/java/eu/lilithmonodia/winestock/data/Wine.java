@@ -1,7 +1,7 @@
 package eu.lilithmonodia.winestock.data;
 
-import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
 import eu.lilithmonodia.winestock.exceptions.InvalidYearException;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -18,8 +18,17 @@ import java.time.Year;
  * colour, price, and user comments.
  * <p>
  * The wine can also be part of an assortment (collection of wines).
+ * <p>
+ * The price is held as a number of cents (see {@link Money}), so that sums of prices are exact. The
+ * {@link #getPrice()} and {@link #setPrice(double)} accessors, and the {@code price} method of the builder,
+ * convert it from and to a double for code and tests written against decimal prices.
+ * <p>
+ * Besides the builder, the all-arguments constructor lets hot paths such as row mapping create wines without
+ * allocating a builder. Neither checks the year. {@code toBuilder()} copies a wine, to be edited without changing
+ * an instance shared with other threads.
  */
-@Builder
+@Builder(toBuilder = true)
+@AllArgsConstructor
 @Getter
 @EqualsAndHashCode
 public class Wine implements Comparable<Wine> {
@@ -34,9 +43,12 @@ public class Wine implements Comparable<Wine> {
     private Year year;
     private BottleSize volume;
     private @Setter Color color;
-    private @Setter double price;
+    private @Setter long priceCents;
     private @Setter String comment;
     private @Setter boolean inAssortment;
+    // The row version the wine was read with, checked by compare-and-set updates; not part of the wine's value.
+    @EqualsAndHashCode.Exclude
+    private @Setter int version;
 
     /**
      * Sets the year of an object.
@@ -54,16 +66,32 @@ public class Wine implements Comparable<Wine> {
     }
 
     /**
-     * Sets the volume of the bottle.
+     * Sets the volume of the bottle, falling back to a standard bottle if the volume matches no bottle size.
      *
      * @param volume the volume of the bottle to be set
      */
     public void setVolume(double volume) {
-        try {
-            this.volume = BottleSize.doubleToBottleSize(volume);
-        } catch (InvalidBottleVolumeException e) {
-            this.volume = BottleSize.BOUTEILLE;
-        }
+        BottleSize bottleSize = BottleSize.findByVolume(volume);
+        this.volume = bottleSize != null ? bottleSize : BottleSize.BOUTEILLE;
+    }
+
+    /**
+     * Returns the price of the wine, converted from cents.
+     *
+     * @return the price
+     */
+    public double getPrice() {
+        return Money.toDouble(priceCents);
+    }
+
+    /**
+     * Sets the price of the wine, rounded to the cent.
+     *
+     * @param price the price
+     * @throws IllegalArgumentException if the price is not a finite number
+     */
+    public void setPrice(double price) {
+        this.priceCents = Money.fromDouble(price);
     }
 
     /**
@@ -78,7 +106,7 @@ public class Wine implements Comparable<Wine> {
                 ", year=" + year +
                 ", volume=" + volume.toString() + '(' + volume.getVolume() + ')' +
                 ", color=" + color +
-                ", price=" + price +
+                ", price=" + getPrice() +
                 ", comment='" + comment + '\'' +
                 '}';
     }
@@ -95,4 +123,21 @@ public class Wine implements Comparable<Wine> {
     public int compareTo(@NotNull Wine o) {
         return Integer.compare(this.id, o.id);
     }
+
+    /**
+     * The builder of wines, to which Lombok adds the setters of the fields.
+     */
+    public static class WineBuilder {
+        /**
+         * Sets the price of the wine, rounded to the cent.
+         *
+         * @param price the price
+         * @return this builder
+         * @throws IllegalArgumentException if the price is not a finite number
+         */
+        public WineBuilder price(double price) {
+            this.priceCents = Money.fromDouble(price);
+            return this;
+        }
+    }
 }
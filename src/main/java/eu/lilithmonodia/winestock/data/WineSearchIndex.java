@@ -0,0 +1,334 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * The WineSearchIndex class is an inverted index over wines, for type-ahead searches of wines already in memory.
+ * <p>
+ * Wines are indexed by their ID. The words of their name and comment, folded to lower case without accents, have
+ * posting lists; so do their year, colour and bottle size. A search is a conjunction of words, each matched as the
+ * prefix of an indexed word, as the name of a colour or bottle size, or as a year, and is answered by combining
+ * postings rather than by testing every wine.
+ * <p>
+ * The postings of years, colours and bottle sizes are bitmaps. The posting of an indexed word starts as a sorted
+ * array of IDs, which is much smaller for the many rare words, and becomes a bitmap once it grows past
+ * {@value #ARRAY_POSTING_LIMIT} IDs.
+ * <p>
+ * The index is maintained incrementally with {@link #put(Wine)} and {@link #remove(int)}, and remembers the last
+ * search until it changes. It isn't safe for use by several threads.
+ */
+public final class WineSearchIndex {
+    private static final int ARRAY_POSTING_LIMIT = 2048;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    private final NavigableMap<String, Posting> words = new TreeMap<>();
+    private final Map<Integer, BitSet> years = new HashMap<>();
+    private final Map<Color, BitSet> colors = new EnumMap<>(Color.class);
+    private final Map<BottleSize, BitSet> volumes = new EnumMap<>(BottleSize.class);
+    private final Map<String, Color> colorsByWord = new HashMap<>();
+    private final Map<String, BottleSize> volumesByWord = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final BitSet ids = new BitSet();
+    private String lastSearch;
+    private BitSet lastResult;
+
+    /**
+     * The values a wine was indexed with, kept to remove them from the postings.
+     *
+     * @param words  the distinct words of the name and comment
+     * @param year   the year
+     * @param color  the colour
+     * @param volume the bottle size
+     */
+    private record Entry(@NotNull Set<String> words, int year, Color color, BottleSize volume) {
+    }
+
+    /**
+     * Constructs a new, empty WineSearchIndex.
+     */
+    public WineSearchIndex() {
+        for (Color color : Color.values()) {
+            colorsByWord.put(fold(color.name()), color);
+        }
+        for (BottleSize volume : BottleSize.values()) {
+            volumesByWord.put(fold(volume.name()), volume);
+        }
+    }
+
+    /**
+     * Returns the number of wines in the index.
+     *
+     * @return the number of indexed wines
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Indexes a wine, replacing the values it was indexed with before if it was already in the index.
+     *
+     * @param wine the wine to index, whose ID must not be negative
+     */
+    public void put(@NotNull Wine wine) {
+        int id = wine.getId();
+        if (id < 0) {
+            throw new IllegalArgumentException("Cannot index a wine without an ID");
+        }
+        remove(id);
+        Set<String> wineWords = new HashSet<>(words(wine.getName()));
+        wineWords.addAll(words(wine.getComment()));
+        int year = wine.getYear() == null ? 0 : wine.getYear().getValue();
+        Entry entry = new Entry(wineWords, year, wine.getColor(), wine.getVolume());
+        for (String word : wineWords) {
+            words.computeIfAbsent(word, w -> new Posting()).add(id);
+        }
+        years.computeIfAbsent(year, y -> new BitSet()).set(id);
+        if (entry.color() != null) {
+            colors.computeIfAbsent(entry.color(), c -> new BitSet()).set(id);
+        }
+        if (entry.volume() != null) {
+            volumes.computeIfAbsent(entry.volume(), v -> new BitSet()).set(id);
+        }
+        entries.put(id, entry);
+        ids.set(id);
+        lastSearch = null;
+    }
+
+    /**
+     * Removes a wine from the index.
+     *
+     * @param id the ID of the wine
+     */
+    public void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words()) {
+            Posting posting = words.get(word);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                words.remove(word);
+            }
+        }
+        clear(years, entry.year(), id);
+        clear(colors, entry.color(), id);
+        clear(volumes, entry.volume(), id);
+        ids.clear(id);
+        lastSearch = null;
+    }
+
+    /**
+     * Removes every wine from the index.
+     */
+    public void clear() {
+        words.clear();
+        years.clear();
+        colors.clear();
+        volumes.clear();
+        entries.clear();
+        ids.clear();
+        lastSearch = null;
+    }
+
+    /**
+     * Finds the wines matching every word of a search.
+     * <p>
+     * A search word matches a wine if it starts one of the words of its name or comment, ignoring case and accents,
+     * if it names its colour or bottle size, or if it is its four-digit year. The result of the last search is reused
+     * until the index changes, so that paging through the results doesn't search again.
+     *
+     * @param text the text of the search
+     * @return the IDs of the matching wines; every indexed wine if the text holds no word. The caller must not
+     * modify it.
+     */
+    public @NotNull BitSet search(@NotNull String text) {
+        if (text.equals(lastSearch)) {
+            return lastResult;
+        }
+        BitSet result = (BitSet) ids.clone();
+        for (String word : words(text)) {
+            BitSet matches = new BitSet();
+            for (Posting posting : words.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                posting.addTo(matches);
+            }
+            Color color = colorsByWord.get(word);
+            if (color != null && colors.containsKey(color)) {
+                matches.or(colors.get(color));
+            }
+            BottleSize volume = volumesByWord.get(word);
+            if (volume != null && volumes.containsKey(volume)) {
+                matches.or(volumes.get(volume));
+            }
+            if (YEAR.matcher(word).matches() && years.containsKey(Integer.parseInt(word))) {
+                matches.or(years.get(Integer.parseInt(word)));
+            }
+            result.and(matches);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        lastSearch = text;
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Checks whether a single wine matches a search, with the same rules as {@link #search(String)}, without
+     * indexing it.
+     *
+     * @param text the text of the search
+     * @param wine the wine to check
+     * @return true if the wine matches every word of the search
+     */
+    public static boolean matches(@NotNull String text, @NotNull Wine wine) {
+        List<String> wineWords = new ArrayList<>(words(wine.getName()));
+        wineWords.addAll(words(wine.getComment()));
+        for (String word : words(text)) {
+            boolean matched = wineWords.stream().anyMatch(wineWord -> wineWord.startsWith(word))
+                    || wine.getColor() != null && fold(wine.getColor().name()).equals(word)
+                    || wine.getVolume() != null && fold(wine.getVolume().name()).equals(word)
+                    || wine.getYear() != null && YEAR.matcher(word).matches()
+                    && wine.getYear().getValue() == Integer.parseInt(word);
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a text into words folded to lower case without accents.
+     *
+     * @param text the text, possibly null
+     * @return the words of the text, in order
+     */
+    public static @NotNull List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        for (String word : SEPARATORS.split(fold(text))) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Folds a text to lower case and strips its accents.
+     *
+     * @param text the text
+     * @return the folded text
+     */
+    public static @NotNull String fold(@NotNull String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Clears a bit of a bitmap posting, dropping the posting once empty.
+     *
+     * @param postings the postings
+     * @param key      the key of the posting, possibly null
+     * @param id       the ID to clear
+     * @param <K>      the type of the keys
+     */
+    private static <K> void clear(@NotNull Map<K, BitSet> postings, K key, int id) {
+        BitSet posting = key == null ? null : postings.get(key);
+        if (posting != null) {
+            posting.clear(id);
+            if (posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The IDs of the wines holding a word, as a sorted array while they are few and as a bitmap afterwards.
+     */
+    private static final class Posting {
+        private int[] array = new int[2];
+        private int size;
+        private BitSet bitmap;
+
+        /**
+         * Adds an ID to the posting.
+         *
+         * @param id the ID
+         */
+        void add(int id) {
+            if (bitmap != null) {
+                bitmap.set(id);
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            if (size == ARRAY_POSTING_LIMIT) {
+                bitmap = new BitSet();
+                for (int i = 0; i < size; i++) {
+                    bitmap.set(array[i]);
+                }
+                bitmap.set(id);
+                array = null;
+                return;
+            }
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            int insertion = -index - 1;
+            System.arraycopy(array, insertion, array, insertion + 1, size - insertion);
+            array[insertion] = id;
+            size++;
+        }
+
+        /**
+         * Removes an ID from the posting.
+         *
+         * @param id the ID
+         */
+        void remove(int id) {
+            if (bitmap != null) {
+                bitmap.clear(id);
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(array, index + 1, array, index, size - index - 1);
+                size--;
+            }
+        }
+
+        /**
+         * Checks whether the posting holds no ID.
+         *
+         * @return true if the posting is empty
+         */
+        boolean isEmpty() {
+            return bitmap != null ? bitmap.isEmpty() : size == 0;
+        }
+
+        /**
+         * Sets the bits of the IDs of the posting in a bitmap.
+         *
+         * @param target the bitmap to add the IDs to
+         */
+        void addTo(@NotNull BitSet target) {
+            if (bitmap != null) {
+                target.or(bitmap);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                target.set(array[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Year;
+import java.util.*;
+
+/**
+ * The WineStore class holds many wines in columns of primitives rather than as Wine objects, for catalogs too large
+ * to keep one object per wine.
+ * <p>
+ * Each wine is a row, and the rows are kept in ID order. The IDs, versions, years, bottle sizes and colours are
+ * stored as ints, shorts and bytes, the prices as whole cents, and the assortment flags as booleans. The names, often
+ * repeated across vintages and bottle sizes, are dictionary encoded: each distinct name is stored once and the rows
+ * hold its code. The comments, mostly unique, are held as plain references. A row takes about thirty bytes besides
+ * the texts, against more than a hundred for a Wine with its year and list slot.
+ * <p>
+ * Wines are read back as views created on demand with {@link #getWine(int)}, {@link #wineAt(int)} and
+ * {@link #getWinesAfter(int, int)}. The store keeps no reference to them: a change made to a view is only stored
+ * once the view is put back with {@link #put(Wine)}. Aggregations such as {@link #getPriceCentsByYear()} scan the
+ * columns without creating any wine.
+ * <p>
+ * Names no longer used by any row stay in the dictionary until {@link #clear()}. The store isn't safe for use
+ * by several threads.
+ */
+public final class WineStore {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final byte NO_CODE = -1;
+    private static final BottleSize[] VOLUMES = BottleSize.values();
+    private static final Color[] COLORS = Color.values();
+
+    private final TextPool names = new TextPool();
+    private int[] ids;
+    private int[] nameCodes;
+    private String[] comments;
+    private short[] years;
+    private byte[] volumes;
+    private byte[] colors;
+    private long[] priceCents;
+    private boolean[] inAssortment;
+    private int[] versions;
+    private int size;
+
+    /**
+     * Constructs a new, empty WineStore.
+     */
+    public WineStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty WineStore with room for a number of wines.
+     *
+     * @param capacity the number of wines the store can hold before growing
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public WineStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        ids = new int[capacity];
+        nameCodes = new int[capacity];
+        comments = new String[capacity];
+        years = new short[capacity];
+        volumes = new byte[capacity];
+        colors = new byte[capacity];
+        priceCents = new long[capacity];
+        inAssortment = new boolean[capacity];
+        versions = new int[capacity];
+    }
+
+    /**
+     * Creates a store holding copies of wines.
+     *
+     * @param wines the wines to store
+     * @return a new WineStore holding the wines
+     */
+    public static @NotNull WineStore of(@NotNull Collection<? extends Wine> wines) {
+        WineStore store = new WineStore(wines.size());
+        wines.forEach(store::put);
+        return store;
+    }
+
+    /**
+     * Returns the number of wines in the store.
+     *
+     * @return the number of wines
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Stores a copy of a wine, replacing the wine with the same ID if there is one.
+     *
+     * @param wine the wine to store
+     * @throws IllegalArgumentException if the year doesn't fit in the store
+     */
+    public void put(@NotNull Wine wine) {
+        put(wine.getId(), wine.getName(), wine.getYear() == null ? 0 : wine.getYear().getValue(), wine.getVolume(),
+                wine.getColor(), wine.getPriceCents(), wine.getComment(), wine.isInAssortment(),
+                wine.getVersion());
+    }
+
+    /**
+     * Stores a wine from the values of its columns, replacing the wine with the same ID if there is one.
+     * <p>
+     * Rows read in ID order, such as those of a full table scan, are appended without moving any other row.
+     *
+     * @param id           the ID of the wine
+     * @param name         the name of the wine
+     * @param year         the year of the wine, or 0 if unknown
+     * @param volume       the bottle size
+     * @param color        the colour
+     * @param priceCents   the price, in cents
+     * @param comment      the comment
+     * @param inAssortment whether the wine belongs to an assortment
+     * @param version      the row version the wine was read with
+     * @throws IllegalArgumentException if the year doesn't fit in the store
+     */
+    public void put(int id, String name, int year, BottleSize volume, Color color, long priceCents,
+                    String comment, boolean inAssortment, int version) {
+        if (year < Short.MIN_VALUE || year > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+        int row = size > 0 && ids[size - 1] < id ? -size - 1 : rowOf(id);
+        if (row < 0) {
+            row = -row - 1;
+            insertRow(row);
+            ids[row] = id;
+        }
+        nameCodes[row] = names.encode(name);
+        comments[row] = comment;
+        years[row] = (short) year;
+        volumes[row] = volume == null ? NO_CODE : (byte) volume.ordinal();
+        colors[row] = color == null ? NO_CODE : (byte) color.ordinal();
+        this.priceCents[row] = priceCents;
+        this.inAssortment[row] = inAssortment;
+        versions[row] = version;
+    }
+
+    /**
+     * Removes a wine from the store.
+     *
+     * @param id the ID of the wine
+     * @return true if the store held the wine
+     */
+    public boolean remove(int id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        int moved = size - row - 1;
+        System.arraycopy(ids, row + 1, ids, row, moved);
+        System.arraycopy(nameCodes, row + 1, nameCodes, row, moved);
+        System.arraycopy(comments, row + 1, comments, row, moved);
+        System.arraycopy(years, row + 1, years, row, moved);
+        System.arraycopy(volumes, row + 1, volumes, row, moved);
+        System.arraycopy(colors, row + 1, colors, row, moved);
+        System.arraycopy(priceCents, row + 1, priceCents, row, moved);
+        System.arraycopy(versions, row + 1, versions, row, moved);
+        System.arraycopy(inAssortment, row + 1, inAssortment, row, moved);
+        size--;
+        comments[size] = null;
+        return true;
+    }
+
+    /**
+     * Removes every wine from the store, and empties the dictionary of names.
+     */
+    public void clear() {
+        Arrays.fill(comments, 0, size, null);
+        size = 0;
+        names.clear();
+    }
+
+    /**
+     * Finds the row of a wine.
+     *
+     * @param id the ID of the wine
+     * @return the row of the wine, or {@code -(insertion row) - 1} if the store doesn't hold it
+     */
+    public int rowOf(int id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Gets a view of a wine.
+     *
+     * @param id the ID of the wine
+     * @return an Optional containing a new Wine holding the stored values, or an empty Optional if the store
+     * doesn't hold the wine
+     */
+    public Optional<Wine> getWine(int id) {
+        int row = rowOf(id);
+        return row < 0 ? Optional.empty() : Optional.of(wineAt(row));
+    }
+
+    /**
+     * Gets a view of the wine of a row.
+     *
+     * @param row the row, from 0 to {@code size() - 1}
+     * @return a new Wine holding the values of the row
+     * @throws IndexOutOfBoundsException if the row doesn't exist
+     */
+    public @NotNull Wine wineAt(int row) {
+        Objects.checkIndex(row, size);
+        return new Wine(ids[row], names.decode(nameCodes[row]), years[row] == 0 ? null : Year.of(years[row]),
+                getVolume(row), getColor(row), priceCents[row], comments[row],
+                inAssortment[row], versions[row]);
+    }
+
+    /**
+     * Gets views of one page of wines, in ID order, for keyset pagination.
+     *
+     * @param lastId the ID of the last wine of the previous page, or {@link Integer#MIN_VALUE} for the first page
+     * @param limit  the maximum number of wines to return
+     * @return a List of at most {@code limit} new Wine objects with an ID greater than {@code lastId}
+     */
+    public List<Wine> getWinesAfter(int lastId, int limit) {
+        int row = rowOf(lastId);
+        row = row < 0 ? -row - 1 : row + 1;
+        int end = (int) Math.min(size, (long) row + limit);
+        List<Wine> page = new ArrayList<>(Math.max(0, end - row));
+        for (; row < end; row++) {
+            page.add(wineAt(row));
+        }
+        return page;
+    }
+
+    /**
+     * Gets the ID of the wine of a row.
+     *
+     * @param row the row
+     * @return the ID of the wine
+     */
+    public int getId(int row) {
+        return ids[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Gets the year of the wine of a row.
+     *
+     * @param row the row
+     * @return the year, or 0 if unknown
+     */
+    public int getYear(int row) {
+        return years[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Gets the bottle size of the wine of a row.
+     *
+     * @param row the row
+     * @return the bottle size, or null if unknown
+     */
+    public @Nullable BottleSize getVolume(int row) {
+        byte code = volumes[Objects.checkIndex(row, size)];
+        return code == NO_CODE ? null : VOLUMES[code];
+    }
+
+    /**
+     * Gets the colour of the wine of a row.
+     *
+     * @param row the row
+     * @return the colour, or null if unknown
+     */
+    public @Nullable Color getColor(int row) {
+        byte code = colors[Objects.checkIndex(row, size)];
+        return code == NO_CODE ? null : COLORS[code];
+    }
+
+    /**
+     * Gets the price of the wine of a row.
+     *
+     * @param row the row
+     * @return the price, in cents
+     */
+    public long getPriceCents(int row) {
+        return priceCents[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Checks whether the wine of a row belongs to an assortment.
+     *
+     * @param row the row
+     * @return true if the wine is in an assortment
+     */
+    public boolean isInAssortment(int row) {
+        return inAssortment[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Computes the total price of the wines of the store.
+     *
+     * @return the sum of the prices, in cents
+     */
+    public long getTotalPriceCents() {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total += priceCents[row];
+        }
+        return total;
+    }
+
+    /**
+     * Computes the total price of the wines of each year, scanning the year and price columns.
+     *
+     * @return the sum of the prices of the wines of each year, in cents, by year; wines of unknown year are under 0
+     */
+    public @NotNull NavigableMap<Integer, Long> getPriceCentsByYear() {
+        NavigableMap<Integer, Long> byYear = new TreeMap<>();
+        if (size == 0) {
+            return byYear;
+        }
+        int minYear = Short.MAX_VALUE;
+        int maxYear = Short.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            minYear = Math.min(minYear, years[row]);
+            maxYear = Math.max(maxYear, years[row]);
+        }
+        long[] totals = new long[maxYear - minYear + 1];
+        int[] counts = new int[totals.length];
+        for (int row = 0; row < size; row++) {
+            totals[years[row] - minYear] += priceCents[row];
+            counts[years[row] - minYear]++;
+        }
+        for (int slot = 0; slot < totals.length; slot++) {
+            if (counts[slot] > 0) {
+                byYear.put(slot + minYear, totals[slot]);
+            }
+        }
+        return byYear;
+    }
+
+    /**
+     * Counts the wines of each colour, scanning the colour column once.
+     *
+     * @return the number of wines of each colour found in the store; wines of unknown colour aren't counted
+     */
+    public @NotNull Map<Color, Integer> countByColor() {
+        int[] counts = new int[COLORS.length];
+        for (int row = 0; row < size; row++) {
+            if (colors[row] != NO_CODE) {
+                counts[colors[row]]++;
+            }
+        }
+        Map<Color, Integer> byColor = new EnumMap<>(Color.class);
+        for (Color color : COLORS) {
+            if (counts[color.ordinal()] > 0) {
+                byColor.put(color, counts[color.ordinal()]);
+            }
+        }
+        return byColor;
+    }
+
+    /**
+     * Opens an empty row, growing the columns if they are full.
+     *
+     * @param row the row to open
+     */
+    private void insertRow(int row) {
+        if (size == ids.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            comments = Arrays.copyOf(comments, capacity);
+            years = Arrays.copyOf(years, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            inAssortment = Arrays.copyOf(inAssortment, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        int moved = size - row;
+        if (moved > 0) {
+            System.arraycopy(ids, row, ids, row + 1, moved);
+            System.arraycopy(nameCodes, row, nameCodes, row + 1, moved);
+            System.arraycopy(comments, row, comments, row + 1, moved);
+            System.arraycopy(years, row, years, row + 1, moved);
+            System.arraycopy(volumes, row, volumes, row + 1, moved);
+            System.arraycopy(colors, row, colors, row + 1, moved);
+            System.arraycopy(priceCents, row, priceCents, row + 1, moved);
+            System.arraycopy(versions, row, versions, row + 1, moved);
+            System.arraycopy(inAssortment, row, inAssortment, row + 1, moved);
+        }
+        size++;
+    }
+
+    /**
+     * A dictionary of texts, each stored once and referred to by its code.
+     */
+    private static final class TextPool {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] texts = new String[DEFAULT_CAPACITY];
+
+        /**
+         * Gets the code of a text, adding it to the dictionary if needed.
+         *
+         * @param text the text, possibly null
+         * @return the code of the text, or -1 for null
+         */
+        int encode(String text) {
+            if (text == null) {
+                return NO_CODE;
+            }
+            Integer code = codes.get(text);
+            if (code != null) {
+                return code;
+            }
+            int newCode = codes.size();
+            if (newCode == texts.length) {
+                texts = Arrays.copyOf(texts, newCode * 2);
+            }
+            texts[newCode] = text;
+            codes.put(text, newCode);
+            return newCode;
+        }
+
+        /**
+         * Gets the text of a code.
+         *
+         * @param code the code, or -1 for null
+         * @return the text
+         */
+        String decode(int code) {
+            return code == NO_CODE ? null : texts[code];
+        }
+
+        /**
+         * Empties the dictionary.
+         */
+        void clear() {
+            codes.clear();
+            texts = new String[DEFAULT_CAPACITY];
+        }
+    }
+}
@@ -6,8 +6,12 @@
  * <ul>
  *     <li>Wine: Represents the data and operations related to a single wine item in stock.</li>
  *     <li>Assortment: Represents the collection of wines, likely used for organizing or grouping wines together.
+ *     <li>AssortmentOutcome: Enum representing the result of adding a wine to, or removing a wine from, an assortment.
  *     <li>BottleSize: Enum representing the various possible sizes of wine bottles.
  *     <li>Color: Enum representing the different possible colors of wines.
+ *     <li>Money: Conversions of amounts of money held as a number of cents, for exact prices and totals.
+ *     <li>WineSearchIndex: Inverted index answering type-ahead searches over the wines held in memory.
+ *     <li>WineStore: Columnar store of wines in primitive arrays, for catalogs too large to hold one object per wine.
  * </ul>
  */
 package eu.lilithmonodia.winestock.data;
\ No newline at end of file
@@ -0,0 +1,87 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+
+/**
+ * The ChangeEvent record describes a row-level change published by the {@code winestock_notify_change} trigger
+ * on the {@link ChangeListener#CHANNEL} channel.
+ *
+ * @param table                the table of the changed row
+ * @param operation            the kind of change
+ * @param id                   the wno or ano of the changed row
+ * @param assortmentId         for wines, the ano of the assortment holding the wine after the change, or null
+ * @param previousAssortmentId for wines, the ano of the assortment holding the wine before the change, or null
+ */
+public record ChangeEvent(@NotNull Table table,
+                          @NotNull Operation operation,
+                          int id,
+                          Integer assortmentId,
+                          Integer previousAssortmentId) {
+
+    /**
+     * The tables whose changes are published.
+     */
+    public enum Table {
+        /**
+         * The public.wine table.
+         */
+        WINE,
+        /**
+         * The public.assortment table.
+         */
+        ASSORTMENT
+    }
+
+    /**
+     * The kinds of row-level changes.
+     */
+    public enum Operation {
+        /**
+         * A row was inserted.
+         */
+        INSERT,
+        /**
+         * A row was updated.
+         */
+        UPDATE,
+        /**
+         * A row was deleted.
+         */
+        DELETE
+    }
+
+    /**
+     * Parses a notification payload of the form {@code table,operation,id,assortment,previous_assortment}.
+     *
+     * @param payload the payload of the notification
+     * @return the ChangeEvent described by the payload
+     * @throws IllegalArgumentException if the payload is malformed
+     */
+    public static @NotNull ChangeEvent parse(@NotNull String payload) {
+        String[] fields = payload.split(",", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Malformed change notification: " + payload);
+        }
+        try {
+            return new ChangeEvent(Table.valueOf(fields[0].toUpperCase(Locale.ROOT)),
+                    Operation.valueOf(fields[1]),
+                    Integer.parseInt(fields[2]),
+                    parseOptionalId(fields[3]),
+                    parseOptionalId(fields[4]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed change notification: " + payload, e);
+        }
+    }
+
+    /**
+     * Parses an optional ID field.
+     *
+     * @param field the field, empty when the ID is NULL
+     * @return the ID, or null
+     */
+    private static Integer parseOptionalId(@NotNull String field) {
+        return field.isEmpty() ? null : Integer.valueOf(field);
+    }
+}
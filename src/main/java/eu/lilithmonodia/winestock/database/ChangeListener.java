@@ -0,0 +1,208 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Listens for the row-level changes published by the database triggers and hands them to a consumer.
+ * <p>
+ * The listener holds its own connection, outside the connection pool, on which it runs
+ * {@code LISTEN winestock_changes} and then waits for notifications on a daemon thread.
+ * Notifications caused by the connections of the pool are skipped, since the application already applies its own
+ * changes. If the connection is lost, the listener reconnects with an increasing delay and then asks for a full
+ * resynchronisation, since the changes made in the meantime weren't delivered.
+ * <p>
+ * The consumers are called on the listener thread.
+ */
+public final class ChangeListener implements AutoCloseable {
+    /**
+     * The channel on which the triggers publish the changes.
+     */
+    public static final String CHANNEL = "winestock_changes";
+    private static final Logger LOGGER = LogManager.getLogger(ChangeListener.class);
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 500;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    private final ConnectionPool pool;
+    private final Consumer<ChangeEvent> onChange;
+    private final Runnable onResync;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Connection connection;
+
+    /**
+     * Constructs a new ChangeListener. It starts listening once {@link #start()} is called.
+     *
+     * @param pool     the connection pool whose credentials are used and whose own changes are skipped
+     * @param onChange the consumer receiving the changes made by other clients
+     * @param onResync the action run after a reconnection, when changes may have been missed
+     */
+    ChangeListener(@NotNull ConnectionPool pool, @NotNull Consumer<ChangeEvent> onChange, @NotNull Runnable onResync) {
+        this.pool = pool;
+        this.onChange = onChange;
+        this.onResync = onResync;
+        this.thread = new Thread(this::run, "winestock-change-listener");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the listener thread.
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Checks whether the listener currently holds a connection subscribed to the channel.
+     *
+     * @return true if changes are being received
+     */
+    public boolean isListening() {
+        return connection != null;
+    }
+
+    /**
+     * Stops the listener thread and closes its connection.
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        closeConnection();
+        try {
+            thread.join(POLL_TIMEOUT_MILLIS * 2L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Listens until the listener is closed, reconnecting whenever the connection is lost.
+     */
+    private void run() {
+        long retryDelay = INITIAL_RETRY_DELAY_MILLIS;
+        boolean reconnecting = false;
+        while (running) {
+            try {
+                PGConnection pgConnection = subscribe();
+                if (reconnecting) {
+                    LOGGER.info("Change listener reconnected");
+                    onResync.run();
+                }
+                retryDelay = INITIAL_RETRY_DELAY_MILLIS;
+                reconnecting = true;
+                receive(pgConnection);
+            } catch (SQLException e) {
+                closeConnection();
+                if (!running) {
+                    break;
+                }
+                LOGGER.warn("Change listener disconnected, retrying in {} ms: {}", retryDelay, e.getMessage());
+                reconnecting = true;
+                if (!sleep(retryDelay)) {
+                    break;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+        closeConnection();
+    }
+
+    /**
+     * Opens the listener connection and subscribes it to the channel.
+     *
+     * @return the subscribed connection
+     * @throws SQLException if the connection can't be established or the subscription fails
+     */
+    private @NotNull PGConnection subscribe() throws SQLException {
+        Connection newConnection = pool.openDedicatedConnection();
+        try (Statement statement = newConnection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        } catch (SQLException e) {
+            newConnection.close();
+            throw e;
+        }
+        connection = newConnection;
+        return newConnection.unwrap(PGConnection.class);
+    }
+
+    /**
+     * Waits for notifications and dispatches them until the listener is closed.
+     *
+     * @param pgConnection the subscribed connection
+     * @throws SQLException if the connection is lost
+     */
+    private void receive(@NotNull PGConnection pgConnection) throws SQLException {
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+            if (notifications == null) {
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                if (!pool.isOwnBackend(notification.getPID())) {
+                    dispatch(notification.getParameter());
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a notification payload and hands the change to the consumer.
+     *
+     * @param payload the payload of the notification
+     */
+    private void dispatch(@NotNull String payload) {
+        ChangeEvent event;
+        try {
+            event = ChangeEvent.parse(payload);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Ignoring change notification: {}", e.getMessage());
+            return;
+        }
+        try {
+            onChange.accept(event);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error handling change notification {}: {}", payload, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits before the next reconnection attempt.
+     *
+     * @param millis the time to wait
+     * @return false if the listener was interrupted while waiting
+     */
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Closes the listener connection, if any.
+     */
+    private void closeConnection() {
+        Connection current = connection;
+        connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                LOGGER.warn("Error closing change listener connection: {}", e.getMessage());
+            }
+        }
+    }
+}
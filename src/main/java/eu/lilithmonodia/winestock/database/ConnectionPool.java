@@ -0,0 +1,380 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of PostgreSQL connections.
+ * <p>
+ * The pool keeps at least {@link PoolConfiguration#minSize()} connections open and never opens more than
+ * {@link PoolConfiguration#maxSize()}. Connections are validated when borrowed, idle connections above the
+ * minimum are closed after {@link PoolConfiguration#idleTimeout()}, and connections held for longer than
+ * {@link PoolConfiguration#leakDetectionThreshold()} are reported along with the stack trace of the borrower.
+ * Each connection keeps up to {@link PoolConfiguration#statementCacheSize()} prepared statements cached for its
+ * whole life, and the pool counts the cache hits and misses.
+ * The pool also remembers the server process of each of its connections, so that change notifications caused by
+ * the application itself can be told apart from those of other clients.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(ConnectionPool.class);
+    private final String url;
+    private final String user;
+    private final String password;
+    private final PoolConfiguration configuration;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Map<PooledConnection, Integer> backendPids = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new ConnectionPool and opens its minimum number of connections.
+     *
+     * @param url           the URL for the database connection
+     * @param user          the username for the database connection
+     * @param password      the password for the database connection
+     * @param configuration the sizing and timing settings of the pool
+     * @throws SQLException if the initial connections can't be established
+     */
+    public ConnectionPool(String url, String user, String password, @NotNull PoolConfiguration configuration) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.configuration = configuration;
+        this.permits = new Semaphore(configuration.maxSize(), true);
+        try {
+            fillToMinimum();
+        } catch (SQLException e) {
+            closeIdleConnections();
+            throw e;
+        }
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "winestock-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, Math.min(configuration.idleTimeout().toMillis(), configuration.leakDetectionThreshold().toMillis()) / 2);
+        this.housekeeper.scheduleAtFixedRate(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle and the pool isn't full.
+     * <p>
+     * The returned connection must be closed to give it back to the pool.
+     *
+     * @return a validated PooledConnection
+     * @throws SQLException if the pool is closed, no connection became available in time,
+     *                      or a new connection can't be established
+     */
+    public @NotNull PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(configuration.borrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + configuration.borrowTimeout().toMillis()
+                        + " ms waiting for a pooled connection (" + borrowed.size() + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+        try {
+            PooledConnection pooledConnection = takeValidConnection();
+            pooledConnection.markBorrowed();
+            borrowed.add(pooledConnection);
+            return pooledConnection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool.
+     * <p>
+     * Any transaction left open by the borrower is rolled back. Connections that are broken, or returned after the
+     * pool has been closed, are closed instead of being reused.
+     *
+     * @param pooledConnection the connection to give back
+     */
+    void release(@NotNull PooledConnection pooledConnection) {
+        if (!pooledConnection.markReturned()) {
+            return;
+        }
+        borrowed.remove(pooledConnection);
+        try {
+            Connection connection = pooledConnection.getConnection();
+            if (closed || connection.isClosed()) {
+                discard(pooledConnection);
+            } else {
+                connection.rollback();
+                idle.offerFirst(pooledConnection);
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Discarding connection that failed to reset: {}", e.getMessage());
+            discard(pooledConnection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns the number of connections currently borrowed.
+     *
+     * @return the number of active connections
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Returns the number of connections currently waiting in the pool.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of prepared statements served from the per-connection statement caches.
+     *
+     * @return the number of statement cache hits since the pool was created
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * Returns the number of prepared statements that had to be prepared because they weren't cached.
+     *
+     * @return the number of statement cache misses since the pool was created
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * Records a statement cache hit.
+     */
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    /**
+     * Records a statement cache miss.
+     */
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    /**
+     * Checks whether a server process serves one of the connections of the pool.
+     *
+     * @param backendPid the process ID of a PostgreSQL backend
+     * @return true if the backend belongs to a connection of this pool
+     */
+    boolean isOwnBackend(int backendPid) {
+        return backendPids.containsValue(backendPid);
+    }
+
+    /**
+     * Opens a connection with the credentials of the pool, outside the pool and in auto-commit mode.
+     * <p>
+     * It is meant for long-lived sessions, such as the change listener, that must not hold a pooled slot.
+     * The caller is responsible for closing it.
+     *
+     * @return the new Connection
+     * @throws SQLException if the connection can't be established
+     */
+    @NotNull Connection openDedicatedConnection() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Closes the pool and every idle connection. Borrowed connections are closed as they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        closeIdleConnections();
+    }
+
+    /**
+     * Takes the most recently used idle connection that passes validation, or opens a new one.
+     *
+     * @return a usable PooledConnection
+     * @throws SQLException if a new connection can't be established
+     */
+    private @NotNull PooledConnection takeValidConnection() throws SQLException {
+        while (true) {
+            PooledConnection candidate = idle.pollFirst();
+            if (candidate == null) {
+                if (reserveSlot()) {
+                    return open();
+                }
+                // Another connection is being handed back; wait for it rather than spinning.
+                candidate = pollIdle();
+                if (candidate == null) {
+                    continue;
+                }
+            }
+            if (isValid(candidate)) {
+                return candidate;
+            }
+            LOGGER.warn("Discarding pooled connection that failed validation");
+            discard(candidate);
+        }
+    }
+
+    /**
+     * Waits briefly for a connection to be handed back to the pool.
+     *
+     * @return the returned connection, or null if none came back in time
+     * @throws SQLException if the thread is interrupted while waiting
+     */
+    private PooledConnection pollIdle() throws SQLException {
+        try {
+            return idle.pollFirst(10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+    }
+
+    /**
+     * Checks whether a pooled connection is still usable.
+     *
+     * @param pooledConnection the connection to check
+     * @return true if the connection answered within the validation timeout, false otherwise
+     */
+    private boolean isValid(@NotNull PooledConnection pooledConnection) {
+        try {
+            return pooledConnection.getConnection().isValid((int) Math.max(1, configuration.validationTimeout().toSeconds()));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reserves room for one more physical connection.
+     *
+     * @return true if the pool wasn't full, false otherwise
+     */
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = totalConnections.get();
+            if (current >= configuration.maxSize()) {
+                return false;
+            }
+        } while (!totalConnections.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Opens a new physical connection for a slot that has already been reserved.
+     *
+     * @return the new PooledConnection
+     * @throws SQLException if the connection can't be established
+     */
+    private @NotNull PooledConnection open() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            connection.setAutoCommit(false);
+            PooledConnection pooledConnection = new PooledConnection(this, connection, configuration.statementCacheSize());
+            backendPids.put(pooledConnection, connection.unwrap(PGConnection.class).getBackendPID());
+            return pooledConnection;
+        } catch (SQLException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a physical connection and frees its slot.
+     *
+     * @param pooledConnection the connection to close
+     */
+    private void discard(@NotNull PooledConnection pooledConnection) {
+        totalConnections.decrementAndGet();
+        backendPids.remove(pooledConnection);
+        try {
+            pooledConnection.closeStatements();
+            pooledConnection.getConnection().close();
+        } catch (SQLException e) {
+            LOGGER.warn("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Opens connections until the pool holds its minimum number of connections.
+     *
+     * @throws SQLException if a connection can't be established
+     */
+    private void fillToMinimum() throws SQLException {
+        while (totalConnections.get() < configuration.minSize() && reserveSlot()) {
+            idle.offerLast(open());
+        }
+    }
+
+    /**
+     * Closes every idle connection.
+     */
+    private void closeIdleConnections() {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idle.pollFirst()) != null) {
+            discard(pooledConnection);
+        }
+    }
+
+    /**
+     * Periodic maintenance: closes idle connections above the minimum, reports leaked connections
+     * and reopens connections up to the minimum.
+     */
+    private void housekeep() {
+        long now = System.nanoTime();
+        long idleTimeout = configuration.idleTimeout().toNanos();
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && totalConnections.get() > configuration.minSize()) {
+            PooledConnection candidate = oldestFirst.next();
+            if (now - candidate.getLastUsedNanos() > idleTimeout && idle.remove(candidate)) {
+                discard(candidate);
+            }
+        }
+
+        long leakThreshold = configuration.leakDetectionThreshold().toNanos();
+        for (PooledConnection pooledConnection : borrowed) {
+            Throwable borrowSite = pooledConnection.getBorrowSite();
+            if (borrowSite != null && now - pooledConnection.getBorrowedAtNanos() > leakThreshold && pooledConnection.reportLeak()) {
+                LOGGER.warn("Possible connection leak: connection borrowed for more than {} ms", configuration.leakDetectionThreshold().toMillis(), borrowSite);
+            }
+        }
+
+        try {
+            if (!closed) {
+                fillToMinimum();
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error replenishing connection pool: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * The PoolConfiguration record holds the sizing and timing settings of a {@link ConnectionPool}.
+ *
+ * @param minSize                the number of connections the pool keeps open even when idle
+ * @param maxSize                the maximum number of connections the pool may open at once
+ * @param idleTimeout            how long a connection above {@code minSize} may stay idle before being closed
+ * @param borrowTimeout          how long a caller waits for a free connection before giving up
+ * @param leakDetectionThreshold how long a connection may stay borrowed before a leak warning is logged
+ * @param validationTimeout      how long the validation query run on borrow may take
+ * @param statementCacheSize     the number of prepared statements cached per connection, 0 to disable the cache
+ */
+public record PoolConfiguration(int minSize,
+                                int maxSize,
+                                @NotNull Duration idleTimeout,
+                                @NotNull Duration borrowTimeout,
+                                @NotNull Duration leakDetectionThreshold,
+                                @NotNull Duration validationTimeout,
+                                int statementCacheSize) {
+
+    /**
+     * Validates the configuration values.
+     *
+     * @throws IllegalArgumentException if the sizes are inconsistent or a duration is not positive
+     */
+    public PoolConfiguration {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()
+                || borrowTimeout.isNegative() || borrowTimeout.isZero()
+                || leakDetectionThreshold.isNegative() || leakDetectionThreshold.isZero()
+                || validationTimeout.isNegative() || validationTimeout.isZero()) {
+            throw new IllegalArgumentException("Pool durations must be positive");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+    }
+
+    /**
+     * Returns the default configuration: one to eight connections, ten minutes of idle time,
+     * thirty seconds of borrow timeout, one minute before a leak is reported, five seconds of validation
+     * and 64 cached statements per connection.
+     *
+     * @return the default PoolConfiguration
+     */
+    public static @NotNull PoolConfiguration defaults() {
+        return new PoolConfiguration(1, 8,
+                Duration.ofMinutes(10),
+                Duration.ofSeconds(30),
+                Duration.ofMinutes(1),
+                Duration.ofSeconds(5),
+                64);
+    }
+}
@@ -0,0 +1,371 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+import org.postgresql.PGStatement;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A PooledConnection wraps a physical {@link Connection} owned by a {@link ConnectionPool}.
+ * <p>
+ * Closing a PooledConnection does not close the physical connection: it hands it back to the pool,
+ * which makes it usable in try-with-resources blocks around each database operation.
+ * <p>
+ * Prepared statements are cached per connection, keyed by their SQL. Closing a statement obtained from
+ * {@link #prepareStatement(String)} hands it back to the cache instead of closing it, so repeated operations
+ * reuse the same server-side prepared statement for as long as the physical connection lives.
+ */
+public final class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<StatementKey, CachedStatement> statementCache;
+    private volatile long lastUsedNanos;
+    private volatile long borrowedAtNanos;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+    private boolean borrowed;
+
+    /**
+     * Constructs a new PooledConnection around the given physical connection.
+     *
+     * @param pool       the pool owning the connection
+     * @param connection the physical connection
+     */
+    PooledConnection(@NotNull ConnectionPool pool, @NotNull Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.lastUsedNanos = System.nanoTime();
+        this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the underlying physical connection.
+     *
+     * @return the physical Connection
+     */
+    public @NotNull Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Creates a PreparedStatement on the underlying connection.
+     *
+     * @param sql the SQL statement
+     * @return the PreparedStatement
+     * @throws SQLException if the statement can't be prepared
+     */
+    public @NotNull PreparedStatement prepareStatement(@NotNull String sql) throws SQLException {
+        return prepareCached(new StatementKey(sql, Statement.NO_GENERATED_KEYS, null));
+    }
+
+    /**
+     * Creates a PreparedStatement on the underlying connection with the given auto-generated keys flag.
+     *
+     * @param sql               the SQL statement
+     * @param autoGeneratedKeys a flag indicating whether auto-generated keys should be returned
+     * @return the PreparedStatement
+     * @throws SQLException if the statement can't be prepared
+     */
+    public @NotNull PreparedStatement prepareStatement(@NotNull String sql, int autoGeneratedKeys) throws SQLException {
+        return prepareCached(new StatementKey(sql, autoGeneratedKeys, null));
+    }
+
+    /**
+     * Creates a PreparedStatement on the underlying connection that returns the given generated columns.
+     *
+     * @param sql         the SQL statement
+     * @param columnNames the names of the generated columns to return
+     * @return the PreparedStatement
+     * @throws SQLException if the statement can't be prepared
+     */
+    public @NotNull PreparedStatement prepareStatement(@NotNull String sql, String @NotNull [] columnNames) throws SQLException {
+        return prepareCached(new StatementKey(sql, Statement.RETURN_GENERATED_KEYS, String.join(",", columnNames)));
+    }
+
+    /**
+     * Returns a handle on the cached statement for the given key, preparing and caching it on a miss.
+     * <p>
+     * If the cached statement is already in use, as with nested use of the same SQL, a plain uncached
+     * statement is returned instead.
+     *
+     * @param key the SQL and generated keys settings of the statement
+     * @return a PreparedStatement whose {@code close()} hands the statement back to the cache
+     * @throws SQLException if the statement can't be prepared
+     */
+    private @NotNull PreparedStatement prepareCached(@NotNull StatementKey key) throws SQLException {
+        CachedStatement cached = statementCache.get(key);
+        if (cached == null) {
+            pool.recordStatementCacheMiss();
+            cached = new CachedStatement(key.prepare(connection));
+            statementCache.put(key, cached);
+        } else if (cached.inUse) {
+            pool.recordStatementCacheMiss();
+            return key.prepare(connection);
+        } else {
+            pool.recordStatementCacheHit();
+        }
+        cached.inUse = true;
+        return cached.handle;
+    }
+
+    /**
+     * Closes every cached statement. Called by the pool before the physical connection is closed.
+     */
+    void closeStatements() {
+        for (CachedStatement cached : statementCache.values()) {
+            cached.evict();
+        }
+        statementCache.clear();
+    }
+
+    /**
+     * Commits the current transaction of the underlying connection.
+     *
+     * @throws SQLException if the commit fails
+     */
+    public void commit() throws SQLException {
+        connection.commit();
+    }
+
+    /**
+     * Rolls back the current transaction of the underlying connection.
+     *
+     * @throws SQLException if the rollback fails
+     */
+    public void rollback() throws SQLException {
+        connection.rollback();
+    }
+
+    /**
+     * Returns the connection to its pool.
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    /**
+     * Marks the connection as borrowed and records where it was borrowed from for leak detection.
+     */
+    synchronized void markBorrowed() {
+        borrowed = true;
+        borrowedAtNanos = System.nanoTime();
+        borrowSite = new Throwable("Connection borrowed here");
+        leakReported = false;
+    }
+
+    /**
+     * Marks the connection as returned to the pool.
+     *
+     * @return true if the connection was borrowed, false if it had already been returned
+     */
+    synchronized boolean markReturned() {
+        if (!borrowed) {
+            return false;
+        }
+        borrowed = false;
+        borrowSite = null;
+        lastUsedNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Returns the time at which the connection was last returned to the pool.
+     *
+     * @return the last use time, in {@link System#nanoTime()} units
+     */
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    /**
+     * Returns the time at which the connection was borrowed.
+     *
+     * @return the borrow time, in {@link System#nanoTime()} units
+     */
+    long getBorrowedAtNanos() {
+        return borrowedAtNanos;
+    }
+
+    /**
+     * Returns the stack trace recorded when the connection was borrowed.
+     *
+     * @return the borrow site, or null if the connection isn't borrowed
+     */
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    /**
+     * Flags the connection as reported for leaking, so that the warning is only logged once per borrow.
+     *
+     * @return true if this is the first report for the current borrow, false otherwise
+     */
+    boolean reportLeak() {
+        if (leakReported) {
+            return false;
+        }
+        leakReported = true;
+        return true;
+    }
+
+    /**
+     * The cache key of a prepared statement: its SQL and how it returns generated keys.
+     *
+     * @param sql               the SQL statement
+     * @param autoGeneratedKeys the auto-generated keys flag
+     * @param columnNames       the comma-separated names of the generated columns to return, or null
+     */
+    private record StatementKey(@NotNull String sql, int autoGeneratedKeys, String columnNames) {
+        /**
+         * Prepares the statement described by this key.
+         *
+         * @param connection the connection to prepare the statement on
+         * @return the new PreparedStatement
+         * @throws SQLException if the statement can't be prepared
+         */
+        @NotNull PreparedStatement prepare(@NotNull Connection connection) throws SQLException {
+            if (columnNames != null) {
+                return connection.prepareStatement(sql, columnNames.split(","));
+            }
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+    }
+
+    /**
+     * A cached prepared statement and the handle given out to callers.
+     */
+    private static final class CachedStatement {
+        // The setters of the statement settings that outlive an execution, restored when the statement is released.
+        private static final Set<String> SETTINGS = Set.of("setFetchSize", "setFetchDirection", "setMaxRows",
+                "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout");
+        private final PreparedStatement statement;
+        private final PreparedStatement handle;
+        private final int defaultFetchSize;
+        private final int defaultFetchDirection;
+        private final long defaultMaxRows;
+        private final int defaultMaxFieldSize;
+        private final int defaultQueryTimeout;
+        private ResultSet generatedKeys;
+        private boolean settingsChanged;
+        private boolean inUse;
+        private boolean evicted;
+
+        /**
+         * Wraps a prepared statement for caching. Cached statements are prepared on the server from their first
+         * execution, rather than after the driver's default threshold of five executions.
+         *
+         * @param statement the statement to cache
+         * @throws SQLException if the statement can't be configured
+         */
+        CachedStatement(@NotNull PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            if (statement.isWrapperFor(PGStatement.class)) {
+                statement.unwrap(PGStatement.class).setPrepareThreshold(1);
+            }
+            this.defaultFetchSize = statement.getFetchSize();
+            this.defaultFetchDirection = statement.getFetchDirection();
+            this.defaultMaxRows = statement.getLargeMaxRows();
+            this.defaultMaxFieldSize = statement.getMaxFieldSize();
+            this.defaultQueryTimeout = statement.getQueryTimeout();
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if ("close".equals(name) && method.getParameterCount() == 0) {
+                            release();
+                            return null;
+                        }
+                        if (SETTINGS.contains(name)) {
+                            settingsChanged = true;
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if ("getGeneratedKeys".equals(name)) {
+                            generatedKeys = (ResultSet) result;
+                        }
+                        return result;
+                    });
+        }
+
+        /**
+         * Hands the statement back to the cache, closing its open result and generated keys, clearing its parameters
+         * and pending batch, and restoring the settings changed by the caller, such as the fetch size of a stream.
+         *
+         * @throws SQLException if the statement can't be reset
+         */
+        private void release() throws SQLException {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (evicted) {
+                statement.close();
+            } else {
+                ResultSet resultSet = statement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                if (generatedKeys != null) {
+                    generatedKeys.close();
+                    generatedKeys = null;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                if (settingsChanged) {
+                    restoreSettings();
+                }
+            }
+        }
+
+        /**
+         * Restores the settings the statement was cached with.
+         *
+         * @throws SQLException if a setting can't be restored
+         */
+        private void restoreSettings() throws SQLException {
+            statement.setFetchSize(defaultFetchSize);
+            statement.setFetchDirection(defaultFetchDirection);
+            statement.setLargeMaxRows(defaultMaxRows);
+            statement.setMaxFieldSize(defaultMaxFieldSize);
+            statement.setQueryTimeout(defaultQueryTimeout);
+            settingsChanged = false;
+        }
+
+        /**
+         * Removes the statement from the cache, closing it now or, if in use, when it is handed back.
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // The statement is being dropped, and closing the connection will release it anyway.
+                }
+            }
+        }
+    }
+}
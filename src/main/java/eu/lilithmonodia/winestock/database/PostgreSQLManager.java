@@ -1,44 +1,62 @@
 package eu.lilithmonodia.winestock.database;
 
 import eu.lilithmonodia.winestock.data.Assortment;
-import eu.lilithmonodia.winestock.data.BottleSize;
-import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Money;
 import eu.lilithmonodia.winestock.data.Wine;
-import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
+import eu.lilithmonodia.winestock.data.WineStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyOut;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
-import java.time.Year;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.function.LongConsumer;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A class that manages PostgreSQL database operations for wines and assortments.
  */
 public class PostgreSQLManager {
     private static final Logger LOGGER = LogManager.getLogger(PostgreSQLManager.class);
-    private static final String WINE_SELECT_SQL = "SELECT wno, name, year, volume, color, price, color, comment FROM public.wine WHERE ano IS NULL";
+    private static final String WINE_SELECT_SQL = "SELECT wno, name, year, volume, color, price, comment, version FROM public.wine WHERE ano IS NULL";
+    private static final String WINE_SELECT_PAGE_SQL = "SELECT wno, name, year, volume, color, price, comment, version FROM public.wine WHERE ano IS NULL AND wno > ? ORDER BY wno LIMIT ?";
+    private static final String WINE_STORE_SELECT_SQL = "SELECT wno, name, year, volume, color, price, comment, version, ano FROM public.wine ORDER BY wno";
+    private static final String WINE_SELECT_BY_ID_SQL = "SELECT wno, name, year, volume, color, price, comment, version, ano FROM public.wine WHERE wno = ?";
     private static final String INSERT_WINE_SQL = "INSERT INTO public.wine(name, year, volume, color, price, comment) VALUES(?, ?, ?, ?, ?, ?)";
-    private static final String UPDATE_WINE_SQL = "UPDATE public.wine SET name = ?, year = ?, volume = ?, color = ?, price = ?, comment = ? WHERE wno = ?";
+    private static final String UPDATE_WINE_SQL = "UPDATE public.wine SET name = ?, year = ?, volume = ?, color = ?, price = ?, comment = ?, version = version + 1 WHERE wno = ? AND version = ?";
     private static final String DELETE_WINE_SQL = "DELETE FROM public.wine WHERE wno = ?";
-    private static final String ASSORTMENT_SELECT_SQL = "SELECT ano, year FROM public.assortment";
-    private static final String WINE_SELECT_ASSORTMENT_SQL = "SELECT wno, name, year, volume, color, price, color, comment, ano FROM public.wine WHERE wine.ano IN (SELECT ano FROM public.assortment WHERE ano = ?)";
+    private static final String ASSORTMENT_WITH_WINES_SELECT_SQL = "SELECT a.ano, a.year AS assortment_year, w.wno, w.name, w.year, w.volume, w.color, w.price, w.comment, w.version FROM public.assortment a LEFT JOIN public.wine w ON w.ano = a.ano ORDER BY a.ano, w.wno";
+    private static final String ASSORTMENT_WITH_WINES_SELECT_PAGE_SQL = "SELECT a.ano, a.year AS assortment_year, w.wno, w.name, w.year, w.volume, w.color, w.price, w.comment, w.version FROM (SELECT ano, year FROM public.assortment WHERE ano > ? ORDER BY ano LIMIT ?) a LEFT JOIN public.wine w ON w.ano = a.ano ORDER BY a.ano, w.wno";
+    private static final String ASSORTMENT_WITH_WINES_SELECT_BY_ID_SQL = "SELECT a.ano, a.year AS assortment_year, w.wno, w.name, w.year, w.volume, w.color, w.price, w.comment, w.version FROM public.assortment a LEFT JOIN public.wine w ON w.ano = a.ano WHERE a.ano = ? ORDER BY w.wno";
     private static final String INSERT_ASSORTMENT_SQL = "INSERT INTO public.assortment(year) VALUES(?)";
     private static final String DELETE_ASSORTMENT_SQL = "DELETE FROM public.assortment WHERE ano = ?";
-    private static final String UPDATE_WINE_IN_ASSORTMENT_SQL = "UPDATE public.wine SET ano = ? WHERE wno = ?";
+    private static final String UPDATE_WINE_IN_ASSORTMENT_SQL = "UPDATE public.wine SET ano = ?, version = version + 1 WHERE wno = ? AND version = ?";
+    private static final String WINE_EXISTS_SQL = "SELECT 1 FROM public.wine WHERE wno = ?";
+    private static final String ROW_VERSIONS_EXIST_SQL = "SELECT 1 FROM information_schema.columns WHERE table_schema = 'public' AND table_name = 'wine' AND column_name = 'version'";
+    private static final String COPY_WINE_IN_SQL = "COPY public.wine(name, year, volume, color, price, comment) FROM STDIN";
+    private static final String COPY_WINE_OUT_SQL = "COPY (SELECT wno, name, year, volume, color, price, comment, version, ano FROM public.wine ORDER BY wno) TO STDOUT";
+    private static final String[] WINE_GENERATED_KEYS = {"wno"};
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String CHANGE_NOTIFICATIONS_SCRIPT = "change_notifications.sql";
+    private static final String ROW_VERSIONS_SCRIPT = "row_versions.sql";
+    private static final String SEARCH_INDEXES_SCRIPT = "search_indexes.sql";
+    // The SQLState of a reference to an object that doesn't exist, such as the operator class of a missing extension.
+    private static final String UNDEFINED_OBJECT = "42704";
 
-
-    private final String url;
-    private final String user;
-    private final String password;
-    private Connection connection;
+    private final ConnectionPool pool;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private ChangeListener changeListener;
 
     /**
-     * Constructs a new PostgreSQLManager instance with the given credentials.
+     * Constructs a new PostgreSQLManager instance with the given credentials and the default pool settings.
      *
      * @param url      the URL for the database connection
      * @param user     the username for the database connection
@@ -46,53 +64,290 @@ public class PostgreSQLManager {
      * @throws SQLException if there is an error establishing the database connection
      */
     public PostgreSQLManager(String url, String user, String password) throws SQLException {
-        this.url = url;
-        this.user = user;
-        this.password = password;
-        this.connection = DriverManager.getConnection(url, user, password);
-        this.connection.setAutoCommit(false);
+        this(url, user, password, PoolConfiguration.defaults());
     }
 
     /**
-     * Establishes a connection to the PostgreSQL database using the provided credentials.
+     * Constructs a new PostgreSQLManager instance with the given credentials and pool settings.
      *
-     * @return the Connection object representing the database connection
+     * @param url               the URL for the database connection
+     * @param user              the username for the database connection
+     * @param password          the password for the database connection
+     * @param poolConfiguration the sizing and timing settings of the connection pool
      * @throws SQLException if there is an error establishing the database connection
      */
-    public Connection connect() throws SQLException {
-        if (this.connection == null || this.connection.isClosed()) {
-            this.connection = DriverManager.getConnection(url, user, password);
-            this.connection.setAutoCommit(false);
+    public PostgreSQLManager(String url, String user, String password, @NotNull PoolConfiguration poolConfiguration) throws SQLException {
+        this.pool = new ConnectionPool(url, user, password, poolConfiguration);
+    }
+
+    /**
+     * Borrows a connection to the PostgreSQL database from the connection pool.
+     * <p>
+     * The connection must be closed to give it back to the pool.
+     *
+     * @return the PooledConnection representing the database connection
+     * @throws SQLException if there is an error establishing the database connection
+     */
+    public PooledConnection connect() throws SQLException {
+        return pool.borrow();
+    }
+
+    /**
+     * Returns the number of prepared statements served from the per-connection statement caches.
+     *
+     * @return the number of statement cache hits
+     */
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    /**
+     * Returns the number of prepared statements that had to be prepared because they weren't cached.
+     *
+     * @return the number of statement cache misses
+     */
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
+    /**
+     * Returns the number of rows sent to the server per JDBC batch by the bulk insert methods.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows sent to the server per JDBC batch by the bulk insert methods.
+     *
+     * @param batchSize the batch size, at least 1
+     * @throws IllegalArgumentException if the batch size is lower than 1
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of rows fetched from the server per round trip by the read methods.
+     *
+     * @return the fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the number of rows fetched from the server per round trip by the read methods.
+     *
+     * @param fetchSize the fetch size, at least 1
+     * @throws IllegalArgumentException if the fetch size is lower than 1
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be at least 1");
         }
-        return this.connection;
+        this.fetchSize = fetchSize;
     }
 
     /**
      * Retrieves all wine records from the database.
+     * <p>
+     * The rows are read through a server-side cursor, {@link #getFetchSize()} rows at a time.
      *
      * @return a List of Wine objects representing the wine records
      * @throws SQLException if an error occurs while retrieving the wine records
      */
     public List<Wine> getAllWine() throws SQLException {
         List<Wine> wines = new ArrayList<>();
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(WINE_SELECT_SQL);
-             ResultSet resultSet = pstmt.executeQuery()) {
-            while (resultSet.next()) {
-                wines.add(Wine.builder().id(resultSet.getInt("wno"))
-                        .name(resultSet.getString("name"))
-                        .year(Year.of(resultSet.getInt("year")))
-                        .volume(BottleSize.doubleToBottleSize(resultSet.getDouble("volume")))
-                        .color(Color.valueOf(resultSet.getString("color")))
-                        .price(resultSet.getDouble("price"))
-                        .comment(resultSet.getString("comment")).build());
+        forEachWine(fetchSize, wines::add);
+        return wines;
+    }
+
+    /**
+     * Loads every wine record, whether or not it belongs to an assortment, into a columnar WineStore.
+     * <p>
+     * The rows are read in ID order through a server-side cursor, {@link #getFetchSize()} rows at a time, and stored
+     * without creating a Wine per row.
+     *
+     * @return a WineStore holding every wine, flagged as in an assortment if it belongs to one
+     * @throws SQLException if an error occurs while retrieving the wine records
+     */
+    public WineStore loadWineStore() throws SQLException {
+        WineStore store = new WineStore();
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(WINE_STORE_SELECT_SQL)) {
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                WineRowMapper mapper = new WineRowMapper(resultSet);
+                int anoColumn = resultSet.findColumn("ano");
+                while (resultSet.next()) {
+                    resultSet.getInt(anoColumn);
+                    mapper.mapInto(resultSet, store, !resultSet.wasNull());
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Retrieves one page of wine records, in ID order, using keyset pagination.
+     * <p>
+     * The query seeks directly to the first ID after {@code lastWno}, so its cost doesn't depend on
+     * how far into the table the page is.
+     *
+     * @param lastWno the ID of the last wine of the previous page, or {@link Integer#MIN_VALUE} for the first page
+     * @param limit   the maximum number of wines to return
+     * @return a List of at most {@code limit} Wine objects with an ID greater than {@code lastWno}
+     * @throws SQLException if an error occurs while retrieving the wine records
+     */
+    public List<Wine> getWinesAfter(int lastWno, int limit) throws SQLException {
+        List<Wine> wines = new ArrayList<>(limit);
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(WINE_SELECT_PAGE_SQL)) {
+            pstmt.setInt(1, lastWno);
+            pstmt.setInt(2, limit);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                WineRowMapper mapper = new WineRowMapper(resultSet);
+                while (resultSet.next()) {
+                    wines.add(mapper.map(resultSet));
+                }
             }
-        } catch (InvalidBottleVolumeException e) {
-            throw new IllegalArgumentException(e);
         }
         return wines;
     }
 
+    /**
+     * Retrieves a single wine record by ID, whether or not it belongs to an assortment.
+     *
+     * @param wno the ID of the wine
+     * @return an Optional containing the wine, flagged as in an assortment if it belongs to one,
+     * or an empty Optional if there is no wine with that ID
+     * @throws SQLException if an error occurs while retrieving the wine record
+     */
+    public Optional<Wine> getWine(int wno) throws SQLException {
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(WINE_SELECT_BY_ID_SQL)) {
+            pstmt.setInt(1, wno);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                Wine wine = new WineRowMapper(resultSet).map(resultSet);
+                resultSet.getInt("ano");
+                wine.setInAssortment(!resultSet.wasNull());
+                return Optional.of(wine);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the wine records matching a query, filtered and sorted by the database.
+     * <p>
+     * The rows are read through a server-side cursor, {@link #getFetchSize()} rows at a time. Wines that belong
+     * to an assortment are flagged as such.
+     *
+     * @param query the criteria, sort order and limit of the search
+     * @return a List of the matching Wine objects, in the order of the query
+     * @throws SQLException if an error occurs while retrieving the wine records
+     */
+    public List<Wine> findWines(@NotNull WineQuery query) throws SQLException {
+        WineQuery.Compiled compiled = query.compile();
+        List<Wine> wines = new ArrayList<>();
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(compiled.sql())) {
+            List<Object> parameters = compiled.parameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setObject(i + 1, parameters.get(i));
+            }
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                WineRowMapper mapper = new WineRowMapper(resultSet);
+                int anoColumn = resultSet.findColumn("ano");
+                while (resultSet.next()) {
+                    Wine wine = mapper.map(resultSet);
+                    resultSet.getInt(anoColumn);
+                    wine.setInAssortment(!resultSet.wasNull());
+                    wines.add(wine);
+                }
+            }
+        }
+        return wines;
+    }
+
+    /**
+     * Reads all wine records from the database through a server-side cursor and hands each one to a consumer.
+     * <p>
+     * Only {@code fetchSize} rows are held in memory at a time, whatever the size of the table.
+     *
+     * @param fetchSize the number of rows fetched from the server per round trip
+     * @param consumer  the consumer receiving the wines
+     * @throws SQLException if an error occurs while retrieving the wine records
+     */
+    public void forEachWine(int fetchSize, @NotNull Consumer<? super Wine> consumer) throws SQLException {
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(WINE_SELECT_SQL)) {
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                WineRowMapper mapper = new WineRowMapper(resultSet);
+                while (resultSet.next()) {
+                    consumer.accept(mapper.map(resultSet));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a lazily populated Stream over all wine records, read through a server-side cursor.
+     * <p>
+     * The stream holds a pooled connection until it is closed, so it must be used in a try-with-resources block.
+     * SQL errors raised while the stream is consumed are rethrown as {@link IllegalStateException}.
+     *
+     * @param fetchSize the number of rows fetched from the server per round trip
+     * @return a Stream of Wine objects representing the wine records
+     * @throws SQLException if an error occurs while running the query
+     */
+    public Stream<Wine> streamAllWine(int fetchSize) throws SQLException {
+        PooledConnection conn = connect();
+        try {
+            PreparedStatement pstmt = conn.prepareStatement(WINE_SELECT_SQL);
+            pstmt.setFetchSize(fetchSize);
+            ResultSet resultSet = pstmt.executeQuery();
+            WineRowMapper mapper = new WineRowMapper(resultSet);
+            Spliterator<Wine> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Wine> action) {
+                    try {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(resultSet));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    resultSet.close();
+                    pstmt.close();
+                } catch (SQLException e) {
+                    LOGGER.error("Error closing wine stream: {}", e.getMessage(), e);
+                } finally {
+                    conn.close();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
     /**
      * Inserts a new wine record into the database.
      *
@@ -114,17 +369,167 @@ public class PostgreSQLManager {
      * @throws SQLException if an error occurs while inserting the wine record
      */
     private Optional<Long> insertWineInternal(Wine wine) throws SQLException {
-        try (PreparedStatement pstmt = connect().prepareStatement(INSERT_WINE_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            setParametersInStatement(pstmt, wine);
-            Optional<Long> longOptional = handleResponse(pstmt, id -> wine.setId((int) id));
-            if (longOptional.isPresent()) {
-                connection.commit();
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_WINE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                setParametersInStatement(pstmt, wine);
+                Optional<Long> longOptional = handleResponse(pstmt);
+                if (longOptional.isPresent()) {
+                    conn.commit();
+                    wine.setId(longOptional.get().intValue());
+                }
+                return longOptional;
+            } catch (SQLException e) {
+                LOGGER.error("Error executing Wine insert: {}", e.getMessage(), e);
+                conn.rollback();
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Inserts several wine records into the database in JDBC batches, within a single transaction.
+     * <p>
+     * Once the transaction is committed, each wine's ID is set to its generated key; if it is rolled back, the wines
+     * are left untouched.
+     *
+     * @param wines the Wine objects representing the wines to be inserted
+     * @return the IDs of the newly inserted wine records, in iteration order,
+     * or an empty List if the insertion failed
+     * @throws SQLException if an error occurs while borrowing a database connection
+     */
+    public List<Long> insertWines(@NotNull Collection<Wine> wines) throws SQLException {
+        if (wines.isEmpty()) {
+            return List.of();
+        }
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_WINE_SQL, WINE_GENERATED_KEYS)) {
+                List<Long> ids = new ArrayList<>(wines.size());
+                List<Wine> pending = new ArrayList<>(batchSize);
+                for (Wine wine : wines) {
+                    setParametersInStatement(pstmt, wine);
+                    pstmt.addBatch();
+                    pending.add(wine);
+                    if (pending.size() == batchSize) {
+                        executeWineInsertBatch(pstmt, pending, ids);
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    executeWineInsertBatch(pstmt, pending, ids);
+                }
+                conn.commit();
+                Iterator<Long> id = ids.iterator();
+                for (Wine wine : wines) {
+                    wine.setId(id.next().intValue());
+                }
+                return ids;
+            } catch (SQLException e) {
+                LOGGER.error("Error executing Wine batch insert: {}", e.getMessage(), e);
+                conn.rollback();
+                return List.of();
+            }
+        }
+    }
+
+    /**
+     * Executes a pending batch of wine inserts and collects the generated keys, without setting them on the wines.
+     *
+     * @param pstmt   the PreparedStatement holding the batch
+     * @param pending the wines in the batch, in the order they were added; cleared afterwards
+     * @param ids     the list collecting the generated IDs
+     * @throws SQLException if the batch fails or doesn't return a key for every wine
+     */
+    private void executeWineInsertBatch(@NotNull PreparedStatement pstmt, @NotNull List<Wine> pending, @NotNull List<Long> ids) throws SQLException {
+        pstmt.executeBatch();
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            for (Wine wine : pending) {
+                if (!rs.next()) {
+                    throw new SQLException("Missing generated key for batch-inserted wine");
+                }
+                ids.add(rs.getLong(1));
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Bulk-loads wines into the database with {@code COPY ... FROM STDIN}, within a single transaction.
+     * <p>
+     * The wines are encoded and sent in chunks while iterating, so the source can be a lazily generated
+     * or streamed sequence. Bottle sizes and colours are stored as in {@link #insertWine(Wine)}.
+     * The generated IDs aren't read back.
+     *
+     * @param wines the wines to load
+     * @return the number of rows loaded
+     * @throws SQLException if an error occurs while copying; the transaction is rolled back
+     */
+    public long copyInWines(@NotNull Iterable<? extends Wine> wines) throws SQLException {
+        try (PooledConnection conn = connect()) {
+            CopyIn copyIn = conn.getConnection().unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_WINE_IN_SQL);
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 256);
+                for (Wine wine : wines) {
+                    WineCopyFormat.encode(wine, buffer);
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+                writeToCopy(copyIn, buffer);
+                long rows = copyIn.endCopy();
+                conn.commit();
+                return rows;
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.error("Error executing Wine copy in: {}", e.getMessage(), e);
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sends the encoded rows held in a buffer to the server and empties the buffer.
+     *
+     * @param copyIn the COPY operation in progress
+     * @param buffer the encoded rows
+     * @throws SQLException if the rows can't be sent
+     */
+    private void writeToCopy(@NotNull CopyIn copyIn, @NotNull StringBuilder buffer) throws SQLException {
+        if (!buffer.isEmpty()) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Bulk-exports every wine record, including those in assortments, with {@code COPY ... TO STDOUT}.
+     * <p>
+     * Each row is decoded and handed to the consumer as soon as it arrives, so the whole table is never
+     * held in memory. Wines that belong to an assortment are flagged as such, and every wine carries its row version,
+     * so that it can be updated with a compare-and-set like a wine read by a query.
+     *
+     * @param consumer the consumer receiving the wines, in ID order
+     * @return the number of rows exported
+     * @throws SQLException if an error occurs while copying
+     */
+    public long copyOutWines(@NotNull Consumer<? super Wine> consumer) throws SQLException {
+        try (PooledConnection conn = connect()) {
+            CopyOut copyOut = conn.getConnection().unwrap(PGConnection.class).getCopyAPI().copyOut(COPY_WINE_OUT_SQL);
+            try {
+                byte[] row;
+                while ((row = copyOut.readFromCopy()) != null) {
+                    consumer.accept(WineCopyFormat.decode(new String(row, StandardCharsets.UTF_8)));
+                }
+                return copyOut.getHandledRowCount();
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.error("Error executing Wine copy out: {}", e.getMessage(), e);
+                if (copyOut.isActive()) {
+                    copyOut.cancelCopy();
+                }
+                throw e;
             }
-            return longOptional;
-        } catch (SQLException e) {
-            LOGGER.error("Error executing Wine insert: {}", e.getMessage(), e);
-            connection.rollback();
-            return Optional.empty();
         }
     }
 
@@ -140,165 +545,299 @@ public class PostgreSQLManager {
         pstmt.setInt(2, wine.getYear().getValue());
         pstmt.setDouble(3, wine.getVolume().getVolume());
         pstmt.setString(4, wine.getColor().name());
-        pstmt.setDouble(5, wine.getPrice());
+        pstmt.setBigDecimal(5, Money.toBigDecimal(wine.getPriceCents()));
         pstmt.setString(6, wine.getComment());
     }
 
     /**
      * Retrieves all Assortments from the database.
+     * <p>
+     * The assortments and their wines are read with a single joined query, ordered by assortment ID,
+     * and grouped into Assortment objects in one pass over the ResultSet.
      *
      * @return a List of Assortment objects representing all the assortments in the database
      * @throws SQLException if an error occurs while retrieving the assortments
      */
     public List<Assortment<Wine>> getAllAssortments() throws SQLException {
-        List<Assortment<Wine>> assortments = new ArrayList<>();
-
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(ASSORTMENT_SELECT_SQL)) {
-
-            ResultSet resultSet = pstmt.executeQuery();
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(ASSORTMENT_WITH_WINES_SELECT_SQL)) {
+            pstmt.setFetchSize(fetchSize);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                return groupAssortments(resultSet);
+            }
+        }
+    }
 
-            while (resultSet.next()) {
-                Assortment<Wine> assortment = fetchAssortmentByResultSet(resultSet);
-                assortments.add(assortment);
+    /**
+     * Retrieves one page of assortments with their wines, in ID order, using keyset pagination.
+     *
+     * @param lastAno the ID of the last assortment of the previous page, or {@link Integer#MIN_VALUE} for the first page
+     * @param limit   the maximum number of assortments to return
+     * @return a List of at most {@code limit} Assortment objects with an ID greater than {@code lastAno}
+     * @throws SQLException if an error occurs while retrieving the assortments
+     */
+    public List<Assortment<Wine>> getAssortmentsAfter(int lastAno, int limit) throws SQLException {
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(ASSORTMENT_WITH_WINES_SELECT_PAGE_SQL)) {
+            pstmt.setInt(1, lastAno);
+            pstmt.setInt(2, limit);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                return groupAssortments(resultSet);
             }
-        } catch (InvalidBottleVolumeException e) {
-            throw new IllegalArgumentException(e);
         }
-        return assortments;
     }
 
     /**
-     * Fetches an Assortment for a given ResultSet. Reads all wines in the assortment.
+     * Retrieves a single assortment with its wines by ID.
      *
-     * @param resultSet the ResultSet containing information about the assortment
-     * @return an Assortment object representing the assortment extracted from the ResultSet
-     * @throws SQLException if an error occurs while accessing the ResultSet
+     * @param ano the ID of the assortment
+     * @return an Optional containing the assortment, or an empty Optional if there is no assortment with that ID
+     * @throws SQLException if an error occurs while retrieving the assortment
      */
-    private @NotNull Assortment<Wine> fetchAssortmentByResultSet(@NotNull ResultSet resultSet) throws SQLException, InvalidBottleVolumeException {
-        Assortment<Wine> assortment = new Assortment<>(resultSet.getInt("ano"), Year.of(resultSet.getInt("year")));
-        try (PreparedStatement pstmtWines = connect().prepareStatement(WINE_SELECT_ASSORTMENT_SQL)) {
-            pstmtWines.setInt(1, resultSet.getInt("ano"));
-            try (ResultSet resultSetWines = pstmtWines.executeQuery()) {
-                while (resultSetWines.next()) {
-                    assortment.add(getWineFromResultSet(resultSetWines));
-                }
+    public Optional<Assortment<Wine>> getAssortment(int ano) throws SQLException {
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(ASSORTMENT_WITH_WINES_SELECT_BY_ID_SQL)) {
+            pstmt.setInt(1, ano);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                return groupAssortments(resultSet).stream().findFirst();
             }
         }
-        return assortment;
     }
 
     /**
-     * Gets a Wine object from a given ResultSet.
+     * Groups the rows of an assortment-wine join, ordered by assortment ID, into Assortment objects.
+     * <p>
+     * Each row holds one assortment and at most one of its wines; assortments without wines come
+     * with null wine columns.
      *
-     * @param resultSetWines the ResultSet containing information about the wine
-     * @return a Wine object representing the wine extracted from the ResultSet
+     * @param resultSet the ResultSet of the joined query
+     * @return a List of Assortment objects in assortment ID order
      * @throws SQLException if an error occurs while accessing the ResultSet
      */
-    private Wine getWineFromResultSet(@NotNull ResultSet resultSetWines) throws SQLException, InvalidBottleVolumeException {
-        return Wine.builder().id(resultSetWines.getInt("wno"))
-                .name(resultSetWines.getString("name"))
-                .year(Year.of(resultSetWines.getInt("year")))
-                .volume(BottleSize.doubleToBottleSize(resultSetWines.getDouble("volume")))
-                .color(Color.valueOf(resultSetWines.getString("color")))
-                .price(resultSetWines.getDouble("price"))
-                .comment(resultSetWines.getString("comment")).build();
+    static @NotNull List<Assortment<Wine>> groupAssortments(@NotNull ResultSet resultSet) throws SQLException {
+        List<Assortment<Wine>> assortments = new ArrayList<>();
+        int anoColumn = resultSet.findColumn("ano");
+        int yearColumn = resultSet.findColumn("assortment_year");
+        WineRowMapper mapper = new WineRowMapper(resultSet);
+        Assortment<Wine> current = null;
+        while (resultSet.next()) {
+            int assortmentId = resultSet.getInt(anoColumn);
+            if (current == null || current.getId() != assortmentId) {
+                current = new Assortment<>(assortmentId, WineRowMapper.year(resultSet.getInt(yearColumn)));
+                assortments.add(current);
+            }
+            resultSet.getInt(mapper.getWnoColumn());
+            if (!resultSet.wasNull()) {
+                current.add(mapper.map(resultSet));
+            }
+        }
+        return assortments;
     }
 
     /**
-     * Inserts an Assortment object into the database.
+     * Inserts an Assortment object into the database, and points its wines at it, within a single transaction.
+     * <p>
+     * The insertion fails if any of the wines changed since it was read. Once the transaction is committed, the ID
+     * of the Assortment is set to its generated key and the versions of its wines are incremented.
      *
      * @param assortment the Assortment object to be inserted
      * @return an Optional containing the ID of the inserted Assortment, or an empty Optional if the insertion failed
      */
     public Optional<Long> insertAssortment(Assortment<Wine> assortment) {
-        try {
-            connect();
-            Optional<Long> assortmentId = insertAssortmentInternal(assortment);
+        try (PooledConnection conn = connect()) {
+            try {
+                Optional<Long> assortmentId = insertAssortmentInternal(conn, assortment);
 
-            if (assortmentId.isPresent()) {
-                insertWinesInAssortment(assortment, assortmentId.get());
-                connection.commit();
+                if (assortmentId.isPresent()) {
+                    updateWinesAssortment(conn, assortment, assortmentId.get());
+                    conn.commit();
+                    assortment.setId(assortmentId.get().intValue());
+                    incrementVersions(assortment);
+                }
+                return assortmentId;
+            } catch (SQLException e) {
+                LOGGER.error("Error executing insert: {}", e.getMessage(), e);
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.error("Error rolling back transaction: {}", ex.getMessage(), ex);
+                }
             }
-            return assortmentId;
         } catch (SQLException e) {
-            LOGGER.error("Error executing insert: {}", e.getMessage(), e);
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                LOGGER.error("Error rolling back transaction: {}", ex.getMessage(), ex);
-            }
+            LOGGER.error("Error borrowing connection: {}", e.getMessage(), e);
         }
         return Optional.empty();
     }
 
     /**
-     * Inserts an Assortment object into the database.
+     * Inserts an assortment row into the database, without committing or setting the ID of the Assortment.
      *
+     * @param conn       the connection to insert the Assortment with
      * @param assortment the Assortment object to be inserted
      * @return an Optional containing the ID of the inserted Assortment, or an empty Optional if the insertion failed
      * @throws SQLException if an error occurs while accessing the database
      */
-    private Optional<Long> insertAssortmentInternal(@NotNull Assortment<Wine> assortment) throws SQLException {
-        try (PreparedStatement pstmt = connect().prepareStatement(INSERT_ASSORTMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+    private Optional<Long> insertAssortmentInternal(@NotNull PooledConnection conn, @NotNull Assortment<Wine> assortment) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ASSORTMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setInt(1, assortment.getYear().getValue());
-            return handleResponse(pstmt, id -> assortment.setId((int) id));
+            return handleResponse(pstmt);
         }
     }
 
     /**
      * Inserts a list of wines into the assortment with the specified assortment ID.
+     * <p>
+     * The updates are sent in JDBC batches of {@link #getBatchSize()} rows and committed in a single transaction,
+     * which is rolled back if any of the wines changed since it was read. Once it is committed, the versions of the
+     * wines are incremented.
      *
      * @param assortment   the list of wines to insert
      * @param assortmentId the ID of the assortment to insert the wines into
      * @throws SQLException if an error occurs while accessing the database
      */
     public void insertWinesInAssortment(@NotNull Assortment<Wine> assortment, Long assortmentId) throws SQLException {
-        for (Wine wine : assortment) {
-            insertWineInAssortment(wine, assortmentId);
+        try (PooledConnection conn = connect()) {
+            try {
+                updateWinesAssortment(conn, assortment, assortmentId);
+                conn.commit();
+                incrementVersions(assortment);
+            } catch (SQLException e) {
+                LOGGER.error("Error executing batch insert: {}", e.getMessage(), e);
+                conn.rollback();
+            }
         }
     }
 
     /**
-     * Inserts a wine into the assortment with the specified assortment ID.
+     * Points every wine of a collection at the assortment with the specified assortment ID in JDBC batches of
+     * compare-and-set updates, without committing or changing the versions of the wines.
+     *
+     * @param conn         the connection to run the updates with
+     * @param wines        the wines to insert
+     * @param assortmentId the ID of the assortment to insert the wines into
+     * @throws SQLException if an error occurs while accessing the database, or if a wine changed since it was read
+     */
+    private void updateWinesAssortment(@NotNull PooledConnection conn, @NotNull Collection<? extends Wine> wines, Long assortmentId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_WINE_IN_ASSORTMENT_SQL)) {
+            List<Wine> batch = new ArrayList<>(Math.min(batchSize, wines.size()));
+            for (Wine wine : wines) {
+                pstmt.setLong(1, assortmentId);
+                pstmt.setLong(2, wine.getId());
+                pstmt.setInt(3, wine.getVersion());
+                pstmt.addBatch();
+                batch.add(wine);
+                if (batch.size() == batchSize) {
+                    checkUpdated(pstmt.executeBatch(), batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                checkUpdated(pstmt.executeBatch(), batch);
+            }
+        }
+    }
+
+    /**
+     * Checks that each compare-and-set update of a batch updated its wine row.
+     *
+     * @param updateCounts the update counts returned by the batch
+     * @param batch        the wines of the batch, in order
+     * @throws SQLException if a wine row wasn't updated, because it changed since it was read or disappeared
+     */
+    private static void checkUpdated(int @NotNull [] updateCounts, @NotNull List<Wine> batch) throws SQLException {
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                throw new SQLException("Wine " + batch.get(i).getId() + " not updated: "
+                        + UpdateOutcome.CONFLICT.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Increments the versions of wines whose compare-and-set updates were committed.
+     *
+     * @param wines the updated wines
+     */
+    private static void incrementVersions(@NotNull Collection<? extends Wine> wines) {
+        for (Wine wine : wines) {
+            wine.setVersion(wine.getVersion() + 1);
+        }
+    }
+
+    /**
+     * Inserts a wine into the assortment with the specified assortment ID, provided the wine row hasn't changed
+     * since it was read.
+     * <p>
+     * On success, the version of the wine is incremented.
      *
      * @param wine         the wine to insert
      * @param assortmentId the ID of the assortment to insert the wine into
-     * @throws SQLException if an error occurs while accessing the database
+     * @return the outcome of the compare-and-set update
+     * @throws SQLException if an error occurs while borrowing a database connection
      */
-    public void insertWineInAssortment(@NotNull Wine wine, Long assortmentId) throws SQLException {
-        try (PreparedStatement pstmtContains = connect().prepareStatement(UPDATE_WINE_IN_ASSORTMENT_SQL)) {
-            pstmtContains.setLong(1, assortmentId);
-            pstmtContains.setLong(2, wine.getId());
-            pstmtContains.executeUpdate();
-            connection.commit();
-        } catch (SQLException e) {
-            LOGGER.error("Error executing insert: {}", e.getMessage(), e);
-            connection.rollback();
+    public UpdateOutcome insertWineInAssortment(@NotNull Wine wine, Long assortmentId) throws SQLException {
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_WINE_IN_ASSORTMENT_SQL)) {
+                pstmt.setLong(1, assortmentId);
+                pstmt.setInt(2, wine.getId());
+                pstmt.setInt(3, wine.getVersion());
+                return compareAndSet(conn, pstmt, wine);
+            } catch (SQLException e) {
+                LOGGER.error("Error executing insert: {}", e.getMessage(), e);
+                conn.rollback();
+                return UpdateOutcome.FAILED;
+            }
         }
     }
 
     /**
-     * Updates a wine record in the database.
+     * Updates a wine record in the database, provided it hasn't changed since it was read.
+     * <p>
+     * On success, the version of the wine is incremented. On conflict, the row is left untouched and the wine
+     * should be read again.
      *
      * @param wine the Wine object representing the wine to be updated
-     * @return an Optional Long representing the ID of the updated wine record,
-     * or an empty Optional if the update failed
-     * @throws SQLException if an error occurs while updating the wine record
-     */
-    public Optional<Long> updateWine(Wine wine) throws SQLException {
-        try (PreparedStatement pstmt = connect().prepareStatement(UPDATE_WINE_SQL)) {
-            setParametersInStatement(pstmt, wine);
-            pstmt.setInt(7, wine.getId());
-            Optional<Long> longOptional = pstmt.executeUpdate() > 0 ? Optional.of((long) wine.getId()) : Optional.empty();
-            if (longOptional.isPresent()) {
-                connection.commit();
+     * @return the outcome of the compare-and-set update
+     * @throws SQLException if an error occurs while borrowing a database connection
+     */
+    public UpdateOutcome updateWine(Wine wine) throws SQLException {
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_WINE_SQL)) {
+                setParametersInStatement(pstmt, wine);
+                pstmt.setInt(7, wine.getId());
+                pstmt.setInt(8, wine.getVersion());
+                return compareAndSet(conn, pstmt, wine);
+            } catch (SQLException e) {
+                LOGGER.error("Error executing Wine update: {}", e.getMessage(), e);
+                conn.rollback();
+                return UpdateOutcome.FAILED;
+            }
+        }
+    }
+
+    /**
+     * Runs a compare-and-set update of a wine row and commits it if it applied.
+     *
+     * @param conn  the connection running the update
+     * @param pstmt the update, matching both the ID and the version of the wine
+     * @param wine  the wine, whose version is incremented if the update applied
+     * @return {@link UpdateOutcome#UPDATED} if the update applied, otherwise whether the row changed or disappeared
+     * @throws SQLException if an error occurs while accessing the database
+     */
+    private UpdateOutcome compareAndSet(@NotNull PooledConnection conn, @NotNull PreparedStatement pstmt, @NotNull Wine wine) throws SQLException {
+        if (pstmt.executeUpdate() > 0) {
+            conn.commit();
+            wine.setVersion(wine.getVersion() + 1);
+            return UpdateOutcome.UPDATED;
+        }
+        conn.rollback();
+        try (PreparedStatement exists = conn.prepareStatement(WINE_EXISTS_SQL)) {
+            exists.setInt(1, wine.getId());
+            try (ResultSet resultSet = exists.executeQuery()) {
+                UpdateOutcome outcome = resultSet.next() ? UpdateOutcome.CONFLICT : UpdateOutcome.MISSING;
+                LOGGER.warn("Wine {} not updated: {}", wine.getId(), outcome.getMessage());
+                return outcome;
             }
-            return longOptional;
-        } catch (SQLException e) {
-            LOGGER.error("Error executing Wine update: {}", e.getMessage(), e);
-            connection.rollback();
-            return Optional.empty();
         }
     }
 
@@ -313,17 +852,19 @@ public class PostgreSQLManager {
     public boolean deleteWine(Wine wine) throws SQLException {
 
         boolean isDeleted = false;
-        try (PreparedStatement pstmt = connect().prepareStatement(DELETE_WINE_SQL)) {
-            pstmt.setInt(1, wine.getId());
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                // If DELETE was successful, commit the transaction
-                connection.commit();
-                isDeleted = true;
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(DELETE_WINE_SQL)) {
+                pstmt.setInt(1, wine.getId());
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows > 0) {
+                    // If DELETE was successful, commit the transaction
+                    conn.commit();
+                    isDeleted = true;
+                }
+            } catch (SQLException e) {
+                LOGGER.error("Error executing Wine delete: {}", e.getMessage(), e);
+                conn.rollback();
             }
-        } catch (SQLException e) {
-            LOGGER.error("Error executing Wine delete: {}", e.getMessage(), e);
-            connection.rollback();
         }
         return isDeleted;
     }
@@ -337,49 +878,57 @@ public class PostgreSQLManager {
      * @throws SQLException if an error occurs while deleting the assortment
      */
     public Optional<Long> deleteAssortment(Assortment<Wine> assortment) throws SQLException {
-        try (PreparedStatement pstmt = connect().prepareStatement(DELETE_ASSORTMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, assortment.getId());
-            Optional<Long> longOptional = pstmt.executeUpdate() > 0 ? Optional.of((long) assortment.getId()) : Optional.empty();
-            connection.commit();
-            return longOptional;
-        } catch (SQLException e) {
-            LOGGER.error("Error executing Assortment delete: {}", e.getMessage(), e);
-            connection.rollback();
-            return Optional.empty();
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(DELETE_ASSORTMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, assortment.getId());
+                Optional<Long> longOptional = pstmt.executeUpdate() > 0 ? Optional.of((long) assortment.getId()) : Optional.empty();
+                conn.commit();
+                return longOptional;
+            } catch (SQLException e) {
+                LOGGER.error("Error executing Assortment delete: {}", e.getMessage(), e);
+                conn.rollback();
+                return Optional.empty();
+            }
         }
     }
 
     /**
-     * Deletes a wine from the assortment in the database.
+     * Deletes a wine from the assortment in the database, provided the wine row hasn't changed since it was read.
+     * <p>
+     * On success, the version of the wine is incremented.
      *
      * @param wine the Wine object representing the wine to be deleted
-     * @throws SQLException if an SQL exception occurs while deleting the wine
+     * @return the outcome of the compare-and-set update
+     * @throws SQLException if an error occurs while borrowing a database connection
      */
-    public void deleteWineInAssortment(Wine wine) throws SQLException {
-        try (PreparedStatement pstmt = connect().prepareStatement(UPDATE_WINE_IN_ASSORTMENT_SQL)) {
-            pstmt.setNull(1, Types.INTEGER);
-            pstmt.setLong(2, wine.getId());
-            pstmt.executeUpdate();
-            connection.commit();
+    public UpdateOutcome deleteWineInAssortment(Wine wine) throws SQLException {
+        try (PooledConnection conn = connect()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_WINE_IN_ASSORTMENT_SQL)) {
+                pstmt.setNull(1, Types.INTEGER);
+                pstmt.setInt(2, wine.getId());
+                pstmt.setInt(3, wine.getVersion());
+                return compareAndSet(conn, pstmt, wine);
+            } catch (SQLException e) {
+                LOGGER.error("Error executing delete from assortment: {}", e.getMessage(), e);
+                conn.rollback();
+                return UpdateOutcome.FAILED;
+            }
         }
     }
 
     /**
      * Handles the response of executing a prepared statement and retrieves the generated keys.
      *
-     * @param pstmt      the prepared statement to execute
-     * @param idConsumer the consumer to accept the generated ID
+     * @param pstmt the prepared statement to execute
      * @return an Optional containing the generated ID if available, otherwise empty
      * @throws SQLException if an error occurs while accessing the database
      */
-    private Optional<Long> handleResponse(@NotNull PreparedStatement pstmt, LongConsumer idConsumer) throws SQLException {
+    private Optional<Long> handleResponse(@NotNull PreparedStatement pstmt) throws SQLException {
         int affectedRows = pstmt.executeUpdate();
         if (affectedRows > 0) {
             try (ResultSet rs = pstmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    long id = rs.getLong(1);
-                    idConsumer.accept(id);
-                    return Optional.of(id);
+                    return Optional.of(rs.getLong(1));
                 }
             }
         }
@@ -387,13 +936,153 @@ public class PostgreSQLManager {
     }
 
     /**
-     * Closes the connection to the database.
+     * Checks whether the wine table has the row version column used by the compare-and-set updates.
+     *
+     * @return true if the column exists, false if {@link #installRowVersions()} must be run first
+     * @throws SQLException if an error occurs while accessing the database
+     */
+    public boolean hasRowVersions() throws SQLException {
+        try (PooledConnection conn = connect();
+             PreparedStatement pstmt = conn.prepareStatement(ROW_VERSIONS_EXIST_SQL);
+             ResultSet resultSet = pstmt.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Adds the row version column used by the compare-and-set updates, unless it exists already.
+     * <p>
+     * It is a step of the {@link SchemaMigration}, which must have run once against a database before its wines
+     * can be read. Adding the column needs ownership of the wine table; once it exists, the script needs no
+     * privilege.
+     *
+     * @throws SQLException if the script can't be read or fails; the transaction is rolled back
+     */
+    public void installRowVersions() throws SQLException {
+        executeScript(ROW_VERSIONS_SCRIPT);
+    }
+
+    /**
+     * Creates the indexes serving the searches of {@link #findWines(WineQuery)}, if they don't exist yet.
+     * <p>
+     * It is a step of the {@link SchemaMigration}. The indexes are built concurrently, so that the wine table stays
+     * writable; as a concurrent build can't run in a transaction, each statement is committed on its own. The
+     * trigram index of the substring searches is only created if the pg_trgm extension is available or can be
+     * created; without it, those searches still work but scan the wine table.
+     *
+     * @throws SQLException if the script can't be read or a statement fails; the statements before it stay applied
+     */
+    public void installSearchIndexes() throws SQLException {
+        List<String> statements = SqlScript.statements(SqlScript.read(SEARCH_INDEXES_SCRIPT));
+        try (PooledConnection conn = connect()) {
+            Connection connection = conn.getConnection();
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    executeIndexStatement(statement, sql);
+                }
+            } finally {
+                connection.setAutoCommit(false);
+            }
+        }
+    }
+
+    /**
+     * Runs a statement of the search index script, skipping it if it uses an operator class that doesn't exist
+     * because its extension isn't installed.
+     *
+     * @param statement the statement to run the SQL with
+     * @param sql       the SQL of the statement
+     * @throws SQLException if the statement fails for any other reason
+     */
+    private static void executeIndexStatement(@NotNull Statement statement, @NotNull String sql) throws SQLException {
+        try {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            if (!UNDEFINED_OBJECT.equals(e.getSQLState())) {
+                LOGGER.error("Error running {}: {}", SEARCH_INDEXES_SCRIPT, e.getMessage(), e);
+                throw e;
+            }
+            LOGGER.warn("Index skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Installs the triggers publishing the row-level changes of the wine and assortment tables, unless both exist.
+     * <p>
+     * Installing them needs the privileges to create functions and triggers on both tables, and locks the tables;
+     * once both exist, the script only reads the catalog, so it needs no privilege and takes no lock.
+     *
+     * @throws SQLException if the script can't be read or fails; the transaction is rolled back
+     */
+    public void installChangeNotifications() throws SQLException {
+        executeScript(CHANGE_NOTIFICATIONS_SCRIPT);
+    }
+
+    /**
+     * Runs an SQL script shipped alongside this class in a single transaction.
+     *
+     * @param resource the name of the script resource
+     * @throws SQLException if the script can't be read or fails; the transaction is rolled back
+     */
+    private void executeScript(@NotNull String resource) throws SQLException {
+        String script = SqlScript.read(resource);
+        try (PooledConnection conn = connect()) {
+            try (Statement statement = conn.getConnection().createStatement()) {
+                statement.execute(script);
+                conn.commit();
+            } catch (SQLException e) {
+                LOGGER.error("Error running {}: {}", resource, e.getMessage(), e);
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Starts listening for the changes made to the wine and assortment tables by other clients,
+     * replacing the previous listener, if any.
+     * <p>
+     * The changes are published by the triggers installed with {@link #installChangeNotifications()}.
+     * The consumers are called on the listener thread.
+     *
+     * @param onChange the consumer receiving each change made by another client
+     * @param onResync the action run after the listener reconnected, when changes may have been missed
+     * @return the started listener
+     */
+    public synchronized ChangeListener listenForChanges(@NotNull Consumer<ChangeEvent> onChange, @NotNull Runnable onResync) {
+        stopListening();
+        changeListener = new ChangeListener(pool, onChange, onResync);
+        changeListener.start();
+        return changeListener;
+    }
+
+    /**
+     * Checks whether changes are currently being received.
+     *
+     * @return true if a listener was started and holds a subscribed connection
+     */
+    public synchronized boolean isListening() {
+        return changeListener != null && changeListener.isListening();
+    }
+
+    /**
+     * Stops listening for changes, if a listener was started.
+     */
+    public synchronized void stopListening() {
+        if (changeListener != null) {
+            changeListener.close();
+            changeListener = null;
+        }
+    }
+
+    /**
+     * Stops listening for changes and closes the connection pool and every connection to the database.
      *
      * @throws SQLException if an error occurs while closing the database connection
      */
     public void close() throws SQLException {
-        if (this.connection != null && !this.connection.isClosed()) {
-            this.connection.close();
-        }
+        stopListening();
+        this.pool.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+
+/**
+ * Brings the schema of a WineStock database up to date with the application.
+ * <p>
+ * The migration alters the tables, so it runs once per database, as the owner of the tables, rather than at each
+ * login: the application only checks that it has run. Every step is skipped once it has been applied, so the
+ * migration can safely be run again after an upgrade.
+ * <p>
+ * Run it with {@code ./gradlew migrate}, which reads the connection settings from the {@code winestock.jdbc.url},
+ * {@code winestock.jdbc.user} and {@code winestock.jdbc.password} system properties.
+ */
+public final class SchemaMigration {
+    private static final Logger LOGGER = LogManager.getLogger(SchemaMigration.class);
+
+    private SchemaMigration() {
+    }
+
+    /**
+     * Migrates the database given by the connection system properties.
+     *
+     * @param args unused
+     * @throws SQLException if the database can't be reached or a step fails
+     */
+    public static void main(String[] args) throws SQLException {
+        PostgreSQLManager manager = new PostgreSQLManager(
+                System.getProperty("winestock.jdbc.url", "jdbc:postgresql://localhost:5432/winestock"),
+                System.getProperty("winestock.jdbc.user", "postgres"),
+                System.getProperty("winestock.jdbc.password", "postgres"));
+        try {
+            migrate(manager);
+        } finally {
+            manager.close();
+        }
+    }
+
+    /**
+     * Applies the steps of the migration that haven't been applied yet.
+     *
+     * @param manager the manager of the database to migrate
+     * @throws SQLException if a step fails
+     */
+    public static void migrate(@NotNull PostgreSQLManager manager) throws SQLException {
+        manager.installRowVersions();
+        LOGGER.info("Row versions installed");
+        manager.installChangeNotifications();
+        LOGGER.info("Change notifications installed");
+        manager.installSearchIndexes();
+        LOGGER.info("Search indexes installed");
+    }
+}
@@ -0,0 +1,77 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the SQL scripts shipped alongside the database classes.
+ * <p>
+ * A script is normally sent to the server as a whole, in a single transaction. Scripts whose statements can't run
+ * in a transaction, such as concurrent index builds, are split with {@link #statements(String)} to be run one by
+ * one.
+ */
+final class SqlScript {
+    private static final String DOLLAR_QUOTE = "$$";
+
+    private SqlScript() {
+    }
+
+    /**
+     * Reads a script resource.
+     *
+     * @param resource the name of the script, relative to this class
+     * @return the text of the script
+     * @throws SQLException if the script is missing or can't be read
+     */
+    static @NotNull String read(@NotNull String resource) throws SQLException {
+        try (InputStream in = SqlScript.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new SQLException("Missing resource " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Error reading " + resource, e);
+        }
+    }
+
+    /**
+     * Splits a script into its statements.
+     * <p>
+     * A statement ends with a semicolon at the end of a line, outside the {@code $$} quotes of a DO block or a
+     * function body. Comment lines are dropped.
+     *
+     * @param script the text of the script
+     * @return the statements, without their final semicolon
+     */
+    static @NotNull List<String> statements(@NotNull String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        boolean quoted = false;
+        for (String line : script.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (trimmed.startsWith(DOLLAR_QUOTE)) {
+                quoted = !quoted;
+            }
+            if (!quoted && trimmed.endsWith(";")) {
+                statement.append(line, 0, line.lastIndexOf(';'));
+                statements.add(statement.toString().strip());
+                statement.setLength(0);
+            } else {
+                statement.append(line).append('\n');
+            }
+        }
+        if (!statement.isEmpty()) {
+            statements.add(statement.toString().strip());
+        }
+        return statements;
+    }
+}
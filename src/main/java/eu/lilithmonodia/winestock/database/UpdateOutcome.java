@@ -0,0 +1,49 @@
+package eu.lilithmonodia.winestock.database;
+
+import lombok.Getter;
+
+/**
+ * This `UpdateOutcome` enum represents the result of a compare-and-set update of a wine row.
+ * <p>
+ * An update only applies if the row still has the version the wine was read with, so a concurrent change made
+ * from another terminal is reported as a conflict instead of being overwritten.
+ */
+@Getter
+public enum UpdateOutcome {
+    /**
+     * The row was updated and the version of the wine was incremented.
+     */
+    UPDATED("Row updated"),
+    /**
+     * The row was not updated because it was changed since the wine was read.
+     */
+    CONFLICT("Row changed by another client"),
+    /**
+     * The row was not updated because it no longer exists.
+     */
+    MISSING("Row no longer exists"),
+    /**
+     * The row was not updated because the statement failed.
+     */
+    FAILED("Update failed");
+
+    private final String message;
+
+    /**
+     * Constructor for the UpdateOutcome enum.
+     *
+     * @param message the message describing the outcome
+     */
+    UpdateOutcome(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Checks whether the row was updated.
+     *
+     * @return true for {@link #UPDATED}, false otherwise
+     */
+    public boolean isSuccess() {
+        return this == UPDATED;
+    }
+}
@@ -0,0 +1,605 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.Assortment;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.data.WineSearchIndex;
+import eu.lilithmonodia.winestock.data.WineStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-memory catalog of the wines, by wno, and of the assortments, by ano, kept in front of a
+ * {@link PostgreSQLManager}.
+ * <p>
+ * The catalog is populated once with {@link #populate()}. From then on, pages and lookups are served from memory
+ * as long as the catalog is fresh: either changes are being received from the {@link ChangeListener} and applied
+ * with {@link #apply(ChangeEvent)}, or the catalog was populated less than its maximum age ago. Otherwise reads go
+ * to the database, and what they return is cached.
+ * <p>
+ * Changes made through the catalog are written through: the database is changed first, then the catalog.
+ * Changes made directly through the PostgreSQLManager aren't seen until they are notified, or until
+ * {@link #invalidate()} is called.
+ * <p>
+ * The wines are also kept in a {@link WineSearchIndex}, maintained with every change, which answers the type-ahead
+ * searches of {@link #searchWinesAfter(String, int, int)} while the catalog is fresh.
+ * <p>
+ * The wines are held in a columnar {@link WineStore} rather than as Wine objects, so a catalog of a large cellar
+ * stays small: each wine read from the catalog is a new instance holding its stored values. The assortments are
+ * held as Assortment objects, which the catalog returns as they are and never changes once returned: a changed
+ * assortment is replaced by a new instance. The catalog is safe for use by several threads.
+ */
+public class WineCatalog {
+    private static final Logger LOGGER = LogManager.getLogger(WineCatalog.class);
+    private final PostgreSQLManager manager;
+    private final long maxAgeNanos;
+    private WineStore wines = new WineStore();
+    private final NavigableMap<Integer, Assortment<Wine>> assortments = new TreeMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private WineSearchIndex searchIndex = new WineSearchIndex();
+    private boolean populated;
+    private long populatedAt;
+    private long changeCount;
+
+    /**
+     * Constructs a new, empty WineCatalog.
+     *
+     * @param manager the PostgreSQLManager reading and writing the database
+     * @param maxAge  how long the catalog is trusted after being populated when no changes are being received
+     */
+    public WineCatalog(@NotNull PostgreSQLManager manager, @NotNull Duration maxAge) {
+        this.manager = manager;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Returns the PostgreSQLManager behind the catalog.
+     *
+     * @return the PostgreSQLManager
+     */
+    public @NotNull PostgreSQLManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Loads every wine and assortment into the catalog, replacing its contents.
+     * <p>
+     * The database is read without holding the catalog. If a change is applied meanwhile, the loaded rows may
+     * predate it, so they are dropped and the catalog is left unpopulated.
+     *
+     * @return true if the catalog was populated
+     * @throws SQLException if an error occurs while reading the database
+     */
+    public boolean populate() throws SQLException {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changeCount;
+        }
+        List<Assortment<Wine>> loadedAssortments = manager.getAllAssortments();
+        WineStore loadedWines = manager.loadWineStore();
+        WineSearchIndex loadedIndex = new WineSearchIndex();
+        for (int row = 0; row < loadedWines.size(); row++) {
+            loadedIndex.put(loadedWines.wineAt(row));
+        }
+        synchronized (this) {
+            if (changeCount != changesBefore) {
+                LOGGER.debug("Catalog changed while it was being populated; keeping it unpopulated");
+                return false;
+            }
+            wines = loadedWines;
+            assortments.clear();
+            searchIndex = loadedIndex;
+            loadedAssortments.forEach(assortment -> assortments.put(assortment.getId(), assortment));
+            populated = true;
+            populatedAt = System.nanoTime();
+        }
+        LOGGER.info("Catalog populated with {} wines and {} assortments", loadedWines.size(), loadedAssortments.size());
+        return true;
+    }
+
+    /**
+     * Checks whether reads can be served from memory.
+     *
+     * @return true if the catalog is populated and either changes are being received or it is younger than its maximum age
+     */
+    public synchronized boolean isFresh() {
+        return populated && (manager.isListening() || System.nanoTime() - populatedAt < maxAgeNanos);
+    }
+
+    /**
+     * Forgets the contents of the catalog, so that reads go to the database until it is populated again.
+     */
+    public synchronized void invalidate() {
+        wines.clear();
+        searchIndex.clear();
+        assortments.clear();
+        populated = false;
+        changeCount++;
+    }
+
+    /**
+     * Returns the number of reads served from memory.
+     *
+     * @return the number of catalog hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that went to the database.
+     *
+     * @return the number of catalog misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves one page of the wines that aren't in an assortment, in ID order.
+     *
+     * @param lastWno the ID of the last wine of the previous page, or {@link Integer#MIN_VALUE} for the first page
+     * @param limit   the maximum number of wines to return
+     * @return a List of at most {@code limit} Wine objects with an ID greater than {@code lastWno}
+     * @throws SQLException if an error occurs while reading the database
+     * @see PostgreSQLManager#getWinesAfter(int, int)
+     */
+    public List<Wine> getWinesAfter(int lastWno, int limit) throws SQLException {
+        synchronized (this) {
+            if (isFresh()) {
+                hits.increment();
+                List<Wine> page = new ArrayList<>(Math.min(limit, wines.size()));
+                int row = wines.rowOf(lastWno);
+                for (row = row < 0 ? -row - 1 : row + 1; row < wines.size() && page.size() < limit; row++) {
+                    if (!wines.isInAssortment(row)) {
+                        page.add(wines.wineAt(row));
+                    }
+                }
+                return page;
+            }
+        }
+        misses.increment();
+        List<Wine> page = manager.getWinesAfter(lastWno, limit);
+        synchronized (this) {
+            page.forEach(this::putWine);
+        }
+        return page;
+    }
+
+    /**
+     * Searches the wines not in an assortment with the search index, and returns one page of the matches in ID order.
+     * <p>
+     * The search is only answered while the catalog is fresh, since the index then holds every wine. The matches are
+     * computed once per search text and reused for the following pages.
+     *
+     * @param text    the text of the search, as understood by {@link WineSearchIndex#search(String)}
+     * @param lastWno the ID of the last wine of the previous page, or {@link Integer#MIN_VALUE} for the first page
+     * @param limit   the maximum number of wines to return
+     * @return an Optional containing at most {@code limit} matching wines with an ID greater than {@code lastWno},
+     * or an empty Optional if the catalog isn't fresh and the database must be searched instead
+     */
+    public synchronized Optional<List<Wine>> searchWinesAfter(@NotNull String text, int lastWno, int limit) {
+        if (!isFresh()) {
+            return Optional.empty();
+        }
+        hits.increment();
+        BitSet matches = searchIndex.search(text);
+        List<Wine> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        int wno = matches.nextSetBit(Math.max(0, lastWno + 1));
+        while (wno >= 0 && page.size() < limit) {
+            int row = wines.rowOf(wno);
+            if (row >= 0 && !wines.isInAssortment(row)) {
+                page.add(wines.wineAt(row));
+            }
+            wno = matches.nextSetBit(wno + 1);
+        }
+        return Optional.of(page);
+    }
+
+    /**
+     * Retrieves the wines matching a query from the database.
+     * <p>
+     * Searches always run in the database, which filters them with its indexes; the wines found are cached like
+     * the pages read on a miss.
+     *
+     * @param query the criteria, sort order and limit of the search
+     * @return a List of the matching Wine objects, in the order of the query
+     * @throws SQLException if an error occurs while reading the database
+     * @see PostgreSQLManager#findWines(WineQuery)
+     */
+    public List<Wine> findWines(@NotNull WineQuery query) throws SQLException {
+        List<Wine> found = manager.findWines(query);
+        synchronized (this) {
+            found.forEach(this::putWine);
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves one page of assortments with their wines, in ID order.
+     *
+     * @param lastAno the ID of the last assortment of the previous page, or {@link Integer#MIN_VALUE} for the first page
+     * @param limit   the maximum number of assortments to return
+     * @return a List of at most {@code limit} Assortment objects with an ID greater than {@code lastAno}
+     * @throws SQLException if an error occurs while reading the database
+     * @see PostgreSQLManager#getAssortmentsAfter(int, int)
+     */
+    public List<Assortment<Wine>> getAssortmentsAfter(int lastAno, int limit) throws SQLException {
+        synchronized (this) {
+            if (isFresh()) {
+                hits.increment();
+                return assortments.tailMap(lastAno, false).values().stream().limit(limit).toList();
+            }
+        }
+        misses.increment();
+        List<Assortment<Wine>> page = manager.getAssortmentsAfter(lastAno, limit);
+        synchronized (this) {
+            page.forEach(this::putAssortment);
+        }
+        return page;
+    }
+
+    /**
+     * Retrieves a wine by ID, whether or not it belongs to an assortment.
+     *
+     * @param wno the ID of the wine
+     * @return an Optional containing the wine, or an empty Optional if there is no wine with that ID
+     * @throws SQLException if an error occurs while reading the database
+     */
+    public Optional<Wine> getWine(int wno) throws SQLException {
+        synchronized (this) {
+            if (isFresh()) {
+                hits.increment();
+                return wines.getWine(wno);
+            }
+        }
+        misses.increment();
+        Optional<Wine> wine = manager.getWine(wno);
+        synchronized (this) {
+            wine.ifPresentOrElse(this::putWine, () -> removeWine(wno));
+        }
+        return wine;
+    }
+
+    /**
+     * Retrieves an assortment with its wines by ID.
+     *
+     * @param ano the ID of the assortment
+     * @return an Optional containing the assortment, or an empty Optional if there is no assortment with that ID
+     * @throws SQLException if an error occurs while reading the database
+     */
+    public Optional<Assortment<Wine>> getAssortment(int ano) throws SQLException {
+        synchronized (this) {
+            if (isFresh()) {
+                hits.increment();
+                return Optional.ofNullable(assortments.get(ano));
+            }
+        }
+        misses.increment();
+        Optional<Assortment<Wine>> assortment = manager.getAssortment(ano);
+        synchronized (this) {
+            assortment.ifPresentOrElse(this::putAssortment, () -> assortments.remove(ano));
+        }
+        return assortment;
+    }
+
+    /**
+     * Returns the cached wine with the given ID, without going to the database.
+     *
+     * @param wno the ID of the wine
+     * @return an Optional containing the cached wine, or an empty Optional if it isn't cached
+     */
+    public synchronized Optional<Wine> peekWine(int wno) {
+        return wines.getWine(wno);
+    }
+
+    /**
+     * Returns the cached assortment with the given ID, without going to the database.
+     *
+     * @param ano the ID of the assortment
+     * @return an Optional containing the cached assortment, or an empty Optional if it isn't cached
+     */
+    public synchronized Optional<Assortment<Wine>> peekAssortment(int ano) {
+        return Optional.ofNullable(assortments.get(ano));
+    }
+
+    /**
+     * Applies a change notified by the database.
+     * <p>
+     * Deleted rows are dropped; inserted and updated rows are read again by ID, along with the assortments a
+     * changed wine left or joined. Once this method returns, {@link #peekWine(int)} and
+     * {@link #peekAssortment(int)} reflect the change.
+     *
+     * @param event the change
+     * @throws SQLException if an error occurs while reading the changed rows
+     */
+    public void apply(@NotNull ChangeEvent event) throws SQLException {
+        synchronized (this) {
+            changeCount++;
+        }
+        switch (event.table()) {
+            case WINE -> {
+                if (event.operation() == ChangeEvent.Operation.DELETE) {
+                    synchronized (this) {
+                        removeWine(event.id());
+                    }
+                } else {
+                    Optional<Wine> wine = manager.getWine(event.id());
+                    synchronized (this) {
+                        wine.ifPresentOrElse(this::putWine, () -> removeWine(event.id()));
+                    }
+                }
+                if (event.assortmentId() != null) {
+                    refreshAssortment(event.assortmentId());
+                }
+                if (event.previousAssortmentId() != null && !event.previousAssortmentId().equals(event.assortmentId())) {
+                    refreshAssortment(event.previousAssortmentId());
+                }
+            }
+            case ASSORTMENT -> {
+                if (event.operation() == ChangeEvent.Operation.DELETE) {
+                    synchronized (this) {
+                        assortments.remove(event.id());
+                    }
+                } else {
+                    refreshAssortment(event.id());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts a new wine record into the database, then into the catalog.
+     *
+     * @param wine the Wine object representing the wine to be inserted
+     * @return an Optional Long representing the ID of the newly inserted wine record,
+     * or an empty Optional if the insertion failed
+     * @throws SQLException if an error occurs while inserting the wine record
+     * @see PostgreSQLManager#insertWine(Wine)
+     */
+    public Optional<Long> insertWine(@NotNull Wine wine) throws SQLException {
+        Optional<Long> id = manager.insertWine(wine);
+        if (id.isPresent()) {
+            synchronized (this) {
+                putWine(wine);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Updates a wine record in the database, provided it hasn't changed since it was read, then in the catalog.
+     * <p>
+     * The wine should be an edited copy of the wine of the catalog, which it replaces once the update applied, so
+     * that the catalog never serves values that weren't saved. If the row changed or disappeared since it was read,
+     * the wine is dropped from the catalog, since its values no longer match the database; {@link #refreshWine(int)}
+     * reads it again. If the update failed, the catalog is left as it was.
+     *
+     * @param wine the Wine object representing the wine to be updated
+     * @return the outcome of the compare-and-set update
+     * @throws SQLException if an error occurs while borrowing a database connection
+     * @see PostgreSQLManager#updateWine(Wine)
+     */
+    public UpdateOutcome updateWine(@NotNull Wine wine) throws SQLException {
+        return writeThrough(wine, manager.updateWine(wine));
+    }
+
+    /**
+     * Deletes a wine record from the database, then, once it is deleted, from the catalog.
+     *
+     * @param wine the Wine object representing the wine to be deleted
+     * @return true if the wine was deleted, false if it was no longer in the database or the deletion failed
+     * @throws SQLException if an error occurs while deleting the wine record
+     * @see PostgreSQLManager#deleteWine(Wine)
+     */
+    public boolean deleteWine(@NotNull Wine wine) throws SQLException {
+        boolean deleted = manager.deleteWine(wine);
+        if (deleted) {
+            synchronized (this) {
+                removeWine(wine.getId());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Inserts an assortment into the database, then into the catalog.
+     *
+     * @param assortment the Assortment object to be inserted
+     * @return an Optional containing the ID of the inserted Assortment, or an empty Optional if the insertion failed
+     * @see PostgreSQLManager#insertAssortment(Assortment)
+     */
+    public Optional<Long> insertAssortment(@NotNull Assortment<Wine> assortment) {
+        Optional<Long> id = manager.insertAssortment(assortment);
+        if (id.isPresent()) {
+            synchronized (this) {
+                putAssortment(assortment);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Deletes an assortment from the database, then from the catalog.
+     * <p>
+     * What becomes of the wines of a non-empty assortment is up to the database, so deleting one invalidates the
+     * whole catalog.
+     *
+     * @param assortment the Assortment object representing the assortment to be deleted
+     * @return an Optional Long representing the ID of the deleted assortment,
+     * or an empty Optional if the deletion failed
+     * @throws SQLException if an error occurs while deleting the assortment
+     * @see PostgreSQLManager#deleteAssortment(Assortment)
+     */
+    public Optional<Long> deleteAssortment(@NotNull Assortment<Wine> assortment) throws SQLException {
+        Optional<Long> id = manager.deleteAssortment(assortment);
+        synchronized (this) {
+            if (id.isPresent() && assortment.isEmpty()) {
+                assortments.remove(assortment.getId());
+            } else {
+                invalidate();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Inserts a wine into an assortment in the database, provided the wine hasn't changed since it was read.
+     * <p>
+     * Once the wine is moved, the catalog flags it and replaces its assortment with a copy holding the wine, so the
+     * Assortment objects already returned are never changed. If the row changed or disappeared, the wine is dropped
+     * from the catalog.
+     *
+     * @param wine       a copy of the wine to insert, which the catalog takes over
+     * @param assortment the assortment to insert the wine into
+     * @return the outcome of the compare-and-set update
+     * @throws SQLException if an error occurs while accessing the database
+     * @see PostgreSQLManager#insertWineInAssortment(Wine, Long)
+     */
+    public UpdateOutcome insertWineInAssortment(@NotNull Wine wine, @NotNull Assortment<Wine> assortment)
+            throws SQLException {
+        UpdateOutcome outcome = manager.insertWineInAssortment(wine, (long) assortment.getId());
+        synchronized (this) {
+            if (outcome.isSuccess()) {
+                Assortment<Wine> moved = copyOf(assortments.getOrDefault(assortment.getId(), assortment), wine.getId());
+                moved.add(wine);
+                putAssortment(moved);
+            } else if (outcome != UpdateOutcome.FAILED) {
+                removeWine(wine.getId());
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Deletes a wine from its assortment in the database, provided the wine hasn't changed since it was read.
+     * <p>
+     * Once the wine is moved, the catalog clears its flag and replaces its assortment with a copy without the wine,
+     * so the Assortment objects already returned are never changed. If the row changed or disappeared, the wine is
+     * dropped from the catalog.
+     *
+     * @param wine       a copy of the wine to delete, which the catalog takes over
+     * @param assortment the assortment the wine belongs to
+     * @return the outcome of the compare-and-set update
+     * @throws SQLException if an error occurs while accessing the database
+     * @see PostgreSQLManager#deleteWineInAssortment(Wine)
+     */
+    public UpdateOutcome deleteWineInAssortment(@NotNull Wine wine, @NotNull Assortment<Wine> assortment)
+            throws SQLException {
+        UpdateOutcome outcome = manager.deleteWineInAssortment(wine);
+        synchronized (this) {
+            if (outcome.isSuccess()) {
+                wine.setInAssortment(false);
+                putWine(wine);
+                putAssortment(copyOf(assortments.getOrDefault(assortment.getId(), assortment), wine.getId()));
+            } else if (outcome != UpdateOutcome.FAILED) {
+                removeWine(wine.getId());
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Reads a wine again from the database and replaces it in the catalog, typically after a conflict.
+     *
+     * @param wno the ID of the wine
+     * @return an Optional containing the current wine, or an empty Optional if it no longer exists
+     * @throws SQLException if an error occurs while reading the wine
+     */
+    public Optional<Wine> refreshWine(int wno) throws SQLException {
+        misses.increment();
+        Optional<Wine> wine = manager.getWine(wno);
+        synchronized (this) {
+            wine.ifPresentOrElse(this::putWine, () -> removeWine(wno));
+        }
+        return wine;
+    }
+
+    /**
+     * Reads an assortment again from the database and replaces it, and its wines, in the catalog.
+     *
+     * @param ano the ID of the assortment
+     * @return an Optional containing the current assortment, or an empty Optional if it no longer exists
+     * @throws SQLException if an error occurs while reading the assortment
+     */
+    public Optional<Assortment<Wine>> refreshAssortment(int ano) throws SQLException {
+        misses.increment();
+        Optional<Assortment<Wine>> assortment = manager.getAssortment(ano);
+        synchronized (this) {
+            assortment.ifPresentOrElse(this::putAssortment, () -> assortments.remove(ano));
+        }
+        return assortment;
+    }
+
+    /**
+     * Puts a wine in the catalog after a successful compare-and-set update, and drops it if the row changed or
+     * disappeared. A failed update leaves the catalog untouched.
+     *
+     * @param wine    the updated wine
+     * @param outcome the outcome of the update
+     * @return the outcome
+     */
+    private UpdateOutcome writeThrough(@NotNull Wine wine, @NotNull UpdateOutcome outcome) {
+        synchronized (this) {
+            if (outcome.isSuccess()) {
+                putWine(wine);
+            } else if (outcome != UpdateOutcome.FAILED) {
+                removeWine(wine.getId());
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Copies an assortment and its wines, leaving one wine out.
+     *
+     * @param assortment  the assortment to copy
+     * @param excludedWno the ID of the wine to leave out
+     * @return a new Assortment with the same ID and year, holding copies of the other wines
+     */
+    private static @NotNull Assortment<Wine> copyOf(@NotNull Assortment<Wine> assortment, int excludedWno) {
+        Assortment<Wine> copy = new Assortment<>(assortment.getId(), assortment.getYear());
+        for (Wine wine : assortment) {
+            if (wine.getId() != excludedWno) {
+                copy.add(wine.toBuilder().inAssortment(false).build());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Puts an assortment and its wines in the catalog. The caller must hold the catalog.
+     *
+     * @param assortment the assortment
+     */
+    private void putAssortment(@NotNull Assortment<Wine> assortment) {
+        assortments.put(assortment.getId(), assortment);
+        assortment.forEach(this::putWine);
+    }
+
+    /**
+     * Puts a wine in the catalog and indexes it. The caller must hold the catalog.
+     *
+     * @param wine the wine
+     */
+    private void putWine(@NotNull Wine wine) {
+        wines.put(wine);
+        searchIndex.put(wine);
+    }
+
+    /**
+     * Drops a wine from the catalog and from the index. The caller must hold the catalog.
+     *
+     * @param wno the ID of the wine
+     */
+    private void removeWine(int wno) {
+        wines.remove(wno);
+        searchIndex.remove(wno);
+    }
+}
@@ -0,0 +1,156 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Money;
+import eu.lilithmonodia.winestock.data.Wine;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes and decodes Wine rows in the PostgreSQL {@code COPY} text format.
+ * <p>
+ * Columns are separated by tabs, rows end with a newline, {@code \N} stands for NULL, and backslashes,
+ * tabs, newlines and carriage returns inside values are escaped with a backslash.
+ * Bottle sizes and colours are written the same way as in the INSERT and UPDATE statements:
+ * the volume in centilitres and the colour name. Prices are written and read as exact decimals with two digits,
+ * as {@link Money} formats and parses them, never through a double.
+ */
+final class WineCopyFormat {
+    private static final String NULL = "\\N";
+
+    private WineCopyFormat() {
+    }
+
+    /**
+     * Appends a wine as one {@code name, year, volume, color, price, comment} row.
+     *
+     * @param wine the wine to encode
+     * @param row  the builder to append the row to
+     */
+    static void encode(@NotNull Wine wine, @NotNull StringBuilder row) {
+        appendText(row, wine.getName()).append('\t');
+        row.append(wine.getYear().getValue()).append('\t');
+        row.append(wine.getVolume().getVolume()).append('\t');
+        row.append(wine.getColor().name()).append('\t');
+        row.append(Money.format(wine.getPriceCents())).append('\t');
+        appendText(row, wine.getComment()).append('\n');
+    }
+
+    /**
+     * Decodes a {@code wno, name, year, volume, color, price, comment, version, ano} row into a Wine.
+     *
+     * @param line the row, with or without its trailing newline
+     * @return the decoded Wine, with its row version, flagged as in an assortment when {@code ano} isn't NULL
+     * @throws IllegalArgumentException if the row is malformed or holds an unknown volume or colour
+     */
+    static @NotNull Wine decode(@NotNull String line) {
+        List<String> fields = split(line);
+        if (fields.size() != 9) {
+            throw new IllegalArgumentException("Expected 9 columns in COPY row but got " + fields.size());
+        }
+        BottleSize volume = BottleSize.findByVolume(Double.parseDouble(fields.get(3)));
+        if (volume == null) {
+            throw new IllegalArgumentException("Invalid bottle volume: " + fields.get(3));
+        }
+        return Wine.builder().id(Integer.parseInt(fields.get(0)))
+                .name(fields.get(1))
+                .year(Year.of(Integer.parseInt(fields.get(2))))
+                .volume(volume)
+                .color(Color.valueOf(fields.get(4)))
+                .priceCents(Money.parse(fields.get(5)))
+                .comment(fields.get(6))
+                .version(Integer.parseInt(fields.get(7)))
+                .inAssortment(fields.get(8) != null).build();
+    }
+
+    /**
+     * Appends a text value, escaped for the COPY text format.
+     *
+     * @param row   the builder to append to
+     * @param value the value, possibly null
+     * @return the builder
+     */
+    private static @NotNull StringBuilder appendText(@NotNull StringBuilder row, String value) {
+        if (value == null) {
+            return row.append(NULL);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                default -> row.append(c);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Splits a row into its unescaped column values.
+     * <p>
+     * Tabs inside values are always escaped, so every raw tab is a column separator.
+     *
+     * @param line the row
+     * @return the column values, with null for NULL columns
+     */
+    private static @NotNull List<String> split(@NotNull String line) {
+        List<String> fields = new ArrayList<>(9);
+        int end = line.endsWith("\n") ? line.length() - 1 : line.length();
+        int start = 0;
+        while (start <= end) {
+            int tab = line.indexOf('\t', start);
+            int fieldEnd = tab < 0 || tab > end ? end : tab;
+            fields.add(unescapeField(line, start, fieldEnd));
+            start = fieldEnd + 1;
+        }
+        return fields;
+    }
+
+    /**
+     * Unescapes one raw column value.
+     *
+     * @param line  the row
+     * @param start the index of the first character of the value
+     * @param end   the index after the last character of the value
+     * @return the unescaped value, or null if the value is {@code \N}
+     */
+    private static String unescapeField(@NotNull String line, int start, int end) {
+        if (end - start == 2 && line.startsWith(NULL, start)) {
+            return null;
+        }
+        StringBuilder field = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                field.append(unescape(line.charAt(++i)));
+            } else {
+                field.append(c);
+            }
+        }
+        return field.toString();
+    }
+
+    /**
+     * Returns the character represented by a backslash escape sequence.
+     *
+     * @param c the character following the backslash
+     * @return the unescaped character
+     */
+    private static char unescape(char c) {
+        return switch (c) {
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'v' -> '\u000B';
+            default -> c;
+        };
+    }
+}
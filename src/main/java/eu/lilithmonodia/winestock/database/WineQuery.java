@@ -0,0 +1,260 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Money;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.data.WineSearchIndex;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The WineQuery class describes a search for wines, run by the database with
+ * {@link PostgreSQLManager#findWines(WineQuery)}.
+ * <p>
+ * Every criterion is optional; a query without criteria matches every wine. The criteria are compiled into a
+ * parameterised WHERE clause, which the indexes installed by {@link PostgreSQLManager#installSearchIndexes()}
+ * serve. The name criteria ignore case. The search words follow the rules of the {@link WineSearchIndex}, so that a
+ * search answered by the database finds the same wines as one answered from memory. The same criteria can be
+ * checked in memory with {@link #test(Wine)}, to decide whether a wine changed by the application still belongs to
+ * the results shown.
+ * <p>
+ * Queries sorted by ID can be paged with {@code afterId}, as the wine table does.
+ */
+@Getter
+@EqualsAndHashCode
+@Builder(toBuilder = true)
+public final class WineQuery implements Predicate<Wine> {
+    /**
+     * The query matching every wine, sorted by ID.
+     */
+    public static final WineQuery ALL = WineQuery.builder().build();
+    /**
+     * The accented Latin letters, upper and lower case, of the Latin-1 Supplement and Latin Extended-A blocks.
+     */
+    static final String ACCENTED_LETTERS = "ÀÁÂÃÄÅÇÈÉÊËÌÍÎÏÑÒÓÔÕÖÙÚÛÜÝàáâãäåçèéêëìíîïñòóôõöùúûüýÿĀāĂăĄąĆćĈĉĊċČčĎďĒēĔĕĖėĘęĚěĜĝĞğĠġĢģĤĥĨĩĪīĬĭĮįİĴĵĶķĹĺĻļĽľŃńŅņŇňŌōŎŏŐőŔŕŖŗŘřŚśŜŝŞşŠšŢţŤťŨũŪūŬŭŮůŰűŲųŴŵŶŷŸŹźŻżŽž";
+    /**
+     * The letters {@link #ACCENTED_LETTERS} fold to in the search index, position by position.
+     */
+    static final String FOLDED_LETTERS = "aaaaaaceeeeiiiinooooouuuuyaaaaaaceeeeiiiinooooouuuuyyaaaaaaccccccccddeeeeeeeeeegggggggghhiiiiiiiiijjkkllllllnnnnnnoooooorrrrrrssssssssttttuuuuuuuuuuuuwwyyyzzzzzz";
+    /**
+     * The SQL expression the search words are matched against: the name and comment of the wine, folded to lower
+     * case without accents like the words of the search index. The trigram index on this expression serves the
+     * searches.
+     */
+    static final String SEARCH_TEXT = "translate(lower(coalesce(name, '') || ' ' || coalesce(comment, '')), '"
+            + ACCENTED_LETTERS + "', '" + FOLDED_LETTERS + "')";
+    private static final String WORD_START = "(^|[^[:alnum:]])";
+    private static final Pattern YEAR_WORD = Pattern.compile("\\d{4}");
+
+    private final List<String> searchWords;
+    private final String nameStartsWith;
+    private final String nameContains;
+    private final Integer minYear;
+    private final Integer maxYear;
+    private final Color color;
+    private final BottleSize volume;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final Boolean inAssortment;
+    private final Integer afterId;
+    @Builder.Default
+    private final @NotNull Sort sort = Sort.ID;
+    private final boolean descending;
+    private final int limit;
+
+    /**
+     * The orders in which the results can be sorted. Ties are broken by ID.
+     */
+    public enum Sort {
+        /**
+         * By wine ID.
+         */
+        ID("wno"),
+        /**
+         * By name, ignoring case.
+         */
+        NAME("lower(name)"),
+        /**
+         * By vintage.
+         */
+        YEAR("year"),
+        /**
+         * By price.
+         */
+        PRICE("price");
+
+        private final String expression;
+
+        /**
+         * Constructor for the Sort enum.
+         *
+         * @param expression the SQL expression sorted on
+         */
+        Sort(String expression) {
+            this.expression = expression;
+        }
+    }
+
+    /**
+     * The SQL text of a compiled query and the values of its parameters, in order.
+     *
+     * @param sql        the SQL text
+     * @param parameters the values of the parameters
+     */
+    record Compiled(@NotNull String sql, @NotNull List<Object> parameters) {
+    }
+
+    /**
+     * Builds the query typed in the search box of the wine table.
+     * <p>
+     * The text is split into words with the rules of {@link WineSearchIndex#search(String)}, and a wine must match
+     * every word: a word matches if it starts a word of the name or comment, ignoring case and accents, if it names
+     * the colour or bottle size, or if it is the four-digit year. The query is sorted by ID and doesn't restrict
+     * membership in assortments.
+     *
+     * @param text the text typed by the user
+     * @return the query matching the text
+     */
+    public static @NotNull WineQuery fromSearchText(@NotNull String text) {
+        List<String> words = WineSearchIndex.words(text);
+        return words.isEmpty() ? ALL : WineQuery.builder().searchWords(words).build();
+    }
+
+    /**
+     * Checks whether a wine meets the criteria of the query. The sort order, the page and the limit are ignored.
+     *
+     * @param wine the wine to check
+     * @return true if the wine matches every criterion
+     */
+    @Override
+    public boolean test(@NotNull Wine wine) {
+        String name = wine.getName() == null ? "" : wine.getName().toLowerCase(Locale.ROOT);
+        return (searchWords == null || WineSearchIndex.matches(String.join(" ", searchWords), wine))
+                && (nameStartsWith == null || name.startsWith(nameStartsWith.toLowerCase(Locale.ROOT)))
+                && (nameContains == null || name.contains(nameContains.toLowerCase(Locale.ROOT)))
+                && (minYear == null || wine.getYear().getValue() >= minYear)
+                && (maxYear == null || wine.getYear().getValue() <= maxYear)
+                && (color == null || wine.getColor() == color)
+                && (volume == null || wine.getVolume() == volume)
+                && (minPrice == null || Money.toBigDecimal(wine.getPriceCents()).compareTo(minPrice) >= 0)
+                && (maxPrice == null || Money.toBigDecimal(wine.getPriceCents()).compareTo(maxPrice) <= 0)
+                && (inAssortment == null || wine.isInAssortment() == inAssortment);
+    }
+
+    /**
+     * Compiles the query into a parameterised SELECT of the wine columns, with the ano column last.
+     *
+     * @return the SQL text and its parameters
+     * @throws IllegalStateException if the query is paged with {@code afterId} but not sorted by ascending ID
+     */
+    @NotNull Compiled compile() {
+        if (afterId != null && (sort != Sort.ID || descending)) {
+            throw new IllegalStateException("Only queries sorted by ascending ID can be paged by ID");
+        }
+        StringBuilder sql = new StringBuilder("SELECT wno, name, year, volume, color, price, comment, version, ano FROM public.wine");
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        if (searchWords != null) {
+            searchWords.forEach(word -> addSearchWord(conditions, parameters, word));
+        }
+        if (nameStartsWith != null) {
+            conditions.add("lower(name) LIKE ?");
+            parameters.add(escapeLike(nameStartsWith.toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (nameContains != null) {
+            conditions.add("lower(name) LIKE ?");
+            parameters.add("%" + escapeLike(nameContains.toLowerCase(Locale.ROOT)) + "%");
+        }
+        addCondition(conditions, parameters, "year >= ?", minYear);
+        addCondition(conditions, parameters, "year <= ?", maxYear);
+        addCondition(conditions, parameters, "color = ?", color == null ? null : color.name());
+        addCondition(conditions, parameters, "volume = ?", volume == null ? null : volume.getVolume());
+        addCondition(conditions, parameters, "price >= ?", minPrice);
+        addCondition(conditions, parameters, "price <= ?", maxPrice);
+        if (inAssortment != null) {
+            conditions.add(inAssortment ? "ano IS NOT NULL" : "ano IS NULL");
+        }
+        addCondition(conditions, parameters, "wno > ?", afterId);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        String direction = descending ? " DESC" : "";
+        sql.append(" ORDER BY ");
+        if (sort != Sort.ID) {
+            sql.append(sort.expression).append(direction).append(", ");
+        }
+        sql.append("wno").append(direction);
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            parameters.add(limit);
+        }
+        return new Compiled(sql.toString(), parameters);
+    }
+
+    /**
+     * Adds a condition with a single parameter if the criterion is set.
+     *
+     * @param conditions the conditions of the WHERE clause
+     * @param parameters the parameters of the query
+     * @param condition  the condition, with one placeholder
+     * @param value      the value of the criterion, or null if it isn't set
+     */
+    private static void addCondition(@NotNull List<String> conditions, @NotNull List<Object> parameters,
+                                     @NotNull String condition, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.add(value);
+        }
+    }
+
+    /**
+     * Adds the condition matching one search word, as {@link WineSearchIndex#matches(String, Wine)} does: the word
+     * starts a word of the folded name or comment, or names the colour or bottle size, or is the year.
+     *
+     * @param conditions the conditions of the WHERE clause
+     * @param parameters the parameters of the query
+     * @param word       the search word, folded to lower case without accents
+     */
+    private static void addSearchWord(@NotNull List<String> conditions, @NotNull List<Object> parameters,
+                                      @NotNull String word) {
+        StringBuilder condition = new StringBuilder("(").append(SEARCH_TEXT).append(" ~ ?");
+        // The words of the index hold only letters and digits, which have no special meaning in a regular expression.
+        parameters.add(WORD_START + word);
+        Color color = Color.findByName(word.toUpperCase(Locale.ROOT));
+        if (color != null) {
+            condition.append(" OR color = ?");
+            parameters.add(color.name());
+        }
+        for (BottleSize volume : BottleSize.values()) {
+            if (volume.name().toLowerCase(Locale.ROOT).equals(word)) {
+                condition.append(" OR volume = ?");
+                parameters.add(volume.getVolume());
+            }
+        }
+        if (YEAR_WORD.matcher(word).matches()) {
+            condition.append(" OR year = ?");
+            parameters.add(Integer.parseInt(word));
+        }
+        conditions.add(condition.append(')').toString());
+    }
+
+    /**
+     * Escapes the wildcards of a LIKE pattern, so that the text is matched literally.
+     *
+     * @param text the text to match
+     * @return the text with its backslashes, percent signs and underscores escaped
+     */
+    static @NotNull String escapeLike(@NotNull String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
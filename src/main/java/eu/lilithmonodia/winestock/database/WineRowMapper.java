@@ -0,0 +1,170 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Money;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.data.WineStore;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Year;
+
+/**
+ * Maps the rows of a wine query to Wine objects.
+ * <p>
+ * The column indexes are resolved once, when the mapper is created for a ResultSet, so mapping a row reads every
+ * column by index. The year, bottle size and colour are decoded through lookup tables and the wine is created with
+ * its constructor, so that the only objects allocated per row are the wine and its strings.
+ */
+final class WineRowMapper {
+    private static final int FIRST_CACHED_YEAR = 1000;
+    private static final Year[] YEARS = new Year[2000];
+
+    private final int wnoColumn;
+    private final int nameColumn;
+    private final int yearColumn;
+    private final int volumeColumn;
+    private final int colorColumn;
+    private final int priceColumn;
+    private final int commentColumn;
+    private final int versionColumn;
+
+    /**
+     * Constructs a new WineRowMapper for the rows of a ResultSet.
+     *
+     * @param resultSet the ResultSet holding the wno, name, year, volume, color, price, comment and version columns
+     * @throws SQLException if one of the columns is missing
+     */
+    WineRowMapper(@NotNull ResultSet resultSet) throws SQLException {
+        this.wnoColumn = resultSet.findColumn("wno");
+        this.nameColumn = resultSet.findColumn("name");
+        this.yearColumn = resultSet.findColumn("year");
+        this.volumeColumn = resultSet.findColumn("volume");
+        this.colorColumn = resultSet.findColumn("color");
+        this.priceColumn = resultSet.findColumn("price");
+        this.commentColumn = resultSet.findColumn("comment");
+        this.versionColumn = resultSet.findColumn("version");
+    }
+
+    /**
+     * Gets the column index of the wine ID, to check whether a joined row holds a wine.
+     *
+     * @return the index of the wno column
+     */
+    int getWnoColumn() {
+        return wnoColumn;
+    }
+
+    /**
+     * Maps the current row of the ResultSet to a Wine.
+     *
+     * @param resultSet the ResultSet the mapper was created for, positioned on a row
+     * @return the Wine held by the row, not flagged as in an assortment
+     * @throws SQLException             if an error occurs while accessing the ResultSet
+     * @throws IllegalArgumentException if the row holds an unknown volume or colour
+     */
+    @NotNull Wine map(@NotNull ResultSet resultSet) throws SQLException {
+        return new Wine(resultSet.getInt(wnoColumn),
+                resultSet.getString(nameColumn),
+                year(resultSet.getInt(yearColumn)),
+                bottleSize(resultSet),
+                color(resultSet),
+                price(resultSet),
+                resultSet.getString(commentColumn),
+                false,
+                resultSet.getInt(versionColumn));
+    }
+
+    /**
+     * Stores the current row of the ResultSet in a WineStore, without creating a Wine.
+     *
+     * @param resultSet    the ResultSet the mapper was created for, positioned on a row
+     * @param store        the store to put the wine in
+     * @param inAssortment whether the wine belongs to an assortment
+     * @throws SQLException             if an error occurs while accessing the ResultSet
+     * @throws IllegalArgumentException if the row holds an unknown volume or colour
+     */
+    void mapInto(@NotNull ResultSet resultSet, @NotNull WineStore store, boolean inAssortment) throws SQLException {
+        store.put(resultSet.getInt(wnoColumn),
+                resultSet.getString(nameColumn),
+                resultSet.getInt(yearColumn),
+                bottleSize(resultSet),
+                color(resultSet),
+                price(resultSet),
+                resultSet.getString(commentColumn),
+                inAssortment,
+                resultSet.getInt(versionColumn));
+    }
+
+    /**
+     * Reads the price of the current row, in cents.
+     * <p>
+     * The price column is a {@code NUMERIC(10, 2)}: read as a double, it is converted back to cents exactly, without
+     * the BigDecimal the driver would otherwise create for each row.
+     *
+     * @param resultSet the ResultSet, positioned on a row
+     * @return the price, in cents
+     * @throws SQLException if an error occurs while accessing the ResultSet
+     */
+    private long price(@NotNull ResultSet resultSet) throws SQLException {
+        return Money.fromDouble(resultSet.getDouble(priceColumn));
+    }
+
+    /**
+     * Decodes the bottle size of the current row.
+     *
+     * @param resultSet the ResultSet, positioned on a row
+     * @return the bottle size
+     * @throws SQLException             if an error occurs while accessing the ResultSet
+     * @throws IllegalArgumentException if the volume matches no bottle size
+     */
+    private @NotNull BottleSize bottleSize(@NotNull ResultSet resultSet) throws SQLException {
+        double volume = resultSet.getDouble(volumeColumn);
+        BottleSize bottleSize = BottleSize.findByVolume(volume);
+        if (bottleSize == null) {
+            throw new IllegalArgumentException("Invalid bottle volume: " + volume);
+        }
+        return bottleSize;
+    }
+
+    /**
+     * Decodes the colour of the current row.
+     *
+     * @param resultSet the ResultSet, positioned on a row
+     * @return the colour
+     * @throws SQLException             if an error occurs while accessing the ResultSet
+     * @throws IllegalArgumentException if the colour is unknown
+     */
+    private @NotNull Color color(@NotNull ResultSet resultSet) throws SQLException {
+        String colorName = resultSet.getString(colorColumn);
+        Color color = Color.findByName(colorName);
+        if (color == null) {
+            throw new IllegalArgumentException("Invalid wine colour: " + colorName);
+        }
+        return color;
+    }
+
+    /**
+     * Gets the Year for a value, shared between rows for the years 1000 to 2999.
+     * <p>
+     * Year instances are immutable, so the cache needs no synchronisation: racing threads at worst create the same
+     * year twice.
+     *
+     * @param value the year value
+     * @return the Year
+     */
+    static @NotNull Year year(int value) {
+        int index = value - FIRST_CACHED_YEAR;
+        if (index < 0 || index >= YEARS.length) {
+            return Year.of(value);
+        }
+        Year year = YEARS[index];
+        if (year == null) {
+            year = Year.of(value);
+            YEARS[index] = year;
+        }
+        return year;
+    }
+}
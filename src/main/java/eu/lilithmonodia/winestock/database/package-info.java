@@ -5,6 +5,23 @@
  * <ul>
  *     <li>PostgreSQLManager: A class responsible for managing the PostgreSQL database connection and operations, such
  *     as data retrieval and insertion.</li>
+ *     <li>ConnectionPool: A bounded pool of database connections with idle eviction, validation on borrow and
+ *     leak detection.</li>
+ *     <li>PooledConnection: A connection borrowed from the ConnectionPool, given back when closed.</li>
+ *     <li>PoolConfiguration: A record holding the sizing and timing settings of the ConnectionPool.</li>
+ *     <li>WineQuery: Describes a search for wines, compiled into a parameterised query run by the database.</li>
+ *     <li>WineRowMapper: Maps the rows of a wine query to Wine objects, with the column indexes resolved once per
+ *     ResultSet.</li>
+ *     <li>WineCopyFormat: Encodes and decodes wines in the PostgreSQL COPY text format for bulk import and export.</li>
+ *     <li>UpdateOutcome: An enum describing the result of a compare-and-set update of a wine row.</li>
+ *     <li>ChangeListener: Listens on a dedicated connection for the row-level changes published by the database
+ *     triggers.</li>
+ *     <li>WineCatalog: An in-memory cache of the wines and assortments, written through to the database and kept
+ *     current by the change notifications.</li>
+ *     <li>ChangeEvent: A record describing a row-level change of a wine or an assortment.</li>
+ *     <li>SchemaMigration: Brings the schema of a database up to date, run once per database with
+ *     {@code ./gradlew migrate}.</li>
+ *     <li>SqlScript: Reads the SQL scripts shipped with the package and splits them into statements.</li>
  * </ul>
  */
 package eu.lilithmonodia.winestock.database;
\ No newline at end of file
@@ -161,7 +161,17 @@ public enum Errors {
     /**
      * Represents an error when deleting an assortment from the database fails.
      */
-    FAILED_TO_OPEN_LINK("Failed to open link.");
+    FAILED_TO_OPEN_LINK("Failed to open link."),
+
+    /**
+     * Represents an error when a wine was changed or deleted by another user since it was loaded.
+     */
+    WINE_CHANGED_BY_ANOTHER_USER("The wine was changed or deleted by another user. It has been reloaded."),
+
+    /**
+     * Represents an error when the database schema hasn't been migrated for this version of the application.
+     */
+    DATABASE_NOT_MIGRATED("The database must be migrated first: run ./gradlew migrate as the owner of the tables.");
 
     // The error message associated with the enum value.
     private final String value;
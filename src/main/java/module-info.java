@@ -32,6 +32,7 @@ module eu.lilithmonodia.winestock {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires org.postgresql.jdbc;
     requires org.jetbrains.annotations;
     requires java.desktop;
     requires org.apache.logging.log4j;
@@ -0,0 +1,58 @@
+-- Publishes row-level changes of public.wine and public.assortment on the 'winestock_changes' channel.
+--
+-- Each notification payload is a comma-separated line:
+--   table,operation,id,assortment,previous_assortment
+-- where table is 'wine' or 'assortment', operation is INSERT, UPDATE or DELETE, id is the wno or ano of the row,
+-- and, for wines only, assortment and previous_assortment are the new and old ano (empty when NULL or not applicable).
+--
+-- The script does nothing once both triggers exist, so that running it again takes no lock and needs no privilege.
+-- Dropping either trigger makes the next run install the current version of the function and of both triggers.
+
+DO
+$install$
+    BEGIN
+        IF EXISTS (SELECT 1
+                   FROM pg_trigger
+                   WHERE tgrelid = 'public.wine'::regclass
+                     AND tgname = 'winestock_wine_changes')
+            AND EXISTS (SELECT 1
+                        FROM pg_trigger
+                        WHERE tgrelid = 'public.assortment'::regclass
+                          AND tgname = 'winestock_assortment_changes') THEN
+            RETURN;
+        END IF;
+
+        CREATE OR REPLACE FUNCTION public.winestock_notify_change() RETURNS trigger AS
+        $function$
+        DECLARE
+            payload TEXT;
+        BEGIN
+            IF TG_TABLE_NAME = 'wine' THEN
+                payload := concat_ws(',', 'wine', TG_OP,
+                                     CASE WHEN TG_OP = 'DELETE' THEN OLD.wno ELSE NEW.wno END,
+                                     CASE WHEN TG_OP = 'DELETE' THEN '' ELSE coalesce(NEW.ano::TEXT, '') END,
+                                     CASE WHEN TG_OP = 'INSERT' THEN '' ELSE coalesce(OLD.ano::TEXT, '') END);
+            ELSE
+                payload := concat_ws(',', 'assortment', TG_OP,
+                                     CASE WHEN TG_OP = 'DELETE' THEN OLD.ano ELSE NEW.ano END, '', '');
+            END IF;
+            PERFORM pg_notify('winestock_changes', payload);
+            RETURN NULL;
+        END;
+        $function$ LANGUAGE plpgsql;
+
+        DROP TRIGGER IF EXISTS winestock_wine_changes ON public.wine;
+        CREATE TRIGGER winestock_wine_changes
+            AFTER INSERT OR UPDATE OR DELETE
+            ON public.wine
+            FOR EACH ROW
+        EXECUTE FUNCTION public.winestock_notify_change();
+
+        DROP TRIGGER IF EXISTS winestock_assortment_changes ON public.assortment;
+        CREATE TRIGGER winestock_assortment_changes
+            AFTER INSERT OR UPDATE OR DELETE
+            ON public.assortment
+            FOR EACH ROW
+        EXECUTE FUNCTION public.winestock_notify_change();
+    END
+$install$;
@@ -0,0 +1,18 @@
+-- Adds the row version used for the optimistic concurrency control of wine updates.
+--
+-- Every update made by the application increments the version and only applies if the row still has the version
+-- it was read with. The column is only added when missing, so the script needs no privilege once it has run.
+
+DO
+$$
+    BEGIN
+        IF NOT EXISTS (SELECT 1
+                       FROM information_schema.columns
+                       WHERE table_schema = 'public'
+                         AND table_name = 'wine'
+                         AND column_name = 'version') THEN
+            ALTER TABLE public.wine
+                ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
+        END IF;
+    END
+$$;
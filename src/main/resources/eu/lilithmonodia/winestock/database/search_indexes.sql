@@ -0,0 +1,34 @@
+-- Creates the indexes serving the wine searches built with WineQuery.
+--
+-- Year and price ranges use B-tree indexes ending with wno, so that results sorted by ID can be paged from the index.
+-- Name prefixes use a B-tree index on the lower-cased name with the pattern operator class, which LIKE 'abc%' can
+-- use whatever the collation. Substring searches need trigram indexes, which require the pg_trgm extension: it is
+-- created when the role may do so, otherwise the trigram indexes are skipped and substring searches scan the table.
+-- The words typed in the search box are matched against the name and comment folded without accents: the second
+-- trigram index is on that expression, which must stay the same as WineQuery.SEARCH_TEXT.
+-- Colours and bottle sizes are not selective enough to be worth an index of their own.
+--
+-- The indexes are built concurrently, so that the wine table stays writable during the build. A concurrent build
+-- can't run in a transaction: each statement runs on its own, and ends with a semicolon at the end of a line.
+-- Every statement is skipped once its index exists. A build that fails leaves an invalid index behind, which must
+-- be dropped before the script is run again.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS wine_year_idx ON public.wine (year, wno);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS wine_price_idx ON public.wine (price, wno);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS wine_name_prefix_idx ON public.wine (lower(name) text_pattern_ops);
+
+DO
+$$
+    BEGIN
+        CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    EXCEPTION
+        WHEN insufficient_privilege OR undefined_file THEN
+            RAISE NOTICE 'pg_trgm is unavailable, wine name substring searches will scan the table';
+    END
+$$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS wine_name_trgm_idx ON public.wine USING gin (lower(name) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS wine_search_text_trgm_idx ON public.wine USING gin ((translate(lower(coalesce(name, '') || ' ' || coalesce(comment, '')), 'ÀÁÂÃÄÅÇÈÉÊËÌÍÎÏÑÒÓÔÕÖÙÚÛÜÝàáâãäåçèéêëìíîïñòóôõöùúûüýÿĀāĂăĄąĆćĈĉĊċČčĎďĒēĔĕĖėĘęĚěĜĝĞğĠġĢģĤĥĨĩĪīĬĭĮįİĴĵĶķĹĺĻļĽľŃńŅņŇňŌōŎŏŐőŔŕŖŗŘřŚśŜŝŞşŠšŢţŤťŨũŪūŬŭŮůŰűŲųŴŵŶŷŸŹźŻżŽž', 'aaaaaaceeeeiiiinooooouuuuyaaaaaaceeeeiiiinooooouuuuyyaaaaaaccccccccddeeeeeeeeeegggggggghhiiiiiiiiijjkkllllllnnnnnnoooooorrrrrrssssssssttttuuuuuuuuuuuuwwyyyzzzzzz')) gin_trgm_ops);
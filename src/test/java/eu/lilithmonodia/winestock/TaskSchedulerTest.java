@@ -0,0 +1,79 @@
+package eu.lilithmonodia.winestock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSchedulerTest {
+
+    private TaskScheduler scheduler;
+    private CountDownLatch release;
+    private CountDownLatch started;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new TaskScheduler(1, 2);
+        release = new CountDownLatch(1);
+        started = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.close();
+    }
+
+    @Test
+    void testSubmitLatestCancelsQueuedTask() throws Exception {
+        occupyWorker();
+        AtomicBoolean olderRan = new AtomicBoolean();
+        FutureTask<Boolean> older = scheduler.submitLatest("refresh", new FutureTask<>(() -> olderRan.getAndSet(true)));
+        FutureTask<String> latest = scheduler.submitLatest("refresh", new FutureTask<>(() -> "latest"));
+
+        assertTrue(older.isCancelled());
+        assertEquals(1, scheduler.getQueueDepth());
+
+        release.countDown();
+        assertEquals("latest", latest.get(5, TimeUnit.SECONDS));
+        assertFalse(olderRan.get());
+    }
+
+    @Test
+    void testQueueIsBounded() throws Exception {
+        occupyWorker();
+        scheduler.submit(new FutureTask<>(() -> 1));
+        scheduler.submit(new FutureTask<>(() -> 2));
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(new FutureTask<>(() -> 3)));
+    }
+
+    @Test
+    void testLatencyIsRecorded() throws Exception {
+        FutureTask<String> task = scheduler.submit(new FutureTask<>(() -> "done"));
+        assertEquals("done", task.get(5, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getCompletedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, scheduler.getCompletedCount());
+        assertTrue(scheduler.getMaxLatencyMillis() >= scheduler.getAverageLatencyMillis());
+    }
+
+    private void occupyWorker() throws InterruptedException {
+        scheduler.submit(new FutureTask<>(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+}
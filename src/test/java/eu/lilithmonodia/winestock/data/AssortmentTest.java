@@ -1,6 +1,8 @@
 package eu.lilithmonodia.winestock.data;
 
 import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
+import eu.lilithmonodia.winestock.exceptions.WineAlreadyInAssortmentException;
+import eu.lilithmonodia.winestock.exceptions.WineNotInAssortmentException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -70,6 +72,135 @@ class AssortmentTest {
         });
     }
 
+    @Test
+    void testTotalPriceHasNoDrift() {
+        List<Wine> wines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            wines.add(Wine.builder().id(i).name("Wine" + i).year(Year.of(2020))
+                    .volume(BottleSize.BOUTEILLE).color(Color.ROUGE).price(0.1).comment("").build());
+        }
+        assortment.addAll(wines);
+        assertEquals(1.0, assortment.getTotalPrice());
+
+        assortment.remove(wines.get(0));
+        assortment.remove(wines.get(1));
+        assertEquals(0.8, assortment.getTotalPrice());
+    }
+
+    @Test
+    void testTotalPriceCentsStayExact() {
+        List<Wine> wines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            wines.add(Wine.builder().id(i).name("Wine" + i).year(Year.of(2020))
+                    .volume(BottleSize.BOUTEILLE).color(Color.ROUGE).price(0.01 * (i % 7) + 19.99).comment("").build());
+        }
+        assortment.addAll(wines);
+        long expected = wines.stream().mapToLong(Wine::getPriceCents).sum();
+        assertEquals(expected, assortment.getTotalPriceCents());
+
+        for (int i = 0; i < 1000; i += 3) {
+            assortment.remove(wines.get(i));
+            expected -= wines.get(i).getPriceCents();
+        }
+        assertEquals(expected, assortment.getTotalPriceCents());
+        assertEquals(expected, assortment.stream().mapToLong(Wine::getPriceCents).sum());
+    }
+
+    @Test
+    void testWineNamesFollowChanges() {
+        assortment.add(wine1);
+        assertEquals("Wine1", assortment.getWineNames());
+        assortment.add(wine2);
+        assertEquals("Wine1, Wine2", assortment.getWineNames());
+        assortment.remove(0);
+        assertEquals("Wine2", assortment.getWineNames());
+        assertEquals(100.0, assortment.getTotalPrice());
+    }
+
+    @Test
+    void testMembershipIsByEquality() {
+        wine1.setId(7);
+        assortment.add(wine1);
+        Wine copy = Wine.builder().id(wine1.getId()).name(wine1.getName()).year(wine1.getYear())
+                .volume(wine1.getVolume()).color(wine1.getColor()).price(wine1.getPrice())
+                .comment(wine1.getComment()).inAssortment(true).build();
+        Wine repriced = Wine.builder().id(wine1.getId()).name(wine1.getName()).year(wine1.getYear())
+                .volume(wine1.getVolume()).color(wine1.getColor()).price(wine1.getPrice() + 1)
+                .comment(wine1.getComment()).inAssortment(true).build();
+
+        assertTrue(assortment.contains(copy));
+        assertFalse(assortment.contains(repriced));
+        assertTrue(assortment.containsAll(List.of(wine1, copy)));
+
+        assertTrue(assortment.remove(copy));
+        assertFalse(wine1.isInAssortment());
+        assertTrue(assortment.isEmpty());
+    }
+
+    @Test
+    void testSetRejectsDuplicate() {
+        wine1.setId(7);
+        wine2.setId(8);
+        assortment.add(wine1);
+        assortment.add(wine2);
+        Wine copy = Wine.builder().id(wine1.getId()).name(wine1.getName()).year(wine1.getYear())
+                .volume(wine1.getVolume()).color(wine1.getColor()).price(wine1.getPrice())
+                .comment(wine1.getComment()).build();
+
+        assertThrows(IllegalArgumentException.class, () -> assortment.set(1, copy));
+        assertEquals(List.of(wine1, wine2), assortment.getWineList());
+        assertSame(wine1, assortment.set(0, copy));
+        assertSame(copy, assortment.get(0));
+        assertTrue(assortment.contains(copy));
+    }
+
+    @Test
+    void testRemoveAllKeepsOrderAndIndex() {
+        List<Wine> wines = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            wines.add(Wine.builder().id(i).name("Wine" + i).year(Year.of(2020))
+                    .volume(BottleSize.BOUTEILLE).color(Color.ROUGE).price(i).comment("").build());
+        }
+        assortment.addAll(wines);
+
+        assertTrue(assortment.removeAll(List.of(wines.get(1), wines.get(4))));
+
+        assertEquals(List.of(wines.get(0), wines.get(2), wines.get(3), wines.get(5)), assortment.getWineList());
+        assertFalse(assortment.contains(wines.get(1)));
+        assertFalse(wines.get(4).isInAssortment());
+        assertEquals(10.0, assortment.getTotalPrice());
+    }
+
+    @Test
+    void testTryAddAndTryRemoveOutcomes() throws InvalidBottleVolumeException {
+        Wine olderWine = Wine.builder().id(-1).name("Wine3").year(Year.of(2010))
+                .volume(BottleSize.doubleToBottleSize(75)).color(Color.ROSE).price(20.0).comment("").build();
+
+        assertEquals(AssortmentOutcome.ADDED, assortment.tryAdd(wine1));
+        assertEquals(AssortmentOutcome.DUPLICATE, assortment.tryAdd(wine1));
+        assertEquals(AssortmentOutcome.YEAR_MISMATCH, assortment.tryAdd(olderWine));
+        assertEquals(AssortmentOutcome.ABSENT, assortment.tryRemove(wine2));
+        assertEquals(AssortmentOutcome.REMOVED, assortment.tryRemove(wine1));
+        assertTrue(assortment.isEmpty());
+    }
+
+    @Test
+    void testTryAddAllReportsEachElement() {
+        List<AssortmentOutcome> outcomes = assortment.tryAddAll(List.of(wine1, wine2, wine1));
+
+        assertEquals(List.of(AssortmentOutcome.ADDED, AssortmentOutcome.ADDED, AssortmentOutcome.DUPLICATE), outcomes);
+        assertEquals(List.of(AssortmentOutcome.REMOVED, AssortmentOutcome.ABSENT),
+                assortment.tryRemoveAll(List.of(wine2, wine2)));
+    }
+
+    @Test
+    void testCheckedVariantsThrow() {
+        assertDoesNotThrow(() -> assortment.addOrThrow(wine1));
+        assertThrows(WineAlreadyInAssortmentException.class, () -> assortment.addOrThrow(wine1));
+        assertThrows(WineNotInAssortmentException.class, () -> assortment.removeOrThrow(wine2));
+        assertDoesNotThrow(() -> assortment.removeOrThrow(wine1));
+    }
+
     @Test
     void testGetWineNames() {
         assertDoesNotThrow(() -> {
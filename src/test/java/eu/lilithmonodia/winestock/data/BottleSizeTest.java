@@ -3,7 +3,7 @@ package eu.lilithmonodia.winestock.data;
 import eu.lilithmonodia.winestock.exceptions.InvalidBottleVolumeException;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * The type Bottle size test.
@@ -16,4 +16,39 @@ class BottleSizeTest {
     void testInvalidVolume() {
         assertThrows(InvalidBottleVolumeException.class, () -> BottleSize.doubleToBottleSize(39));
     }
+
+    /**
+     * Test that every bottle size is found from its own volume.
+     */
+    @Test
+    void testFindEveryVolume() throws InvalidBottleVolumeException {
+        for (BottleSize bottleSize : BottleSize.values()) {
+            assertSame(bottleSize, BottleSize.findByVolume(bottleSize.getVolume()));
+            assertSame(bottleSize, BottleSize.doubleToBottleSize(bottleSize.getVolume()));
+        }
+    }
+
+    /**
+     * Test that volumes read back with rounding errors still match.
+     */
+    @Test
+    void testFindWithinTolerance() {
+        assertSame(BottleSize.FILLETTE, BottleSize.findByVolume(37.499999999));
+        assertSame(BottleSize.FILLETTE, BottleSize.findByVolume(0.1 * 375));
+        assertSame(BottleSize.BOUTEILLE, BottleSize.findByVolume(75.005));
+        assertNull(BottleSize.findByVolume(75.1));
+    }
+
+    /**
+     * Test that unknown volumes aren't found.
+     */
+    @Test
+    void testFindUnknownVolume() {
+        assertNull(BottleSize.findByVolume(39));
+        assertNull(BottleSize.findByVolume(0));
+        assertNull(BottleSize.findByVolume(-75));
+        assertNull(BottleSize.findByVolume(3000.5));
+        assertNull(BottleSize.findByVolume(Double.NaN));
+        assertNull(BottleSize.findByVolume(Double.POSITIVE_INFINITY));
+    }
 }
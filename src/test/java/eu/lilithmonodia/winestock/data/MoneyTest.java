@@ -0,0 +1,58 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Money test.
+ */
+class MoneyTest {
+    /**
+     * Test that decimal prices are converted to cents exactly, up to the largest price the database can hold.
+     */
+    @Test
+    void testFromDoubleIsExact() {
+        assertEquals(10, Money.fromDouble(0.1));
+        assertEquals(1999, Money.fromDouble(19.99));
+        assertEquals(-250, Money.fromDouble(-2.5));
+        assertEquals(9_999_999_999L, Money.fromDouble(99_999_999.99));
+        for (long cents = 0; cents < 100_000; cents++) {
+            assertEquals(cents, Money.fromDouble(Money.toDouble(cents)));
+        }
+        assertEquals(101, Money.fromDouble(1.005));
+        assertEquals(-101, Money.fromDouble(-1.005));
+        assertEquals(Money.fromBigDecimal(new BigDecimal("2.675")), Money.fromDouble(2.675));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDouble(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDouble(Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Test the conversions to and from the decimals stored by the database.
+     */
+    @Test
+    void testBigDecimal() {
+        assertEquals(new BigDecimal("12.30"), Money.toBigDecimal(1230));
+        assertEquals(1230, Money.fromBigDecimal(new BigDecimal("12.3")));
+        assertEquals(1235, Money.fromBigDecimal(new BigDecimal("12.345")));
+        assertEquals(-1235, Money.fromBigDecimal(new BigDecimal("-12.345")));
+        assertThrows(ArithmeticException.class, () -> Money.fromBigDecimal(new BigDecimal("1e30")));
+    }
+
+    /**
+     * Test that amounts typed by the user are parsed, and formatted back.
+     */
+    @Test
+    void testParseAndFormat() {
+        assertEquals(1250, Money.parse(" 12.5 "));
+        assertEquals(1250, Money.parse("12,50"));
+        assertEquals(1200, Money.parse("12"));
+        assertEquals("12.50", Money.format(1250));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-3.00", Money.format(-300));
+        assertThrows(NumberFormatException.class, () -> Money.parse("douze"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e30"));
+    }
+}
@@ -0,0 +1,127 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Wine search index test.
+ */
+class WineSearchIndexTest {
+    private static Wine wine(int id, String name, int year, BottleSize volume, Color color, String comment) {
+        return Wine.builder().id(id).name(name).year(Year.of(year)).volume(volume).color(color).price(10)
+                .comment(comment).build();
+    }
+
+    private static BitSet ids(int... ids) {
+        BitSet bitSet = new BitSet();
+        for (int id : ids) {
+            bitSet.set(id);
+        }
+        return bitSet;
+    }
+
+    private static WineSearchIndex cellar() {
+        WineSearchIndex index = new WineSearchIndex();
+        index.put(wine(1, "Château Margaux", 2005, BottleSize.BOUTEILLE, Color.ROUGE, "Grand cru classé"));
+        index.put(wine(2, "Chablis Premier Cru", 2015, BottleSize.BOUTEILLE, Color.BLANC, null));
+        index.put(wine(3, "Château d'Yquem", 2015, BottleSize.MAGNUM, Color.BLANC, "Liquoreux"));
+        index.put(wine(4, "Tavel", 2020, BottleSize.FILLETTE, Color.ROSE, ""));
+        return index;
+    }
+
+    /**
+     * Test that words match as prefixes, ignoring case and accents.
+     */
+    @Test
+    void testSearchByWordPrefix() {
+        WineSearchIndex index = cellar();
+
+        assertEquals(ids(1, 3), index.search("chateau"));
+        assertEquals(ids(1, 3), index.search("CHÂT"));
+        assertEquals(ids(1, 2, 3), index.search("ch"));
+        assertEquals(ids(1, 2), index.search("cru"));
+        assertEquals(ids(3), index.search("yquem"));
+        assertEquals(ids(), index.search("pauillac"));
+    }
+
+    /**
+     * Test that colours, bottle sizes and years are matched, and that every word must match.
+     */
+    @Test
+    void testSearchByColorVolumeAndYear() {
+        WineSearchIndex index = cellar();
+
+        assertEquals(ids(2, 3), index.search("blanc"));
+        assertEquals(ids(4), index.search("rosé"));
+        assertEquals(ids(3), index.search("magnum"));
+        assertEquals(ids(2, 3), index.search("2015"));
+        assertEquals(ids(3), index.search("château blanc 2015"));
+        assertEquals(ids(), index.search("château 2020"));
+        assertEquals(ids(1, 2, 3, 4), index.search("  "));
+    }
+
+    /**
+     * Test that the index follows the wines put, changed and removed.
+     */
+    @Test
+    void testIncrementalMaintenance() {
+        WineSearchIndex index = cellar();
+        assertEquals(ids(1, 3), index.search("chateau"));
+
+        index.put(wine(5, "Château Latour", 2010, BottleSize.MAGNUM, Color.ROUGE, null));
+        assertEquals(ids(1, 3, 5), index.search("chateau"));
+        index.put(wine(1, "Margaux", 2005, BottleSize.BOUTEILLE, Color.ROUGE, null));
+        assertEquals(ids(3, 5), index.search("chateau"));
+        assertEquals(ids(), index.search("grand"));
+        index.remove(3);
+        assertEquals(ids(5), index.search("chateau"));
+        assertEquals(ids(2), index.search("blanc"));
+        assertEquals(4, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(ids(), index.search(""));
+        assertThrows(IllegalArgumentException.class, () -> index.put(wine(-1, "Tavel", 2020, BottleSize.FILLETTE,
+                Color.ROSE, null)));
+    }
+
+    /**
+     * Test that frequent words, whose postings become bitmaps, are still maintained.
+     */
+    @Test
+    void testFrequentWords() {
+        WineSearchIndex index = new WineSearchIndex();
+        for (int id = 0; id < 5000; id++) {
+            index.put(wine(id, "Bordeaux " + id, 2000, BottleSize.BOUTEILLE, Color.ROUGE, null));
+        }
+        assertEquals(5000, index.search("bordeaux").cardinality());
+
+        for (int id = 0; id < 5000; id += 2) {
+            index.remove(id);
+        }
+        BitSet odd = index.search("bordeaux");
+        assertEquals(2500, odd.cardinality());
+        assertEquals(1, odd.nextSetBit(0));
+        assertEquals(ids(4999), index.search("bordeaux 4999"));
+    }
+
+    /**
+     * Test that a single wine is matched with the rules of the index.
+     */
+    @Test
+    void testMatches() {
+        Wine wine = wine(1, "Château Margaux", 2005, BottleSize.BOUTEILLE, Color.ROUGE, "Grand cru");
+
+        assertTrue(WineSearchIndex.matches("chat marg", wine));
+        assertTrue(WineSearchIndex.matches("rouge 2005 bouteille", wine));
+        assertTrue(WineSearchIndex.matches("cru", wine));
+        assertTrue(WineSearchIndex.matches("", wine));
+        assertFalse(WineSearchIndex.matches("blanc", wine));
+        assertFalse(WineSearchIndex.matches("argaux", wine));
+        assertFalse(WineSearchIndex.matches("château 2006", wine));
+    }
+}
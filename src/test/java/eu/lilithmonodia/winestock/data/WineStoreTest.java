@@ -0,0 +1,99 @@
+package eu.lilithmonodia.winestock.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Wine store test.
+ */
+class WineStoreTest {
+    private static Wine wine(int id, String name, int year, Color color, double price) {
+        return Wine.builder().id(id).name(name).year(Year.of(year)).volume(BottleSize.BOUTEILLE).color(color)
+                .price(price).comment(null).build();
+    }
+
+    /**
+     * Test that the views hold the values of the stored wines.
+     */
+    @Test
+    void testViewsRoundTrip() {
+        Wine wine = Wine.builder().id(7).name("Château Margaux").year(Year.of(2005)).volume(BottleSize.MAGNUM)
+                .color(Color.ROUGE).price(249.99).comment("Grand cru").inAssortment(true).version(4).build();
+        WineStore store = WineStore.of(List.of(wine));
+
+        Wine view = store.getWine(7).orElseThrow();
+
+        assertEquals(wine, view);
+        assertNotSame(wine, view);
+        assertEquals(4, view.getVersion());
+        assertEquals(24999, store.getPriceCents(0));
+        assertTrue(store.isInAssortment(0));
+        assertEquals("Grand cru", view.getComment());
+        assertTrue(store.getWine(8).isEmpty());
+    }
+
+    /**
+     * Test that the rows stay in ID order whatever the order of insertion, and that puts replace wines by ID.
+     */
+    @Test
+    void testRowsInIdOrder() {
+        WineStore store = new WineStore(1);
+        store.put(wine(5, "Cahors", 2015, Color.ROUGE, 9));
+        store.put(wine(1, "Sancerre", 2018, Color.BLANC, 15));
+        store.put(wine(3, "Tavel", 2020, Color.ROSE, 11));
+        store.put(wine(3, "Tavel", 2021, Color.ROSE, 12));
+
+        assertEquals(3, store.size());
+        assertEquals(List.of(1, 3, 5), List.of(store.getId(0), store.getId(1), store.getId(2)));
+        assertEquals(2021, store.getYear(1));
+        assertEquals(List.of(wine(3, "Tavel", 2021, Color.ROSE, 12), wine(5, "Cahors", 2015, Color.ROUGE, 9)),
+                store.getWinesAfter(1, 10));
+        assertEquals(1, store.getWinesAfter(Integer.MIN_VALUE, 1).get(0).getId());
+        assertTrue(store.getWinesAfter(5, 10).isEmpty());
+
+        assertTrue(store.remove(3));
+        assertFalse(store.remove(3));
+        assertEquals(List.of(1, 5), List.of(store.getId(0), store.getId(1)));
+        assertEquals("Cahors", store.wineAt(1).getName());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.wineAt(2));
+
+        store.clear();
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * Test that a change made to a view is only stored once it is put back.
+     */
+    @Test
+    void testViewsAreCopies() {
+        WineStore store = WineStore.of(List.of(wine(1, "Cahors", 2015, Color.ROUGE, 9)));
+        Wine view = store.wineAt(0);
+
+        view.setPrice(10.5);
+        assertEquals(900, store.getPriceCents(0));
+        store.put(view);
+        assertEquals(1050, store.getPriceCents(0));
+    }
+
+    /**
+     * Test the aggregations over the columns.
+     */
+    @Test
+    void testAggregations() {
+        WineStore store = WineStore.of(List.of(
+                wine(1, "Cahors", 2015, Color.ROUGE, 9.1),
+                wine(2, "Sancerre", 2015, Color.BLANC, 15.2),
+                wine(3, "Tavel", 2020, Color.ROSE, 0.1),
+                wine(4, "Madiran", 2010, Color.ROUGE, 20)));
+
+        assertEquals(4440, store.getTotalPriceCents());
+        assertEquals(Map.of(2010, 2000L, 2015, 2430L, 2020, 10L), store.getPriceCentsByYear());
+        assertEquals(List.of(2010, 2015, 2020), List.copyOf(store.getPriceCentsByYear().keySet()));
+        assertEquals(Map.of(Color.ROUGE, 2, Color.BLANC, 1, Color.ROSE, 1), store.countByColor());
+    }
+}
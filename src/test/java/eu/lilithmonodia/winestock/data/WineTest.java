@@ -38,6 +38,17 @@ class WineTest {
         assertEquals(1, wine.getId());
     }
 
+    @Test
+    void testToBuilderCopiesTheWine() {
+        wine.setVersion(3);
+        Wine copy = wine.toBuilder().build();
+        copy.setName("Merlot");
+
+        assertEquals(3, copy.getVersion());
+        assertEquals(wine.getId(), copy.getId());
+        assertEquals("Cabernet", wine.getName());
+    }
+
     @Test
     void testGetName() {
         assertEquals("Cabernet", wine.getName());
@@ -0,0 +1,38 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeEventTest {
+
+    @Test
+    void testParseWineMove() {
+        ChangeEvent event = ChangeEvent.parse("wine,UPDATE,42,7,3");
+
+        assertEquals(ChangeEvent.Table.WINE, event.table());
+        assertEquals(ChangeEvent.Operation.UPDATE, event.operation());
+        assertEquals(42, event.id());
+        assertEquals(7, event.assortmentId());
+        assertEquals(3, event.previousAssortmentId());
+    }
+
+    @Test
+    void testParseEmptyAssortmentsAsNull() {
+        ChangeEvent event = ChangeEvent.parse("assortment,DELETE,5,,");
+
+        assertEquals(ChangeEvent.Table.ASSORTMENT, event.table());
+        assertEquals(ChangeEvent.Operation.DELETE, event.operation());
+        assertEquals(5, event.id());
+        assertNull(event.assortmentId());
+        assertNull(event.previousAssortmentId());
+    }
+
+    @Test
+    void testParseRejectsMalformedPayloads() {
+        assertThrows(IllegalArgumentException.class, () -> ChangeEvent.parse("wine,INSERT,1"));
+        assertThrows(IllegalArgumentException.class, () -> ChangeEvent.parse("cellar,INSERT,1,,"));
+        assertThrows(IllegalArgumentException.class, () -> ChangeEvent.parse("wine,TRUNCATE,1,,"));
+        assertThrows(IllegalArgumentException.class, () -> ChangeEvent.parse("wine,INSERT,x,,"));
+    }
+}
@@ -0,0 +1,44 @@
+package eu.lilithmonodia.winestock.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlScriptTest {
+
+    @Test
+    void testStatementsSplitAtLineEndsOutsideDollarQuotes() {
+        String script = """
+                -- A comment; not a statement
+                CREATE INDEX a ON t (x);
+
+                DO
+                $$
+                    BEGIN
+                        PERFORM 1;
+                    END
+                $$;
+                CREATE INDEX b
+                    ON t (y);
+                """;
+
+        assertEquals(List.of("CREATE INDEX a ON t (x)",
+                        "DO\n$$\n    BEGIN\n        PERFORM 1;\n    END\n$$",
+                        "CREATE INDEX b\n    ON t (y)"),
+                SqlScript.statements(script));
+    }
+
+    @Test
+    void testSearchIndexesRunOneIndexPerStatement() throws SQLException {
+        List<String> statements = SqlScript.statements(SqlScript.read("search_indexes.sql"));
+
+        assertEquals(6, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE INDEX CONCURRENTLY"));
+        assertTrue(statements.get(3).startsWith("DO"));
+        assertTrue(statements.get(4).startsWith("CREATE INDEX CONCURRENTLY"));
+        assertTrue(statements.get(5).contains("((" + WineQuery.SEARCH_TEXT + ") gin_trgm_ops)"));
+    }
+}
@@ -0,0 +1,92 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WineCopyFormatTest {
+
+    @Test
+    void testEncodeEscapesSpecialCharacters() {
+        Wine wine = Wine.builder().name("Château\tMargaux")
+                .year(Year.of(2015))
+                .volume(BottleSize.FILLETTE)
+                .color(Color.ROUGE)
+                .price(120.5)
+                .comment("line1\nline2 \\ end").build();
+        StringBuilder row = new StringBuilder();
+
+        WineCopyFormat.encode(wine, row);
+
+        assertEquals("Château\\tMargaux\t2015\t37.5\tROUGE\t120.50\tline1\\nline2 \\\\ end\n", row.toString());
+    }
+
+    @Test
+    void testEncodeNullComment() {
+        Wine wine = Wine.builder().name("Cabernet")
+                .year(Year.of(2019))
+                .volume(BottleSize.BOUTEILLE)
+                .color(Color.ROUGE)
+                .price(15.0).build();
+        StringBuilder row = new StringBuilder();
+
+        WineCopyFormat.encode(wine, row);
+
+        assertTrue(row.toString().endsWith("\t\\N\n"));
+    }
+
+    @Test
+    void testLargePriceRoundTripsExactly() {
+        Wine wine = Wine.builder().id(1).name("Romanée-Conti")
+                .year(Year.of(1945))
+                .volume(BottleSize.BOUTEILLE)
+                .color(Color.ROUGE)
+                .priceCents(1_234_567_899L).build();
+        StringBuilder row = new StringBuilder("1\t");
+
+        WineCopyFormat.encode(wine, row);
+        row.setLength(row.length() - 1);
+        row.append("\t0\t\\N");
+
+        assertTrue(row.toString().contains("\t12345678.99\t"));
+        assertEquals(1_234_567_899L, WineCopyFormat.decode(row.toString()).getPriceCents());
+    }
+
+    @Test
+    void testDecode() {
+        Wine wine = WineCopyFormat.decode("42\tChâteau\\tMargaux\t2015\t37.5\tROUGE\t120.5\tline1\\nline2\t4\t\\N\n");
+
+        assertEquals(42, wine.getId());
+        assertEquals("Château\tMargaux", wine.getName());
+        assertEquals(Year.of(2015), wine.getYear());
+        assertEquals(BottleSize.FILLETTE, wine.getVolume());
+        assertEquals(Color.ROUGE, wine.getColor());
+        assertEquals(120.5, wine.getPrice(), 0.001);
+        assertEquals("line1\nline2", wine.getComment());
+        assertEquals(4, wine.getVersion());
+        assertFalse(wine.isInAssortment());
+    }
+
+    @Test
+    void testDecodeWineInAssortmentWithNullComment() {
+        Wine wine = WineCopyFormat.decode("7\tRiesling\t2020\t75\tBLANC\t12\t\\N\t0\t3");
+
+        assertNull(wine.getComment());
+        assertTrue(wine.isInAssortment());
+    }
+
+    @Test
+    void testDecodeRejectsUnknownVolume() {
+        assertThrows(IllegalArgumentException.class, () -> WineCopyFormat.decode("7\tRiesling\t2020\t39\tBLANC\t12\t\t0\t\\N"));
+    }
+
+    @Test
+    void testDecodeRejectsMissingColumns() {
+        assertThrows(IllegalArgumentException.class, () -> WineCopyFormat.decode("7\tRiesling\t2020"));
+    }
+}
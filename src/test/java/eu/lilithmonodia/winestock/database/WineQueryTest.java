@@ -0,0 +1,121 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.data.WineSearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Year;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WineQueryTest {
+    private static final String SELECT = "SELECT wno, name, year, volume, color, price, comment, version, ano FROM public.wine";
+
+    private static Wine wine(String name, int year, Color color, double price) {
+        return Wine.builder().id(1).name(name).year(Year.of(year)).volume(BottleSize.BOUTEILLE).color(color)
+                .price(price).comment(null).build();
+    }
+
+    @Test
+    void testCompileWithoutCriteria() {
+        WineQuery.Compiled compiled = WineQuery.ALL.compile();
+
+        assertEquals(SELECT + " ORDER BY wno", compiled.sql());
+        assertTrue(compiled.parameters().isEmpty());
+    }
+
+    @Test
+    void testCompileEveryCriterion() {
+        WineQuery query = WineQuery.builder().nameStartsWith("Ch").nameContains("Mar").minYear(2000).maxYear(2010)
+                .color(Color.ROUGE).volume(BottleSize.MAGNUM).minPrice(new BigDecimal("10")).maxPrice(new BigDecimal("50"))
+                .inAssortment(false).sort(WineQuery.Sort.PRICE).descending(true).limit(20).build();
+
+        WineQuery.Compiled compiled = query.compile();
+
+        assertEquals(SELECT + " WHERE lower(name) LIKE ? AND lower(name) LIKE ? AND year >= ? AND year <= ?"
+                + " AND color = ? AND volume = ? AND price >= ? AND price <= ? AND ano IS NULL"
+                + " ORDER BY price DESC, wno DESC LIMIT ?", compiled.sql());
+        assertEquals(List.of("ch%", "%mar%", 2000, 2010, "ROUGE", 150.0, new BigDecimal("10"), new BigDecimal("50"), 20),
+                compiled.parameters());
+    }
+
+    @Test
+    void testCompileEscapesWildcards() {
+        WineQuery.Compiled compiled = WineQuery.builder().nameContains("100%_\\").build().compile();
+
+        assertEquals(List.of("%100\\%\\_\\\\%"), compiled.parameters());
+    }
+
+    @Test
+    void testCompilePagesByIdOnlyInIdOrder() {
+        WineQuery.Compiled compiled = WineQuery.builder().afterId(42).limit(10).build().compile();
+
+        assertEquals(SELECT + " WHERE wno > ? ORDER BY wno LIMIT ?", compiled.sql());
+        assertEquals(List.of(42, 10), compiled.parameters());
+        assertThrows(IllegalStateException.class,
+                () -> WineQuery.builder().afterId(42).sort(WineQuery.Sort.NAME).build().compile());
+    }
+
+    @Test
+    void testMatchesInMemory() {
+        WineQuery query = WineQuery.builder().nameContains("MARGAUX").minYear(2000).color(Color.ROUGE)
+                .maxPrice(new BigDecimal("50")).inAssortment(false).build();
+
+        assertTrue(query.test(wine("Château Margaux", 2005, Color.ROUGE, 49.99)));
+        assertFalse(query.test(wine("Château Margaux", 1999, Color.ROUGE, 20)));
+        assertFalse(query.test(wine("Château Margaux", 2005, Color.BLANC, 20)));
+        assertFalse(query.test(wine("Château Margaux", 2005, Color.ROUGE, 50.01)));
+        assertFalse(query.test(wine("Pauillac", 2005, Color.ROUGE, 20)));
+        Wine assorted = wine("Château Margaux", 2005, Color.ROUGE, 20);
+        assorted.setInAssortment(true);
+        assertFalse(query.test(assorted));
+    }
+
+    @Test
+    void testFromSearchText() {
+        WineQuery query = WineQuery.fromSearchText("  Château rouge 2015  MAGNUM ");
+
+        assertEquals(List.of("chateau", "rouge", "2015", "magnum"), query.getSearchWords());
+        assertNull(query.getInAssortment());
+        assertEquals(WineQuery.ALL, WineQuery.fromSearchText(" "));
+    }
+
+    @Test
+    void testCompileSearchWordsOneConditionPerWord() {
+        WineQuery.Compiled compiled = WineQuery.fromSearchText("rouge 2015 magnum marg").compile();
+
+        String match = "(" + WineQuery.SEARCH_TEXT + " ~ ?";
+        assertEquals(SELECT + " WHERE " + match + " OR color = ?) AND " + match + " OR year = ?) AND "
+                + match + " OR volume = ?) AND " + match + ") ORDER BY wno", compiled.sql());
+        assertEquals(List.of("(^|[^[:alnum:]])rouge", "ROUGE", "(^|[^[:alnum:]])2015", 2015,
+                "(^|[^[:alnum:]])magnum", 150.0, "(^|[^[:alnum:]])marg"), compiled.parameters());
+    }
+
+    @Test
+    void testSearchTextFoldsLikeTheIndex() {
+        assertEquals(WineQuery.ACCENTED_LETTERS.length(), WineQuery.FOLDED_LETTERS.length());
+        for (int i = 0; i < WineQuery.ACCENTED_LETTERS.length(); i++) {
+            assertEquals(String.valueOf(WineQuery.FOLDED_LETTERS.charAt(i)),
+                    WineSearchIndex.fold(String.valueOf(WineQuery.ACCENTED_LETTERS.charAt(i))));
+        }
+    }
+
+    @Test
+    void testSearchWordsMatchLikeTheIndex() {
+        Wine wine = Wine.builder().id(1).name("Château Léoville-Barton").year(Year.of(2015))
+                .volume(BottleSize.MAGNUM).color(Color.ROUGE).price(80).comment("Élevé en fût").build();
+
+        for (String text : List.of("chateau barton", "LEOV", "rouge 2015", "magnum", "eleve fut", "barton rouge")) {
+            assertTrue(WineQuery.fromSearchText(text).test(wine), text);
+            assertTrue(WineSearchIndex.matches(text, wine), text);
+        }
+        for (String text : List.of("teau", "blanc", "2016", "bouteille", "chateau margaux")) {
+            assertFalse(WineQuery.fromSearchText(text).test(wine), text);
+            assertFalse(WineSearchIndex.matches(text, wine), text);
+        }
+    }
+}
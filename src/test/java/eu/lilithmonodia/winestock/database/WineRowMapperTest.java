@@ -0,0 +1,99 @@
+package eu.lilithmonodia.winestock.database;
+
+import eu.lilithmonodia.winestock.data.BottleSize;
+import eu.lilithmonodia.winestock.data.Color;
+import eu.lilithmonodia.winestock.data.Wine;
+import eu.lilithmonodia.winestock.data.WineStore;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WineRowMapperTest {
+
+    /**
+     * Creates a ResultSet positioned on a single row.
+     *
+     * @param columns the column labels, in index order
+     * @param values  the values of the row
+     * @return the ResultSet
+     */
+    private static ResultSet row(String[] columns, Object... values) {
+        List<String> labels = Arrays.asList(columns);
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findColumn" -> {
+                        int index = labels.indexOf((String) args[0]);
+                        if (index < 0) {
+                            throw new SQLException("Unknown column " + args[0]);
+                        }
+                        yield index + 1;
+                    }
+                    case "getInt" -> ((Number) values[(int) args[0] - 1]).intValue();
+                    case "getDouble" -> ((Number) values[(int) args[0] - 1]).doubleValue();
+                    case "getString" -> (String) values[(int) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void testMapResolvesColumnsByLabel() throws SQLException {
+        ResultSet resultSet = row(new String[]{"version", "comment", "price", "color", "volume", "year", "name", "wno"},
+                3, "Notes", 12.5, "BLANC", 37.5, 2018, "Sancerre", 42);
+
+        Wine wine = new WineRowMapper(resultSet).map(resultSet);
+
+        assertEquals(42, wine.getId());
+        assertEquals("Sancerre", wine.getName());
+        assertEquals(Year.of(2018), wine.getYear());
+        assertSame(BottleSize.FILLETTE, wine.getVolume());
+        assertSame(Color.BLANC, wine.getColor());
+        assertEquals(12.5, wine.getPrice());
+        assertEquals("Notes", wine.getComment());
+        assertEquals(3, wine.getVersion());
+        assertFalse(wine.isInAssortment());
+    }
+
+    @Test
+    void testMapIntoStore() throws SQLException {
+        ResultSet resultSet = row(new String[]{"wno", "name", "year", "volume", "color", "price", "comment", "version"},
+                42, "Sancerre", 2018, 37.5, "BLANC", 12.35, null, 3);
+        WineStore store = new WineStore();
+
+        new WineRowMapper(resultSet).mapInto(resultSet, store, true);
+
+        assertEquals(1, store.size());
+        assertEquals(1235, store.getPriceCents(0));
+        Wine wine = store.getWine(42).orElseThrow();
+        assertEquals("Sancerre", wine.getName());
+        assertEquals(Year.of(2018), wine.getYear());
+        assertSame(BottleSize.FILLETTE, wine.getVolume());
+        assertNull(wine.getComment());
+        assertEquals(3, wine.getVersion());
+        assertTrue(wine.isInAssortment());
+    }
+
+    @Test
+    void testMapRejectsUnknownValues() throws SQLException {
+        String[] columns = {"wno", "name", "year", "volume", "color", "price", "comment", "version"};
+        ResultSet unknownColor = row(columns, 1, "Cahors", 2015, 75, "ORANGE", 9.0, null, 0);
+        ResultSet unknownVolume = row(columns, 1, "Cahors", 2015, 39, "ROUGE", 9.0, null, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> new WineRowMapper(unknownColor).map(unknownColor));
+        assertThrows(IllegalArgumentException.class, () -> new WineRowMapper(unknownVolume).map(unknownVolume));
+        assertThrows(SQLException.class, () -> new WineRowMapper(row(new String[]{"wno"}, 1)));
+    }
+
+    @Test
+    void testYearsAreShared() {
+        assertSame(WineRowMapper.year(2015), WineRowMapper.year(2015));
+        assertEquals(Year.of(999), WineRowMapper.year(999));
+        assertEquals(Year.of(3000), WineRowMapper.year(3000));
+    }
+}
@@ -135,4 +135,14 @@ class ErrorsTest {
     void shouldReturnCorrectErrorMessageForFailedToAddWineToAssortment() {
         assertEquals("Failed to add wine to assortment in the database.", Errors.FAILED_TO_ADD_WINE_TO_ASSORTMENT.getValue());
     }
+
+    @Test
+    void shouldReturnCorrectErrorMessageForWineChangedByAnotherUser() {
+        assertEquals("The wine was changed or deleted by another user. It has been reloaded.", Errors.WINE_CHANGED_BY_ANOTHER_USER.getValue());
+    }
+
+    @Test
+    void shouldReturnCorrectErrorMessageForDatabaseNotMigrated() {
+        assertEquals("The database must be migrated first: run ./gradlew migrate as the owner of the tables.", Errors.DATABASE_NOT_MIGRATED.getValue());
+    }
 }